@@ -0,0 +1,190 @@
+package edu.mor.libraryindex.benchmark;
+
+import edu.mor.libraryindex.LibraryIndexApplication;
+import edu.mor.libraryindex.concurrent.VirtualThreads;
+import edu.mor.libraryindex.repository.BookRepository;
+import edu.mor.libraryindex.repository.ReactiveBookRepository;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load test of the book API on the servlet stack with the platform thread pool, with virtual threads and
+ * on the reactive stack. Every repository call is delayed to simulate Mongo latency, and the number of concurrent
+ * clients is set well above the Tomcat pool size so the platform run is bounded by its workers. Throughput is also
+ * reported per available core, pin the core count with {@code -XX:ActiveProcessorCount} to compare stacks on equal
+ * hardware. Needs the Mongo from docker-compose and, for the virtual thread run, a Java 21 runtime:
+ * <pre>
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark.main=edu.mor.libraryindex.benchmark.BookApiLoadBenchmark
+ * </pre>
+ * Tunable with {@code -Dclients}, {@code -Dlatency.ms}, {@code -Dduration.s} and {@code -Dtomcat.threads} passed
+ * through {@code -Dbenchmark.jvmArgs}.
+ */
+public class BookApiLoadBenchmark {
+    private static final int CLIENTS = Integer.getInteger("clients", 1000);
+    private static final long LATENCY_MS = Long.getLong("latency.ms", 50);
+    private static final int DURATION_S = Integer.getInteger("duration.s", 20);
+    private static final int WARMUP_S = Integer.getInteger("warmup.s", 5);
+    private static final int TOMCAT_THREADS = Integer.getInteger("tomcat.threads", 200);
+
+    public static void main(String[] args) throws Exception {
+        List<String> results = new ArrayList<>();
+        results.add(run(Mode.PLATFORM));
+        if (VirtualThreads.isSupported()) {
+            results.add(run(Mode.VIRTUAL));
+        } else {
+            results.add("virtual threads  skipped, running on Java " + Runtime.version().feature());
+        }
+        results.add(run(Mode.REACTIVE));
+        System.out.printf("%n%d clients, %d ms repository latency, %d tomcat threads, %d cores%n",
+            CLIENTS, LATENCY_MS, TOMCAT_THREADS, Runtime.getRuntime().availableProcessors());
+        results.forEach(System.out::println);
+        System.exit(0);
+    }
+
+    private enum Mode {
+        PLATFORM("platform pool"), VIRTUAL("virtual threads"), REACTIVE("reactive");
+
+        private final String label;
+
+        Mode(String label) {
+            this.label = label;
+        }
+    }
+
+    private static String run(Mode mode) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LibraryIndexApplication.class, LatencyConfiguration.class)
+            .profiles(mode == Mode.REACTIVE ? new String[]{"reactive"} : new String[0])
+            .properties(
+                "server.port=0",
+                "server.tomcat.threads.max=" + TOMCAT_THREADS,
+                "server.tomcat.max-connections=" + (CLIENTS * 2),
+                "spring.data.mongodb.database=library-benchmark",
+                "library-index.search.rebuild-on-startup=false",
+                "library-index.virtual-threads.enabled=" + (mode == Mode.VIRTUAL))
+            .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/api/v1/books/summaries/by-title?title=benchmark");
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+            drive(client, uri, Duration.ofSeconds(WARMUP_S));
+            List<Long> latencies = drive(client, uri, Duration.ofSeconds(DURATION_S));
+            Collections.sort(latencies);
+            double throughput = latencies.size() / (double) DURATION_S;
+            return String.format("%-16s %10.1f req/s %8.1f req/s/core   p50 %6.1f ms   p99 %7.1f ms",
+                mode.label,
+                throughput,
+                throughput / Runtime.getRuntime().availableProcessors(),
+                percentile(latencies, 0.50) / 1e6,
+                percentile(latencies, 0.99) / 1e6);
+        }
+    }
+
+    private static List<Long> drive(HttpClient client, URI uri, Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong failures = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(CLIENTS);
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        for (int i = 0; i < CLIENTS; i++) {
+            send(client, request, deadline, latencies, failures, done);
+        }
+        done.await();
+        if (failures.get() > 0) {
+            System.out.println(failures.get() + " failed requests");
+        }
+        return new ArrayList<>(latencies);
+    }
+
+    private static void send(HttpClient client, HttpRequest request, long deadline, List<Long> latencies,
+                             AtomicLong failures, CountDownLatch done) {
+        long start = System.nanoTime();
+        if (start >= deadline) {
+            done.countDown();
+            return;
+        }
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            if (error != null || response.statusCode() != 200) {
+                failures.incrementAndGet();
+            } else {
+                latencies.add(System.nanoTime() - start);
+            }
+            send(client, request, deadline, latencies, failures, done);
+        });
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(percentile * sorted.size()) - 1));
+    }
+
+    @Configuration
+    static class LatencyConfiguration {
+        @Bean
+        static BeanPostProcessor repositoryLatency() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof BookRepository repository) {
+                        return delayed(BookRepository.class, repository);
+                    }
+                    if (bean instanceof ReactiveBookRepository repository) {
+                        return delayed(ReactiveBookRepository.class, repository);
+                    }
+                    return bean;
+                }
+            };
+        }
+
+        /**
+         * Blocking repositories sleep on the calling thread, reactive ones delay the subscription without blocking.
+         */
+        private static <T> T delayed(Class<T> type, T repository) {
+            Duration latency = Duration.ofMillis(LATENCY_MS);
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                if (Mono.class.isAssignableFrom(method.getReturnType())) {
+                    return Mono.defer(() -> invoke(method, repository, args)).delaySubscription(latency);
+                }
+                if (Flux.class.isAssignableFrom(method.getReturnType())) {
+                    return Flux.defer(() -> invoke(method, repository, args)).delaySubscription(latency);
+                }
+                Thread.sleep(LATENCY_MS);
+                return invoke(method, repository, args);
+            }));
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <R> R invoke(Method method, Object target, Object[] args) {
+            try {
+                return (R) method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause() instanceof RuntimeException runtimeException
+                    ? runtimeException
+                    : new IllegalStateException(e.getCause());
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package edu.mor.libraryindex.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import edu.mor.libraryindex.codec.BinaryObjectMappers;
+import edu.mor.libraryindex.codec.BookProtobuf;
+import edu.mor.libraryindex.codec.BookProtobufReader;
+import edu.mor.libraryindex.dto.CursorPage;
+import edu.mor.libraryindex.model.Book;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of a single book and of a page of {@link #PAGE_SIZE} books in every representation the
+ * controllers offer. The payload sizes are printed once per fork, since JMH has no column for them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookEncodingBenchmark {
+    private static final int PAGE_SIZE = 20;
+    private static final TypeReference<CursorPage<Book>> PAGE_TYPE = new TypeReference<>() {
+    };
+
+    @Param({"json", "smile", "cbor", "protobuf"})
+    private String format;
+
+    private ObjectMapper mapper;
+    private Book book;
+    private CursorPage<Book> page;
+    private byte[] encodedBook;
+    private byte[] encodedPage;
+
+    @Setup
+    public void setUp() throws Exception {
+        BinaryObjectMappers binaryMappers = new BinaryObjectMappers(bootLikeBuilder(), bootLikeBuilder());
+        mapper = switch (format) {
+            case "json" -> bootLikeBuilder().build();
+            case "smile" -> binaryMappers.smile();
+            case "cbor" -> binaryMappers.cbor();
+            default -> null;
+        };
+        List<Book> books = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            books.add(new Book(String.format("0187c9b2-7d1c-7cc3-b2f1-5e0a2a3c%04d", i), "Java for Beginners, volume " + i,
+                "A beginner's guide to Java programming", Arrays.asList("John Doe", "Jane Roe"),
+                LocalDateTime.of(2020, 5, 17, 10, 30), LocalDateTime.of(2023, 1, 2, 3, 4, i), i % 3));
+        }
+        book = books.get(0);
+        page = new CursorPage<>(books, "eyJjIjoiMjAyMy0wMS0wMlQwMzowNDoxOSIsImkiOiIwMTg3YzliMiJ9");
+        encodedBook = encodeBook();
+        encodedPage = encodePage();
+        System.out.printf("%n%s: book %d bytes, page of %d books %d bytes%n", format, encodedBook.length, PAGE_SIZE,
+            encodedPage.length);
+    }
+
+    @Benchmark
+    public byte[] encodeBook() throws Exception {
+        return mapper == null ? BookProtobuf.toByteArray(book) : mapper.writeValueAsBytes(book);
+    }
+
+    @Benchmark
+    public Book decodeBook() throws Exception {
+        return mapper == null ? BookProtobufReader.readBook(encodedBook) : mapper.readValue(encodedBook, Book.class);
+    }
+
+    @Benchmark
+    public byte[] encodePage() throws Exception {
+        return mapper == null ? BookProtobuf.toByteArray(page) : mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public CursorPage<Book> decodePage() throws Exception {
+        return mapper == null ? BookProtobufReader.readBookPage(encodedPage) : mapper.readValue(encodedPage, PAGE_TYPE);
+    }
+
+    private static Jackson2ObjectMapperBuilder bootLikeBuilder() {
+        return new Jackson2ObjectMapperBuilder().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+}
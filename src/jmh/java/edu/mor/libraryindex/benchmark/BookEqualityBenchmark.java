@@ -0,0 +1,52 @@
+package edu.mor.libraryindex.benchmark;
+
+import edu.mor.libraryindex.model.Book;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Book#hashCode()} and {@link Book#equals(Object)} as used by caches, sets and the test assertions. The unequal
+ * pair differs only in its authors, the last compared field, so every field is visited. Run with {@code -prof gc} to
+ * see the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookEqualityBenchmark {
+    private Book book;
+    private Book equalCopy;
+    private Book differentAuthors;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime publishedAt = LocalDateTime.of(2020, 5, 17, 10, 30);
+        LocalDateTime createdAt = LocalDateTime.of(2023, 1, 2, 3, 4, 5);
+        book = new Book("0187c9b2-7d1c-7cc3-b2f1-5e0a2a3c4d5e", "Java for Beginners",
+            "A beginner's guide to Java programming", Arrays.asList("John Doe", "Jane Roe"), publishedAt, createdAt);
+        equalCopy = new Book(new String(book.getId()), new String(book.getTitle()), new String(book.getDescription()),
+            Arrays.asList(new String("John Doe"), new String("Jane Roe")), publishedAt, createdAt);
+        differentAuthors = new Book(book.getId(), book.getTitle(), book.getDescription(),
+            Arrays.asList("John Doe", "Jane Doe"), publishedAt, createdAt);
+    }
+
+    @Benchmark
+    public int hashCodeOfBook() {
+        return book.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsEqualCopy() {
+        return book.equals(equalCopy);
+    }
+
+    @Benchmark
+    public boolean equalsDifferentLastField() {
+        return book.equals(differentAuthors);
+    }
+}
@@ -0,0 +1,45 @@
+package edu.mor.libraryindex.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.mor.libraryindex.model.Book;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson round trip of a {@link Book} with an {@link ObjectMapper} configured like the one Spring Boot gives the
+ * controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookJsonBenchmark {
+    private ObjectMapper objectMapper;
+    private Book book;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        book = new Book("0187c9b2-7d1c-7cc3-b2f1-5e0a2a3c4d5e", "Java for Beginners",
+            "A beginner's guide to Java programming", Arrays.asList("John Doe", "Jane Roe"),
+            LocalDateTime.of(2020, 5, 17, 10, 30), LocalDateTime.of(2023, 1, 2, 3, 4, 5));
+        json = objectMapper.writeValueAsBytes(book);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(book);
+    }
+
+    @Benchmark
+    public Book deserialize() throws Exception {
+        return objectMapper.readValue(json, Book.class);
+    }
+}
@@ -0,0 +1,115 @@
+package edu.mor.libraryindex.benchmark;
+
+import edu.mor.libraryindex.dto.BookCreateDto;
+import edu.mor.libraryindex.dto.BookSearchResult;
+import edu.mor.libraryindex.dto.BookSummary;
+import edu.mor.libraryindex.dto.CursorPage;
+import edu.mor.libraryindex.id.TimeOrderedUuidGenerator;
+import edu.mor.libraryindex.model.Book;
+import edu.mor.libraryindex.service.AuthorFacetService;
+import edu.mor.libraryindex.service.BookSearchService;
+import edu.mor.libraryindex.service.BookService;
+import edu.mor.libraryindex.service.DateHistogramService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BookService} and {@link BookSearchService} against {@link InMemoryBookStore}, without the Spring cache
+ * proxy, so the numbers cover DTO mapping, id generation, indexing and paging but no I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookServiceBenchmark {
+    private static final String[] WORDS = {
+        "java", "spring", "mongo", "reactive", "stream", "index", "cache", "thread", "virtual", "queue", "search",
+        "cursor", "latency", "memory", "garbage", "collector", "benchmark", "profile", "lock", "buffer"
+    };
+
+    @Param({"10000"})
+    public int books;
+
+    private BookService bookService;
+    private BookSearchService bookSearchService;
+    private BookCreateDto createDto;
+    private String existingId;
+    private String secondPageToken;
+
+    /**
+     * Rebuilt every iteration so that the books added by {@link #create()} do not pile up across the run.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        InMemoryBookStore store = new InMemoryBookStore();
+        bookSearchService = new BookSearchService(store.repository(), true, false);
+        bookService = new BookService(store.repository(), store.mongoOperations(), bookSearchService, new TimeOrderedUuidGenerator(),
+            new ConcurrentMapCacheManager(BookService.BOOKS_CACHE), new AuthorFacetService(null, store.mongoOperations(), false),
+            new DateHistogramService(null, store.mongoOperations(), false), false, 100, Duration.ZERO);
+        LocalDateTime createdAt = LocalDateTime.of(2023, 1, 1, 0, 0);
+        for (int i = 0; i < books; i++) {
+            Book book = new Book(String.format("%08d", i), title(i), description(i), Arrays.asList("Author " + (i % 100)),
+                createdAt.minusDays(i % 3650), createdAt.plusSeconds(i));
+            store.put(book);
+            bookSearchService.index(book);
+        }
+        existingId = String.format("%08d", books / 2);
+        createDto = new BookCreateDto("Benchmark title", "Benchmark description", Arrays.asList("Author"), createdAt);
+        secondPageToken = bookService.getPage(null, 20).next();
+    }
+
+    @Benchmark
+    public Book create() {
+        return bookService.create(createDto);
+    }
+
+    @Benchmark
+    public Book findById() {
+        return bookService.findById(existingId);
+    }
+
+    @Benchmark
+    public Book update() {
+        return bookService.update(existingId, createDto);
+    }
+
+    @Benchmark
+    public CursorPage<Book> getFirstPage() {
+        return bookService.getPage(null, 20);
+    }
+
+    @Benchmark
+    public CursorPage<Book> getNextPage() {
+        return bookService.getPage(secondPageToken, 20);
+    }
+
+    @Benchmark
+    public CursorPage<BookSummary> getSummaryPage() {
+        return bookService.getSummaryPage(secondPageToken, 20);
+    }
+
+    @Benchmark
+    public List<BookSearchResult> search() {
+        return bookSearchService.search("reactive stream cursor", 20);
+    }
+
+    private static String title(int i) {
+        return WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length];
+    }
+
+    private static String description(int i) {
+        StringBuilder description = new StringBuilder();
+        for (int j = 0; j < 12; j++) {
+            description.append(WORDS[(i * 7 + j * 3) % WORDS.length]).append(' ');
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,39 @@
+package edu.mor.libraryindex.benchmark;
+
+import edu.mor.libraryindex.id.IdGenerator;
+import edu.mor.libraryindex.id.IdGeneratorConfiguration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one id for every {@code library-index.id.strategy}, single-threaded and under contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGeneratorBenchmark {
+    @Param({"uuid-v7", "object-id", "random-uuid"})
+    public String strategy;
+
+    private IdGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new IdGeneratorConfiguration().idGenerator(strategy);
+    }
+
+    @Benchmark
+    public String nextId() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String nextIdContended() {
+        return generator.nextId();
+    }
+}
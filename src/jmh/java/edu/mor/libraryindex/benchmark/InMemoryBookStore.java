@@ -0,0 +1,186 @@
+package edu.mor.libraryindex.benchmark;
+
+import com.mongodb.client.MongoCollection;
+import edu.mor.libraryindex.dto.BookSummary;
+import edu.mor.libraryindex.model.AuthorFacet;
+import edu.mor.libraryindex.model.Book;
+import edu.mor.libraryindex.model.HistogramBucket;
+import edu.mor.libraryindex.repository.BookRepository;
+import org.bson.Document;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.mongodb.core.CollectionCallback;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory stand-in for Mongo so that service benchmarks measure the service code and not the network. It backs a
+ * {@link BookRepository} and the {@link MongoOperations} calls made by {@code BookService}; every other method
+ * throws, so a benchmark that starts touching a new repository method fails loudly instead of measuring nothing.
+ */
+class InMemoryBookStore {
+    private static final Comparator<Book> KEYSET_ORDER = Comparator.comparing(Book::getCreatedAt).thenComparing(Book::getId);
+
+    private final MongoConverter converter = converter();
+    private final Map<String, Book> byId = new ConcurrentHashMap<>();
+    private final NavigableMap<Book, Book> byPosition = new ConcurrentSkipListMap<>(KEYSET_ORDER);
+
+    BookRepository repository() {
+        return proxy(BookRepository.class, this::repositoryCall);
+    }
+
+    MongoOperations mongoOperations() {
+        return proxy(MongoOperations.class, (method, args) -> {
+            if (method.getName().equals("findAndModify") && args.length == 4) {
+                return findAndModify((Query) args[0], (Update) args[1]);
+            }
+            if (method.getName().equals("execute") && args.length == 2 && (args[0] == AuthorFacet.class || args[0] == HistogramBucket.class)) {
+                return ((CollectionCallback<?>) args[1]).doInCollection(counterCollection());
+            }
+            if (method.getName().equals("getConverter")) {
+                return converter;
+            }
+            throw new UnsupportedOperationException(method.toString());
+        });
+    }
+
+    private static MongoConverter converter() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    /**
+     * Facet and histogram counters are not kept, the bulk write is built by the service and then dropped.
+     */
+    @SuppressWarnings("unchecked")
+    private static MongoCollection<Document> counterCollection() {
+        return proxy(MongoCollection.class, (method, args) -> {
+            if (method.getName().equals("bulkWrite")) {
+                return null;
+            }
+            throw new UnsupportedOperationException(method.toString());
+        });
+    }
+
+    void put(Book book) {
+        Book previous = byId.put(book.getId(), book);
+        if (previous != null) {
+            byPosition.remove(previous);
+        }
+        byPosition.put(book, book);
+    }
+
+    private Object repositoryCall(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "save" -> {
+                put((Book) args[0]);
+                return args[0];
+            }
+            case "findById" -> {
+                return Optional.ofNullable(byId.get((String) args[0]));
+            }
+            case "findByIdIn" -> {
+                List<Book> books = new ArrayList<>();
+                for (Object id : (Collection<?>) args[0]) {
+                    Optional.ofNullable(byId.get((String) id)).ifPresent(books::add);
+                }
+                return books;
+            }
+            case "findAndRemoveById" -> {
+                Book removed = byId.remove((String) args[0]);
+                if (removed == null) {
+                    return Optional.empty();
+                }
+                byPosition.remove(removed);
+                return Optional.of(copy(removed));
+            }
+            case "findAllBy" -> {
+                return slice(byPosition.keySet(), (Pageable) args[0], (Class<?>) args[1]);
+            }
+            case "findAllAfter" -> {
+                Book position = new Book((String) args[1], null, null, null, null, (LocalDateTime) args[0]);
+                return slice(byPosition.tailMap(position, false).keySet(), (Pageable) args[2], (Class<?>) args[3]);
+            }
+            default -> throw new UnsupportedOperationException(method.toString());
+        }
+    }
+
+    private Book findAndModify(Query query, Update update) {
+        Book book = byId.get(query.getQueryObject().getString("id"));
+        if (book == null) {
+            return null;
+        }
+        Book previous = copy(book);
+        Document set = update.getUpdateObject().get("$set", Document.class);
+        book.setTitle(set.getString("title"));
+        book.setDescription(set.getString("description"));
+        book.setAuthors(set.getList("authors", String.class));
+        book.setPublishedAt((LocalDateTime) set.get("publishedAt"));
+        book.setVersion(book.getVersion() + 1);
+        return previous;
+    }
+
+    private static Slice<?> slice(Collection<Book> books, Pageable pageable, Class<?> type) {
+        List<Object> content = new ArrayList<>(pageable.getPageSize());
+        boolean hasNext = false;
+        for (Book book : books) {
+            if (content.size() == pageable.getPageSize()) {
+                hasNext = true;
+                break;
+            }
+            content.add(type == BookSummary.class ? summary(book) : copy(book));
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    private static BookSummary summary(Book book) {
+        return new BookSummary(book.getId(), book.getTitle(), book.getAuthors(), book.getPublishedAt(), book.getCreatedAt(),
+            book.getVersion());
+    }
+
+    /**
+     * Reads return copies, like documents decoded from Mongo would be.
+     */
+    private static Book copy(Book book) {
+        return new Book(book.getId(), book.getTitle(), book.getDescription(), book.getAuthors(), book.getPublishedAt(),
+            book.getCreatedAt(), book.getVersion());
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        Object invoke(Method method, Object[] args);
+    }
+
+    private static <T> T proxy(Class<T> type, Call call) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> type.getSimpleName() + " in memory";
+                };
+            }
+            return call.invoke(method, args);
+        }));
+    }
+}
@@ -0,0 +1,88 @@
+package edu.mor.libraryindex.benchmark;
+
+import edu.mor.libraryindex.utils.ValidationFailure;
+import edu.mor.libraryindex.utils.ValidationUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ValidationUtils} over a fixed mix of valid and invalid inputs, reported per input, and over adversarial
+ * inputs of growing length that would make a backtracking regex blow up. Divide the adversarial scores by
+ * {@code length} to get the per-character cost, which should stay flat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+    private static final String[] EMAILS = {
+        "user@domain.com", "first.last+tag@mail.example.org", "user@192.168.0.1", "user_name@sub.domain.info",
+        "userdomain.com", "user@domain.c", "user@-domain.com", "user..name@domain.com", "user!name@domain.com",
+        "user@domain.com@", "1234567890123456789012345678901234567890123456789012345678901234@domain.com"
+    };
+    private static final String[] PASSWORDS = {
+        "Passw0rd!", "Str0ng#Secret", "aB3$efgh", "password", "PASSWORD1!", "Pass1!", "Password1", "pa55word!"
+    };
+
+    private final List<String> batch = Arrays.asList(EMAILS);
+
+    /**
+     * Inputs that are valid up to their last characters, so the scanner has to walk all of them before rejecting.
+     */
+    @State(Scope.Benchmark)
+    public static class Adversarial {
+        @Param({"16", "64", "250"})
+        public int length;
+
+        private String email;
+        private String password;
+
+        @Setup
+        public void setUp() {
+            StringBuilder builder = new StringBuilder("user@");
+            while (builder.length() < length - 5) {
+                builder.append("a-a-a-a-a.");
+            }
+            email = builder.append("comm").toString();
+            password = "aA1".repeat(length / 3 + 1).substring(0, length);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(11)
+    public void isValidEmail(Blackhole blackhole) {
+        for (String email : EMAILS) {
+            blackhole.consume(ValidationUtils.isValidEmail(email));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public void isValidPassword(Blackhole blackhole) {
+        for (String password : PASSWORDS) {
+            blackhole.consume(ValidationUtils.isValidPassword(password));
+        }
+    }
+
+    @Benchmark
+    public ValidationFailure adversarialEmail(Adversarial input) {
+        return ValidationUtils.checkEmail(input.email);
+    }
+
+    @Benchmark
+    public ValidationFailure adversarialPassword(Adversarial input) {
+        return ValidationUtils.checkPassword(input.password);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(11)
+    public int validateEmailBatch(Blackhole blackhole) {
+        return ValidationUtils.validateEmails(batch, (index, failure) -> blackhole.consume(failure));
+    }
+}
@@ -0,0 +1,66 @@
+package edu.mor.libraryindex.codec;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Registers the CBOR, Smile and Protobuf representations. They are appended after the JSON converters, so JSON stays
+ * the answer to requests that accept anything and the binary formats are only chosen when asked for.
+ */
+@Configuration
+public class BinaryCodecConfiguration {
+    @Bean
+    public BinaryObjectMappers binaryObjectMappers(ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+        return new BinaryObjectMappers(builders.getObject(), builders.getObject());
+    }
+
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    static class ServletCodecConfiguration implements WebMvcConfigurer {
+        private final BinaryObjectMappers mappers;
+
+        ServletCodecConfiguration(BinaryObjectMappers mappers) {
+            this.mappers = mappers;
+        }
+
+        @Override
+        public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+            // Spring adds its own CBOR and Smile converters when the formats are on the classpath, with mappers that
+            // do not follow the application's Jackson settings
+            converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+                || converter instanceof MappingJackson2SmileHttpMessageConverter);
+            converters.add(new MappingJackson2CborHttpMessageConverter(mappers.cbor()));
+            converters.add(new MappingJackson2SmileHttpMessageConverter(mappers.smile()));
+            converters.add(new BookProtobufHttpMessageConverter());
+        }
+    }
+
+    /**
+     * Smile and Protobuf only: the reactive CBOR encoder cannot write streams, and as a custom codec it would be
+     * consulted before the JSON one.
+     */
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    static class ReactiveCodecConfiguration {
+        @Bean
+        CodecCustomizer binaryCodecCustomizer(BinaryObjectMappers mappers) {
+            return configurer -> {
+                configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(mappers.smile()));
+                configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(mappers.smile()));
+                configurer.customCodecs().register(new BookProtobufEncoder());
+            };
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package edu.mor.libraryindex.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * CBOR and Smile mappers configured like the application's JSON mapper, so that the binary representations carry
+ * the same fields and date formats as the JSON one.
+ */
+public class BinaryObjectMappers {
+    private final ObjectMapper cbor;
+    private final ObjectMapper smile;
+
+    public BinaryObjectMappers(Jackson2ObjectMapperBuilder cborBuilder, Jackson2ObjectMapperBuilder smileBuilder) {
+        this.cbor = cborBuilder.factory(new CBORFactory()).build();
+        this.smile = smileBuilder.factory(new SmileFactory()).build();
+    }
+
+    public ObjectMapper cbor() {
+        return cbor;
+    }
+
+    public ObjectMapper smile() {
+        return smile;
+    }
+}
@@ -0,0 +1,34 @@
+package edu.mor.libraryindex.codec;
+
+import org.springframework.http.MediaType;
+
+import java.util.Map;
+
+/**
+ * Binary representations of books offered next to JSON. Single values and pages use the plain types, the streamed
+ * listing uses the sequence variants, in which every book is a value of its own.
+ */
+public final class BookMediaTypes {
+    public static final String APPLICATION_CBOR_SEQ_VALUE = "application/cbor-seq";
+    public static final MediaType APPLICATION_CBOR_SEQ = MediaType.parseMediaType(APPLICATION_CBOR_SEQ_VALUE);
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+    public static final String APPLICATION_STREAM_SMILE_VALUE = "application/stream+x-jackson-smile";
+    public static final MediaType APPLICATION_STREAM_SMILE = MediaType.parseMediaType(APPLICATION_STREAM_SMILE_VALUE);
+
+    public static final String APPLICATION_PROTOBUF_VALUE = "application/x-protobuf";
+    public static final MediaType APPLICATION_PROTOBUF = MediaType.parseMediaType(APPLICATION_PROTOBUF_VALUE);
+    public static final String APPLICATION_PROTOBUF_DELIMITED_VALUE = "application/x-protobuf;delimited=true";
+    public static final MediaType APPLICATION_PROTOBUF_DELIMITED =
+        new MediaType(APPLICATION_PROTOBUF, Map.of("delimited", "true"));
+
+    /**
+     * Gzip compressed NDJSON of the export download.
+     */
+    public static final String APPLICATION_GZIP_VALUE = "application/gzip";
+    public static final MediaType APPLICATION_GZIP = MediaType.parseMediaType(APPLICATION_GZIP_VALUE);
+
+    private BookMediaTypes() {
+    }
+}
@@ -0,0 +1,218 @@
+package edu.mor.libraryindex.codec;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import edu.mor.libraryindex.dto.BookSummary;
+import edu.mor.libraryindex.dto.CursorPage;
+import edu.mor.libraryindex.model.Book;
+import org.springframework.core.ResolvableType;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Encoder for the messages of {@code proto/book.proto}, written against the protobuf runtime directly so that no
+ * generated classes or copies of the books are needed. Nested messages are length-prefixed, so every book is sized
+ * before it is written; sizing only adds up field lengths and encodes nothing. The tests decode its output with the
+ * classes generated from the schema, which keeps the two from drifting apart.
+ */
+public final class BookProtobuf {
+    private static final int ID = 1;
+    private static final int TITLE = 2;
+    private static final int DESCRIPTION = 3;
+    private static final int AUTHORS = 4;
+    private static final int PUBLISHED_AT = 5;
+    private static final int CREATED_AT = 6;
+    private static final int VERSION = 7;
+
+    private static final int PAGE_ITEMS = 1;
+    private static final int PAGE_NEXT = 2;
+
+    private BookProtobuf() {
+    }
+
+    /**
+     * Whether the value type is a book, a summary, or a list or page of either.
+     */
+    public static boolean canEncode(ResolvableType type) {
+        Class<?> rawClass = type.toClass();
+        if (Book.class.isAssignableFrom(rawClass) || BookSummary.class.isAssignableFrom(rawClass)) {
+            return true;
+        }
+        if (CursorPage.class.isAssignableFrom(rawClass) || Collection.class.isAssignableFrom(rawClass)) {
+            Class<?> itemClass = type.as(CursorPage.class.isAssignableFrom(rawClass) ? CursorPage.class : Collection.class)
+                .getGeneric(0).toClass();
+            return Book.class.isAssignableFrom(itemClass) || BookSummary.class.isAssignableFrom(itemClass);
+        }
+        return false;
+    }
+
+    /**
+     * Encodes a book or summary as its message, and a list or page as a page message.
+     */
+    public static byte[] toByteArray(Object value) {
+        byte[] bytes = new byte[sizeOf(value)];
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        try {
+            write(output, value);
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new IllegalStateException("Message size was computed wrongly", e);
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the value prefixed with its varint length, one element of a delimited stream.
+     */
+    public static void writeDelimited(CodedOutputStream output, Object value) throws IOException {
+        output.writeUInt32NoTag(sizeOf(value));
+        write(output, value);
+    }
+
+    public static int delimitedSize(Object value) {
+        int size = sizeOf(value);
+        return CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+    }
+
+    private static int sizeOf(Object value) {
+        if (value instanceof Book book) {
+            return bookSize(book);
+        }
+        if (value instanceof BookSummary summary) {
+            return summarySize(summary);
+        }
+        if (value instanceof CursorPage<?> page) {
+            return pageSize(page.items(), page.next());
+        }
+        return pageSize((Collection<?>) value, null);
+    }
+
+    private static void write(CodedOutputStream output, Object value) throws IOException {
+        if (value instanceof Book book) {
+            writeBookFields(output, book);
+        } else if (value instanceof BookSummary summary) {
+            writeSummaryFields(output, summary);
+        } else if (value instanceof CursorPage<?> page) {
+            writePage(output, page.items(), page.next());
+        } else {
+            writePage(output, (Collection<?>) value, null);
+        }
+    }
+
+    private static int pageSize(Collection<?> items, String next) {
+        int size = 0;
+        for (Object item : items) {
+            int itemSize = item instanceof Book book ? bookSize(book) : summarySize((BookSummary) item);
+            size += CodedOutputStream.computeTagSize(PAGE_ITEMS) + CodedOutputStream.computeUInt32SizeNoTag(itemSize) + itemSize;
+        }
+        if (next != null) {
+            size += CodedOutputStream.computeStringSize(PAGE_NEXT, next);
+        }
+        return size;
+    }
+
+    private static void writePage(CodedOutputStream output, Collection<?> items, String next) throws IOException {
+        for (Object item : items) {
+            output.writeTag(PAGE_ITEMS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            if (item instanceof Book book) {
+                output.writeUInt32NoTag(bookSize(book));
+                writeBookFields(output, book);
+            } else {
+                BookSummary summary = (BookSummary) item;
+                output.writeUInt32NoTag(summarySize(summary));
+                writeSummaryFields(output, summary);
+            }
+        }
+        if (next != null) {
+            output.writeString(PAGE_NEXT, next);
+        }
+    }
+
+    private static int bookSize(Book book) {
+        return stringSize(ID, book.getId()) + stringSize(TITLE, book.getTitle())
+            + stringSize(DESCRIPTION, book.getDescription()) + authorsSize(book.getAuthors())
+            + dateSize(PUBLISHED_AT, book.getPublishedAt()) + dateSize(CREATED_AT, book.getCreatedAt())
+            + versionSize(book.getVersion());
+    }
+
+    private static void writeBookFields(CodedOutputStream output, Book book) throws IOException {
+        writeString(output, ID, book.getId());
+        writeString(output, TITLE, book.getTitle());
+        writeString(output, DESCRIPTION, book.getDescription());
+        writeAuthors(output, book.getAuthors());
+        writeDate(output, PUBLISHED_AT, book.getPublishedAt());
+        writeDate(output, CREATED_AT, book.getCreatedAt());
+        writeVersion(output, book.getVersion());
+    }
+
+    private static int summarySize(BookSummary summary) {
+        return stringSize(ID, summary.id()) + stringSize(TITLE, summary.title()) + authorsSize(summary.authors())
+            + dateSize(PUBLISHED_AT, summary.publishedAt()) + dateSize(CREATED_AT, summary.createdAt())
+            + versionSize(summary.version());
+    }
+
+    private static void writeSummaryFields(CodedOutputStream output, BookSummary summary) throws IOException {
+        writeString(output, ID, summary.id());
+        writeString(output, TITLE, summary.title());
+        writeAuthors(output, summary.authors());
+        writeDate(output, PUBLISHED_AT, summary.publishedAt());
+        writeDate(output, CREATED_AT, summary.createdAt());
+        writeVersion(output, summary.version());
+    }
+
+    private static int stringSize(int field, String value) {
+        return value == null ? 0 : CodedOutputStream.computeStringSize(field, value);
+    }
+
+    private static void writeString(CodedOutputStream output, int field, String value) throws IOException {
+        if (value != null) {
+            output.writeString(field, value);
+        }
+    }
+
+    private static int authorsSize(List<String> authors) {
+        int size = 0;
+        if (authors != null) {
+            for (int i = 0, count = authors.size(); i < count; i++) {
+                size += stringSize(AUTHORS, authors.get(i));
+            }
+        }
+        return size;
+    }
+
+    private static void writeAuthors(CodedOutputStream output, List<String> authors) throws IOException {
+        if (authors != null) {
+            for (int i = 0, count = authors.size(); i < count; i++) {
+                writeString(output, AUTHORS, authors.get(i));
+            }
+        }
+    }
+
+    private static int dateSize(int field, LocalDateTime value) {
+        return value == null ? 0 : CodedOutputStream.computeInt64Size(field, toEpochMilli(value));
+    }
+
+    private static void writeDate(CodedOutputStream output, int field, LocalDateTime value) throws IOException {
+        if (value != null) {
+            output.writeInt64(field, toEpochMilli(value));
+        }
+    }
+
+    private static int versionSize(long version) {
+        return version == 0 ? 0 : CodedOutputStream.computeInt64Size(VERSION, version);
+    }
+
+    private static void writeVersion(CodedOutputStream output, long version) throws IOException {
+        if (version != 0) {
+            output.writeInt64(VERSION, version);
+        }
+    }
+
+    private static long toEpochMilli(LocalDateTime value) {
+        return value.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -0,0 +1,79 @@
+package edu.mor.libraryindex.codec;
+
+import com.google.protobuf.CodedOutputStream;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractEncoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WebFlux counterpart of {@link BookProtobufHttpMessageConverter}. A single value is written as its message. A
+ * {@code Flux} of books or summaries is written as a delimited stream flushed item by item when
+ * {@code application/x-protobuf;delimited=true} was negotiated, and otherwise collected into one page message like the
+ * list the servlet controller returns.
+ */
+public class BookProtobufEncoder extends AbstractEncoder<Object> implements HttpMessageEncoder<Object> {
+    public BookProtobufEncoder() {
+        super(BookMediaTypes.APPLICATION_PROTOBUF, BookMediaTypes.APPLICATION_PROTOBUF_DELIMITED);
+    }
+
+    /**
+     * Unlike the other encoders, only when Protobuf was negotiated: custom codecs are consulted before the JSON one,
+     * so a request without a content type would otherwise be written as Protobuf.
+     */
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return mimeType != null && super.canEncode(elementType, mimeType) && BookProtobuf.canEncode(elementType);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                   MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono<?> mono) {
+            return mono.map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+        }
+        if (isDelimited(mimeType)) {
+            return Flux.from(inputStream).map(value -> encodeDelimited(value, bufferFactory));
+        }
+        return Flux.from(inputStream).collectList()
+            .map(values -> encodeValue(values, bufferFactory, elementType, mimeType, hints))
+            .flux();
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  MimeType mimeType, Map<String, Object> hints) {
+        return bufferFactory.wrap(BookProtobuf.toByteArray(value));
+    }
+
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return List.of(BookMediaTypes.APPLICATION_PROTOBUF_DELIMITED);
+    }
+
+    private static boolean isDelimited(MimeType mimeType) {
+        return "true".equals(mimeType.getParameter("delimited"));
+    }
+
+    private static DataBuffer encodeDelimited(Object value, DataBufferFactory bufferFactory) {
+        byte[] bytes = new byte[BookProtobuf.delimitedSize(value)];
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        try {
+            BookProtobuf.writeDelimited(output, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bufferFactory.wrap(bytes);
+    }
+}
@@ -0,0 +1,73 @@
+package edu.mor.libraryindex.codec;
+
+import edu.mor.libraryindex.dto.CursorPage;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes books, summaries and lists or pages of them as {@code application/x-protobuf}. Write only: request bodies
+ * stay JSON.
+ */
+public class BookProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+    public BookProtobufHttpMessageConverter() {
+        super(BookMediaTypes.APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return BookProtobuf.canEncode(ResolvableType.forClass(clazz));
+    }
+
+    /**
+     * The media types are looked up by the raw class of the value, which for a list or page says nothing about its
+     * items; the generic {@link #canWrite(Type, Class, MediaType)} has already checked them.
+     */
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return CursorPage.class.isAssignableFrom(clazz) || Collection.class.isAssignableFrom(clazz)
+            ? getSupportedMediaTypes()
+            : super.getSupportedMediaTypes(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        ResolvableType valueType = type != null ? ResolvableType.forType(type) : ResolvableType.forClass(clazz);
+        return canWrite(mediaType) && BookProtobuf.canEncode(valueType);
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        byte[] bytes = BookProtobuf.toByteArray(value);
+        outputMessage.getHeaders().setContentLength(bytes.length);
+        outputMessage.getBody().write(bytes);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+}
@@ -0,0 +1,89 @@
+package edu.mor.libraryindex.concurrent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that grows while the short-term average latency keeps near the long-term one, and shrinks as it
+ * rises above it or by {@code BACKOFF} when a call is reported as overloaded.
+ */
+public final class AdaptiveConcurrencyLimit {
+    static final double BACKOFF = 0.9;
+    static final double SHORT_WEIGHT = 0.1;
+    static final double LONG_WEIGHT = 0.01;
+    static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private double limit;
+    private double shortNanos;
+    private double longNanos;
+    private volatile int admitted;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max, got " + minLimit + ", "
+                + initialLimit + ", " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.limit = initialLimit;
+        this.admitted = initialLimit;
+    }
+
+    /**
+     * Admits a call if fewer than the limit are in flight. An admitted call must be released.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= admitted) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a call whose latency says nothing about the load, such as a long running stream.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Releases a call and adjusts the limit to its latency.
+     */
+    public void release(long latencyNanos, boolean overloaded) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (longNanos == 0) {
+                shortNanos = latencyNanos;
+                longNanos = latencyNanos;
+            }
+            shortNanos += SHORT_WEIGHT * (latencyNanos - shortNanos);
+            longNanos += LONG_WEIGHT * (latencyNanos - longNanos);
+            if (overloaded) {
+                limit = Math.max(minLimit, limit * BACKOFF);
+            } else if (inFlightBefore * 2 >= limit) {
+                double gradient = Math.max(MIN_GRADIENT, Math.min(1, tolerance * longNanos / shortNanos));
+                double target = limit * gradient + Math.sqrt(limit);
+                limit = Math.max(minLimit, Math.min(maxLimit, limit + SMOOTHING * (target - limit)));
+            }
+            admitted = (int) limit;
+        }
+    }
+
+    public int getLimit() {
+        return admitted;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,76 @@
+package edu.mor.libraryindex.concurrent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Sheds load on the book API once the adaptive limits are reached, with a servlet filter or, under the reactive
+ * profile, a web filter configured by the same properties.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library-index.concurrency-limit.enabled", havingValue = "true")
+public class ConcurrencyLimitConfiguration {
+    private final int readInitial;
+    private final int readMin;
+    private final int readMax;
+    private final int writeInitial;
+    private final int writeMin;
+    private final int writeMax;
+    private final double tolerance;
+    private final Duration retryAfter;
+    private final Set<String> excludedPaths;
+
+    public ConcurrencyLimitConfiguration(
+        @Value("${library-index.concurrency-limit.read.initial:100}") int readInitial,
+        @Value("${library-index.concurrency-limit.read.min:10}") int readMin,
+        @Value("${library-index.concurrency-limit.read.max:1000}") int readMax,
+        @Value("${library-index.concurrency-limit.write.initial:20}") int writeInitial,
+        @Value("${library-index.concurrency-limit.write.min:5}") int writeMin,
+        @Value("${library-index.concurrency-limit.write.max:200}") int writeMax,
+        @Value("${library-index.concurrency-limit.tolerance:2.0}") double tolerance,
+        @Value("${library-index.concurrency-limit.retry-after:1s}") Duration retryAfter,
+        @Value("${library-index.concurrency-limit.excluded-paths:/api/v1/books/import,/api/v1/books/export}") Set<String> excludedPaths) {
+        this.readInitial = readInitial;
+        this.readMin = readMin;
+        this.readMax = readMax;
+        this.writeInitial = writeInitial;
+        this.writeMin = writeMin;
+        this.writeMax = writeMax;
+        this.tolerance = tolerance;
+        this.retryAfter = retryAfter;
+        this.excludedPaths = excludedPaths;
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(MeterRegistry registry) {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(readLimit(), writeLimit(), registry, retryAfter, excludedPaths);
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/v1/books", "/api/v1/books/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 100);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public ReactiveConcurrencyLimitFilter reactiveConcurrencyLimitFilter(MeterRegistry registry) {
+        return new ReactiveConcurrencyLimitFilter(readLimit(), writeLimit(), registry, retryAfter, excludedPaths);
+    }
+
+    private AdaptiveConcurrencyLimit readLimit() {
+        return new AdaptiveConcurrencyLimit(readInitial, readMin, readMax, tolerance);
+    }
+
+    private AdaptiveConcurrencyLimit writeLimit() {
+        return new AdaptiveConcurrencyLimit(writeInitial, writeMin, writeMax, tolerance);
+    }
+}
@@ -0,0 +1,111 @@
+package edu.mor.libraryindex.concurrent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Admits book API requests through separate {@link AdaptiveConcurrencyLimit}s for reads and writes, and answers 503
+ * with {@code Retry-After} when the limit is reached. Streamed responses, which go async, are released without a
+ * latency sample. The excluded paths bypass the limits.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    static final String REJECTED_MESSAGE = ConcurrencyLimitGroup.REJECTED_MESSAGE;
+
+    private final ConcurrencyLimitGroup read;
+    private final ConcurrencyLimitGroup write;
+    private final String retryAfter;
+    private final Set<String> excludedPaths;
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimit readLimit, AdaptiveConcurrencyLimit writeLimit, MeterRegistry registry,
+                                  Duration retryAfter, Set<String> excludedPaths) {
+        this.read = new ConcurrencyLimitGroup("read", readLimit, registry);
+        this.write = new ConcurrencyLimitGroup("write", writeLimit, registry);
+        this.retryAfter = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+        this.excludedPaths = excludedPaths;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return excludedPaths.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        ConcurrencyLimitGroup group = isRead(request) ? read : write;
+        if (!group.limit.tryAcquire()) {
+            group.rejections.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write(REJECTED_MESSAGE);
+            return;
+        }
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            chain.doFilter(request, response);
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(group.limit));
+            } else {
+                group.limit.release(System.nanoTime() - start, ConcurrencyLimitGroup.isOverloaded(response.getStatus())
+                    || failure != null && ConcurrencyLimitGroup.isTimeout(failure));
+            }
+        }
+    }
+
+    static boolean isRead(HttpServletRequest request) {
+        return ConcurrencyLimitGroup.isRead(request.getMethod());
+    }
+
+    /**
+     * Releases the limit once, whichever of complete, error or timeout comes first.
+     */
+    private static final class ReleasingListener implements AsyncListener {
+        private final AdaptiveConcurrencyLimit limit;
+        private boolean released;
+
+        private ReleasingListener(AdaptiveConcurrencyLimit limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public synchronized void onComplete(AsyncEvent event) {
+            if (!released) {
+                released = true;
+                limit.release();
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            onComplete(event);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            onComplete(event);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
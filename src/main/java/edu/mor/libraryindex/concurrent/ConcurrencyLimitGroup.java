@@ -0,0 +1,70 @@
+package edu.mor.libraryindex.concurrent;
+
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.MongoSocketReadTimeoutException;
+import com.mongodb.MongoTimeoutException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * One limit of the concurrency limit filters with its meters, shared by the servlet and the reactive filter so both
+ * stacks publish the same {@code library.concurrency.*} meters.
+ */
+final class ConcurrencyLimitGroup {
+    static final String REJECTED_MESSAGE = "Too many concurrent requests, retry later!";
+
+    final AdaptiveConcurrencyLimit limit;
+    final Counter rejections;
+
+    ConcurrencyLimitGroup(String name, AdaptiveConcurrencyLimit limit, MeterRegistry registry) {
+        this.limit = limit;
+        Gauge.builder("library.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+            .description("Requests admitted at once")
+            .tag("group", name)
+            .register(registry);
+        Gauge.builder("library.concurrency.in-flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+            .description("Requests being served")
+            .tag("group", name)
+            .register(registry);
+        this.rejections = Counter.builder("library.concurrency.rejections")
+            .description("Requests answered 503 because the limit was reached")
+            .tag("group", name)
+            .register(registry);
+    }
+
+    static boolean isRead(String method) {
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method);
+    }
+
+    static boolean isOverloaded(int status) {
+        return status == HttpStatus.SERVICE_UNAVAILABLE.value() || status == HttpStatus.GATEWAY_TIMEOUT.value();
+    }
+
+    static boolean isStreaming(MediaType contentType) {
+        return contentType != null && (MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+            || MediaType.TEXT_EVENT_STREAM.isCompatibleWith(contentType));
+    }
+
+    /**
+     * Whether a request failed because something it waited for timed out, which says the backend is overloaded. Any
+     * other failure, such as a bug or a bad request, says nothing about the load and is sampled like a success.
+     */
+    static boolean isTimeout(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException || cause instanceof SocketTimeoutException || cause instanceof QueryTimeoutException
+                || cause instanceof MongoTimeoutException || cause instanceof MongoSocketReadTimeoutException
+                || cause instanceof MongoExecutionTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,158 @@
+package edu.mor.libraryindex.concurrent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Group commit: items submitted by concurrent callers are written together by one flusher thread, and every caller
+ * returns once the batch holding its item is written, exactly as if it had written the item itself. While a batch is
+ * being written the next one fills up, and after the first item of a batch the flusher waits at most
+ * {@code maxDelay} for more, so a lone item costs at most that delay and a burst costs one write per
+ * {@code maxBatchSize} items. Callers block once {@code QUEUED_BATCHES} batches are waiting.
+ */
+public final class GroupCommitBuffer<T> implements AutoCloseable {
+    static final int QUEUED_BATCHES = 8;
+    private static final long CLOSE_CHECK_MILLIS = 100;
+
+    /**
+     * Writes a batch. Items that could not be written are returned with their failure by position in the batch; an
+     * exception thrown fails the whole batch.
+     */
+    @FunctionalInterface
+    public interface Flusher<T> {
+        Map<Integer, ? extends RuntimeException> flush(List<T> batch);
+    }
+
+    private record Pending<T>(T item, CompletableFuture<Void> written) {
+    }
+
+    private final String name;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final Flusher<T> flusher;
+    private final BlockingQueue<Pending<T>> queue;
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private final Thread thread;
+    private volatile boolean closed;
+
+    public GroupCommitBuffer(String name, int maxBatchSize, Duration maxDelay, Flusher<T> flusher) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive, got " + maxBatchSize);
+        }
+        this.name = name;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.flusher = flusher;
+        this.queue = new LinkedBlockingQueue<>(maxBatchSize * QUEUED_BATCHES);
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Blocks until the item is written, and throws what its write failed with.
+     *
+     * @throws IllegalStateException once the buffer is closed
+     */
+    public void submit(T item) {
+        Pending<T> pending = new Pending<>(item, new CompletableFuture<>());
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException(name + " is closed");
+            }
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for room in " + name, e);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        try {
+            // The item may already be part of a write, so the wait cannot be given up on interrupt
+            pending.written().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the items already submitted and stops the flusher.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        thread.join();
+    }
+
+    private void run() {
+        List<Pending<T>> batch = new ArrayList<>(maxBatchSize);
+        while (true) {
+            try {
+                Pending<T> first = queue.poll(CLOSE_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed && queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending<T> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // Nothing interrupts the flusher but a shutdown of the JVM, the batch is written before leaving
+                closed = true;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending<T>> batch) {
+        List<T> items = new ArrayList<>(batch.size());
+        batch.forEach(pending -> items.add(pending.item()));
+        Map<Integer, ? extends RuntimeException> failures;
+        try {
+            failures = flusher.flush(items);
+        } catch (RuntimeException | Error e) {
+            batch.forEach(pending -> pending.written().completeExceptionally(e));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            RuntimeException failure = failures.get(i);
+            if (failure == null) {
+                batch.get(i).written().complete(null);
+            } else {
+                batch.get(i).written().completeExceptionally(failure);
+            }
+        }
+    }
+}
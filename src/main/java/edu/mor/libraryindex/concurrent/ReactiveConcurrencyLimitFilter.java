@@ -0,0 +1,77 @@
+package edu.mor.libraryindex.concurrent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * WebFlux variant of {@link ConcurrencyLimitFilter} with the same limits. Streamed responses and requests cancelled by
+ * their client are released without a latency sample.
+ */
+public class ReactiveConcurrencyLimitFilter implements WebFilter, Ordered {
+    static final String BOOKS_PATH = "/api/v1/books";
+
+    private final ConcurrencyLimitGroup read;
+    private final ConcurrencyLimitGroup write;
+    private final String retryAfter;
+    private final Set<String> excludedPaths;
+
+    public ReactiveConcurrencyLimitFilter(AdaptiveConcurrencyLimit readLimit, AdaptiveConcurrencyLimit writeLimit, MeterRegistry registry,
+                                          Duration retryAfter, Set<String> excludedPaths) {
+        this.read = new ConcurrencyLimitGroup("read", readLimit, registry);
+        this.write = new ConcurrencyLimitGroup("write", writeLimit, registry);
+        this.retryAfter = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+        this.excludedPaths = excludedPaths;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 100;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().pathWithinApplication().value();
+        if (!path.equals(BOOKS_PATH) && !path.startsWith(BOOKS_PATH + "/") || excludedPaths.contains(path)) {
+            return chain.filter(exchange);
+        }
+        ConcurrencyLimitGroup group = ConcurrencyLimitGroup.isRead(request.getMethod().name()) ? read : write;
+        ServerHttpResponse response = exchange.getResponse();
+        if (!group.limit.tryAcquire()) {
+            group.rejections.increment();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfter);
+            response.getHeaders().setContentType(MediaType.TEXT_PLAIN);
+            return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(ConcurrencyLimitGroup.REJECTED_MESSAGE.getBytes(StandardCharsets.UTF_8))));
+        }
+        long start = System.nanoTime();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        return chain.filter(exchange)
+            .doOnError(failure::set)
+            .doFinally(signal -> {
+                if (signal == SignalType.CANCEL || ConcurrencyLimitGroup.isStreaming(response.getHeaders().getContentType())) {
+                    group.limit.release();
+                    return;
+                }
+                HttpStatusCode status = response.getStatusCode();
+                group.limit.release(System.nanoTime() - start, status != null && ConcurrencyLimitGroup.isOverloaded(status.value())
+                    || failure.get() != null && ConcurrencyLimitGroup.isTimeout(failure.get()));
+            });
+    }
+}
@@ -0,0 +1,88 @@
+package edu.mor.libraryindex.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the load on its own thread and callers arriving
+ * while it is in flight wait for it and get its result, or the exception it failed with, instead of running their own.
+ * Nothing is kept once a load completes, so the next caller loads again; results are meant to be cached by the
+ * {@code onLoaded} callback of the load, which is skipped when the key was forgotten while the load was in flight.
+ */
+public final class SingleFlight<K, V> {
+    private final ConcurrentMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+
+    private static final class Flight<V> {
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private boolean forgotten;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        return execute(key, loader, value -> {
+        });
+    }
+
+    /**
+     * Runs or joins the load of the key. The caller that ran the load passes its result to {@code onLoaded} before
+     * returning, unless {@link #forget} was called for the key in the meantime.
+     */
+    public V execute(K key, Supplier<V> loader, Consumer<V> onLoaded) {
+        Flight<V> flight = new Flight<>();
+        Flight<V> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            return join(running.result);
+        }
+        try {
+            V value = loader.get();
+            synchronized (flight) {
+                if (!flight.forgotten) {
+                    onLoaded.accept(value);
+                }
+            }
+            flight.result.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Marks the load of the key in flight, if any, as predating a write that just happened: its result is still
+     * returned to the callers waiting for it but no longer passed to {@code onLoaded}, and callers arriving from now on
+     * start a new load instead of joining it. Once this returns, an {@code onLoaded} of the old load has either run
+     * already or never will, so a cache write that follows the write cannot be overwritten by it.
+     */
+    public void forget(K key) {
+        Flight<V> flight = inFlight.remove(key);
+        if (flight != null) {
+            synchronized (flight) {
+                flight.forgotten = true;
+            }
+        }
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    private static <V> V join(CompletableFuture<V> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package edu.mor.libraryindex.concurrent;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+/**
+ * Opt-in mode that serves every request on its own virtual thread. Repository calls run on the request thread, so a
+ * request waiting on Mongo parks its virtual thread instead of holding one of Tomcat's platform workers, and
+ * throughput is no longer capped by {@code server.tomcat.threads.max}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library-index.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * Replaces the pooled executor used for async MVC work such as the NDJSON streaming responses.
+     */
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(VirtualThreads.newVirtualThreadPerTaskExecutor());
+    }
+}
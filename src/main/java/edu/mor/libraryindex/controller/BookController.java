@@ -1,34 +1,241 @@
 package edu.mor.libraryindex.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.protobuf.CodedOutputStream;
+import edu.mor.libraryindex.codec.BinaryObjectMappers;
+import edu.mor.libraryindex.codec.BookMediaTypes;
+import edu.mor.libraryindex.codec.BookProtobuf;
+import edu.mor.libraryindex.dto.BookBulkItemResult;
 import edu.mor.libraryindex.dto.BookCreateDto;
+import edu.mor.libraryindex.dto.BookSearchResult;
+import edu.mor.libraryindex.dto.BookSummary;
+import edu.mor.libraryindex.dto.CatalogImportReport;
+import edu.mor.libraryindex.dto.CursorPage;
+import edu.mor.libraryindex.dto.HistogramCount;
+import edu.mor.libraryindex.importer.CatalogFormat;
+import edu.mor.libraryindex.model.AuthorFacet;
 import edu.mor.libraryindex.model.Book;
+import edu.mor.libraryindex.service.AuthorFacetService;
+import edu.mor.libraryindex.service.BookBulkService;
+import edu.mor.libraryindex.service.BookExportService;
+import edu.mor.libraryindex.service.BookImportService;
+import edu.mor.libraryindex.service.BookSearchService;
 import edu.mor.libraryindex.service.BookService;
+import edu.mor.libraryindex.service.DateHistogramService;
+import edu.mor.libraryindex.utils.ETags;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
+/**
+ * Reads carry a weak ETag derived from the stored versions. Spring answers a matching {@code If-None-Match} with
+ * 304 before the body is written, and a single book is checked against its version alone before it is loaded.
+ * Besides JSON, responses are available as CBOR, Smile and Protobuf through {@code Accept}, see {@code BookMediaTypes}.
+ */
 @RestController
 @RequestMapping("/api/v1/books")
+@Profile("!reactive")
 public class BookController {
+    private static final String DEFAULT_PAGE_SIZE = "20";
+
     private final BookService bookService;
+    private final BookBulkService bookBulkService;
+    private final BookImportService bookImportService;
+    private final BookExportService bookExportService;
+    private final BookSearchService bookSearchService;
+    private final AuthorFacetService authorFacetService;
+    private final DateHistogramService dateHistogramService;
+    private final ObjectMapper objectMapper;
+    private final BinaryObjectMappers binaryObjectMappers;
 
     @Autowired
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, BookBulkService bookBulkService, BookImportService bookImportService,
+                          BookExportService bookExportService, BookSearchService bookSearchService, AuthorFacetService authorFacetService,
+                          DateHistogramService dateHistogramService, ObjectMapper objectMapper, BinaryObjectMappers binaryObjectMappers) {
         this.bookService = bookService;
+        this.bookBulkService = bookBulkService;
+        this.bookImportService = bookImportService;
+        this.bookExportService = bookExportService;
+        this.bookSearchService = bookSearchService;
+        this.authorFacetService = authorFacetService;
+        this.dateHistogramService = dateHistogramService;
+        this.objectMapper = objectMapper;
+        this.binaryObjectMappers = binaryObjectMappers;
     }
 
     @GetMapping("/")
-    public List<Book> getAll() {
-        return this.bookService.getAll();
+    public ResponseEntity<List<Book>> getAll() {
+        return tagged(this.bookService.getAll(), Book::getId, Book::getVersion);
+    }
+
+    @GetMapping(value = "/", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return stream(objectMapper, MediaType.APPLICATION_NDJSON);
+    }
+
+    @GetMapping(value = "/", produces = BookMediaTypes.APPLICATION_CBOR_SEQ_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllAsCbor() {
+        return stream(binaryObjectMappers.cbor(), BookMediaTypes.APPLICATION_CBOR_SEQ);
+    }
+
+    @GetMapping(value = "/", produces = BookMediaTypes.APPLICATION_STREAM_SMILE_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllAsSmile() {
+        return stream(binaryObjectMappers.smile(), BookMediaTypes.APPLICATION_STREAM_SMILE);
+    }
+
+    /**
+     * Also answers a plain {@code application/x-protobuf}, like the reactive controller whose listing is a stream.
+     */
+    @GetMapping(value = "/", produces = BookMediaTypes.APPLICATION_PROTOBUF_DELIMITED_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllAsProtobuf() {
+        StreamingResponseBody body = outputStream -> {
+            CodedOutputStream output = CodedOutputStream.newInstance(outputStream);
+            bookService.streamAll(book -> {
+                try {
+                    BookProtobuf.writeDelimited(output, book);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            output.flush();
+        };
+        return ResponseEntity.ok().contentType(BookMediaTypes.APPLICATION_PROTOBUF_DELIMITED).body(body);
+    }
+
+    /**
+     * The books as one gzip compressed NDJSON download, see {@code BookExportService}.
+     */
+    @GetMapping(value = "/export", produces = BookMediaTypes.APPLICATION_GZIP_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdBefore,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime publishedFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime publishedTo) {
+        StreamingResponseBody body = outputStream -> bookExportService.export(outputStream, createdBefore, publishedFrom, publishedTo);
+        return ResponseEntity.ok()
+            .contentType(BookMediaTypes.APPLICATION_GZIP)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"books" + BookExportService.FILE_SUFFIX + "\"")
+            .body(body);
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Book>> getPage(@RequestParam(required = false) String after,
+                                                    @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        return tagged(this.bookService.getPage(after, size), Book::getId, Book::getVersion);
+    }
+
+    @GetMapping("/by-author")
+    public ResponseEntity<CursorPage<Book>> findByAuthor(@RequestParam String author,
+                                                         @RequestParam(required = false) String after,
+                                                         @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        return tagged(this.bookService.findByAuthors(author, after, size), Book::getId, Book::getVersion);
+    }
+
+    @GetMapping("/published-between")
+    public ResponseEntity<CursorPage<Book>> findByPublishedBetween(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                   @RequestParam(required = false) String after,
+                                                                   @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        return tagged(this.bookService.findByPublishedBetween(from, to, after, size), Book::getId, Book::getVersion);
+    }
+
+    @GetMapping("/created-before")
+    public ResponseEntity<CursorPage<Book>> findByCreatedBefore(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime date,
+                                                                @RequestParam(required = false) String after,
+                                                                @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        return tagged(this.bookService.findByCreatedBefore(date, after, size), Book::getId, Book::getVersion);
+    }
+
+    @GetMapping("/summaries")
+    public ResponseEntity<CursorPage<BookSummary>> getSummaryPage(@RequestParam(required = false) String after,
+                                                                  @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        return tagged(this.bookService.getSummaryPage(after, size), BookSummary::id, BookSummary::version);
+    }
+
+    @GetMapping("/summaries/by-author")
+    public ResponseEntity<CursorPage<BookSummary>> findSummariesByAuthor(@RequestParam String author,
+                                                                         @RequestParam(required = false) String after,
+                                                                         @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        return tagged(this.bookService.findSummariesByAuthors(author, after, size), BookSummary::id, BookSummary::version);
+    }
+
+    @GetMapping("/summaries/published-between")
+    public ResponseEntity<CursorPage<BookSummary>> findSummariesByPublishedBetween(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                                   @RequestParam(required = false) String after,
+                                                                                   @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        return tagged(this.bookService.findSummariesByPublishedBetween(from, to, after, size), BookSummary::id, BookSummary::version);
+    }
+
+    @GetMapping("/summaries/by-title")
+    public ResponseEntity<List<BookSummary>> findSummariesByTitle(@RequestParam String title) {
+        return tagged(this.bookService.findSummariesByTitle(title), BookSummary::id, BookSummary::version);
+    }
+
+    @GetMapping("/search")
+    public List<BookSearchResult> search(@RequestParam("q") String query,
+                                         @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        return this.bookSearchService.search(query, limit);
+    }
+
+    /**
+     * Books per author, either for the given authors or for the {@code limit} authors with the most books.
+     */
+    @GetMapping("/facets/authors")
+    public List<AuthorFacet> getAuthorFacets(@RequestParam(required = false) List<String> author,
+                                             @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        return author == null ? this.authorFacetService.findTop(limit) : this.authorFacetService.findByAuthors(author);
+    }
+
+    @PostMapping("/facets/authors/rebuild")
+    public ResponseEntity<Void> rebuildAuthorFacets() {
+        authorFacetService.rebuild();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Books per year, month or day of {@code publishedAt} or {@code createdAt} between {@code from} and {@code to}.
+     * Buckets without books are left out.
+     */
+    @GetMapping("/histogram")
+    public List<HistogramCount> getHistogram(@RequestParam(defaultValue = "publishedAt") String field,
+                                             @RequestParam(defaultValue = "month") String granularity,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return this.dateHistogramService.histogram(field, granularity, from, to);
+    }
+
+    @PostMapping("/histogram/rebuild")
+    public ResponseEntity<Void> rebuildHistogram() {
+        dateHistogramService.rebuild();
+        return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Book> getById(@PathVariable String id) {
+    public ResponseEntity<Book> getById(@PathVariable String id, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+            && request.checkNotModified(ETags.ofVersion(bookService.findVersionById(id)))) {
+            return null;
+        }
         Book book = bookService.findById(id);
-        return ResponseEntity.ok(book);
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(ETags.ofVersion(book.getVersion())).body(book);
     }
 
     @PostMapping("/")
@@ -37,10 +244,31 @@ public class BookController {
         return ResponseEntity.status(HttpStatus.CREATED).body(savedBook);
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<List<BookBulkItemResult>> createAll(@RequestBody List<BookCreateDto> books) {
+        List<BookBulkItemResult> results = bookBulkService.createAll(books);
+        boolean allCreated = results.stream().allMatch(result -> result.status() == BookBulkItemResult.Status.CREATED);
+        return ResponseEntity.status(allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(results);
+    }
+
+    /**
+     * Streams the request body into the library, see {@code BookImportService}. An aborted import answers 500 with
+     * the report, whose checkpoint is the offset to send the file again with.
+     */
+    @PostMapping(value = "/import", consumes = CatalogFormat.CSV_VALUE)
+    public ResponseEntity<CatalogImportReport> importCsv(InputStream body, @RequestParam(defaultValue = "0") long offset) {
+        return imported(bookImportService.importCatalog(body, CatalogFormat.CSV, offset));
+    }
+
+    @PostMapping(value = "/import", consumes = CatalogFormat.NDJSON_VALUE)
+    public ResponseEntity<CatalogImportReport> importNdjson(InputStream body, @RequestParam(defaultValue = "0") long offset) {
+        return imported(bookImportService.importCatalog(body, CatalogFormat.NDJSON, offset));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Book> update(@PathVariable String id, @RequestBody BookCreateDto book) {
         Book updatedBook = bookService.update(id, book);
-        return ResponseEntity.ok(updatedBook);
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(ETags.ofVersion(updatedBook.getVersion())).body(updatedBook);
     }
 
     @DeleteMapping("/{id}")
@@ -48,4 +276,46 @@ public class BookController {
         bookService.deleteById(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Writes every book as a root value of one generator. Binary formats delimit their values themselves, JSON gets a
+     * line break after each.
+     */
+    private ResponseEntity<StreamingResponseBody> stream(ObjectMapper mapper, MediaType mediaType) {
+        ObjectWriter writer = mapper.writerFor(Book.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        boolean lineDelimited = MediaType.APPLICATION_NDJSON.equals(mediaType);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = mapper.createGenerator(outputStream)) {
+                if (lineDelimited) {
+                    generator.setRootValueSeparator(null);
+                }
+                bookService.streamAll(book -> {
+                    try {
+                        writer.writeValue(generator, book);
+                        if (lineDelimited) {
+                            generator.writeRaw('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(mediaType).body(body);
+    }
+
+    static ResponseEntity<CatalogImportReport> imported(CatalogImportReport report) {
+        if (!report.complete()) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(report);
+        }
+        return ResponseEntity.status(report.failed() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(report);
+    }
+
+    private static <T> ResponseEntity<CursorPage<T>> tagged(CursorPage<T> page, Function<T, String> id, ToLongFunction<T> version) {
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(ETags.ofItems(page.items(), id, version, page.next())).body(page);
+    }
+
+    private static <T> ResponseEntity<List<T>> tagged(List<T> items, Function<T, String> id, ToLongFunction<T> version) {
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(ETags.ofItems(items, id, version, null)).body(items);
+    }
 }
@@ -0,0 +1,224 @@
+package edu.mor.libraryindex.controller;
+
+import edu.mor.libraryindex.codec.BookMediaTypes;
+import edu.mor.libraryindex.dto.BookBulkItemResult;
+import edu.mor.libraryindex.dto.BookCreateDto;
+import edu.mor.libraryindex.dto.BookSearchResult;
+import edu.mor.libraryindex.dto.BookSummary;
+import edu.mor.libraryindex.dto.CatalogImportReport;
+import edu.mor.libraryindex.dto.CursorPage;
+import edu.mor.libraryindex.dto.HistogramCount;
+import edu.mor.libraryindex.importer.CatalogFormat;
+import edu.mor.libraryindex.model.AuthorFacet;
+import edu.mor.libraryindex.model.Book;
+import edu.mor.libraryindex.service.BookExportService;
+import edu.mor.libraryindex.service.BookImportService;
+import edu.mor.libraryindex.service.ReactiveBookService;
+import edu.mor.libraryindex.utils.BlockingStreams;
+import edu.mor.libraryindex.utils.ETags;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * WebFlux variant of {@link BookController} serving the same contract under the reactive profile. The listing is
+ * written straight from the Mongo cursor, so with {@code application/x-ndjson} a slow client slows down the cursor
+ * instead of buffering the collection. Pages and single books carry the same version-based ETags as the servlet
+ * controller; the streamed listings do not, since their content is only known once it has been written.
+ * Endpoints returning books list their representations in {@code produces}: the Protobuf encoder is a custom codec
+ * consulted before JSON, so it only encodes when Protobuf was negotiated and is not producible otherwise.
+ * The catalog import and the export share the blocking services of the servlet controller, bridged to the request and
+ * response bodies by {@link BlockingStreams} so they never block the event loop.
+ */
+@RestController
+@RequestMapping("/api/v1/books")
+@Profile("reactive")
+public class ReactiveBookController {
+    private static final String DEFAULT_PAGE_SIZE = "20";
+
+    private final ReactiveBookService bookService;
+    private final BookImportService bookImportService;
+    private final BookExportService bookExportService;
+
+    @Autowired
+    public ReactiveBookController(ReactiveBookService bookService, BookImportService bookImportService, BookExportService bookExportService) {
+        this.bookService = bookService;
+        this.bookImportService = bookImportService;
+        this.bookExportService = bookExportService;
+    }
+
+    @GetMapping(value = "/", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+        BookMediaTypes.APPLICATION_SMILE_VALUE, BookMediaTypes.APPLICATION_STREAM_SMILE_VALUE,
+        BookMediaTypes.APPLICATION_PROTOBUF_DELIMITED_VALUE})
+    public Flux<Book> getAll() {
+        return this.bookService.streamAll();
+    }
+
+    /**
+     * The books as one gzip compressed NDJSON download, see {@code BookExportService}.
+     */
+    @GetMapping(value = "/export", produces = BookMediaTypes.APPLICATION_GZIP_VALUE)
+    public ResponseEntity<Flux<DataBuffer>> export(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdBefore,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime publishedFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime publishedTo) {
+        Flux<DataBuffer> body = BlockingStreams.write(outputStream -> bookExportService.export(outputStream, createdBefore, publishedFrom, publishedTo));
+        return ResponseEntity.ok()
+            .contentType(BookMediaTypes.APPLICATION_GZIP)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"books" + BookExportService.FILE_SUFFIX + "\"")
+            .body(body);
+    }
+
+    @GetMapping(value = "/page", produces = {MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.APPLICATION_SMILE_VALUE, BookMediaTypes.APPLICATION_PROTOBUF_VALUE})
+    public Mono<ResponseEntity<CursorPage<Book>>> getPage(@RequestParam(required = false) String after,
+                                                          @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        return this.bookService.getPage(after, size).map(page -> tagged(page, Book::getId, Book::getVersion));
+    }
+
+    @GetMapping(value = "/by-author", produces = {MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.APPLICATION_SMILE_VALUE, BookMediaTypes.APPLICATION_PROTOBUF_VALUE})
+    public Mono<ResponseEntity<CursorPage<Book>>> findByAuthor(@RequestParam String author,
+                                                               @RequestParam(required = false) String after,
+                                                               @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        return this.bookService.findByAuthors(author, after, size).map(page -> tagged(page, Book::getId, Book::getVersion));
+    }
+
+    @GetMapping(value = "/published-between", produces = {MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.APPLICATION_SMILE_VALUE, BookMediaTypes.APPLICATION_PROTOBUF_VALUE})
+    public Mono<ResponseEntity<CursorPage<Book>>> findByPublishedBetween(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                         @RequestParam(required = false) String after,
+                                                                         @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        return this.bookService.findByPublishedBetween(from, to, after, size).map(page -> tagged(page, Book::getId, Book::getVersion));
+    }
+
+    @GetMapping(value = "/created-before", produces = {MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.APPLICATION_SMILE_VALUE, BookMediaTypes.APPLICATION_PROTOBUF_VALUE})
+    public Mono<ResponseEntity<CursorPage<Book>>> findByCreatedBefore(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime date,
+                                                                      @RequestParam(required = false) String after,
+                                                                      @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        return this.bookService.findByCreatedBefore(date, after, size).map(page -> tagged(page, Book::getId, Book::getVersion));
+    }
+
+    @GetMapping(value = "/summaries", produces = {MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.APPLICATION_SMILE_VALUE, BookMediaTypes.APPLICATION_PROTOBUF_VALUE})
+    public Mono<ResponseEntity<CursorPage<BookSummary>>> getSummaryPage(@RequestParam(required = false) String after,
+                                                                        @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        return this.bookService.getSummaryPage(after, size).map(page -> tagged(page, BookSummary::id, BookSummary::version));
+    }
+
+    @GetMapping(value = "/summaries/by-author", produces = {MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.APPLICATION_SMILE_VALUE, BookMediaTypes.APPLICATION_PROTOBUF_VALUE})
+    public Mono<ResponseEntity<CursorPage<BookSummary>>> findSummariesByAuthor(@RequestParam String author,
+                                                                               @RequestParam(required = false) String after,
+                                                                               @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        return this.bookService.findSummariesByAuthors(author, after, size).map(page -> tagged(page, BookSummary::id, BookSummary::version));
+    }
+
+    @GetMapping(value = "/summaries/published-between", produces = {MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.APPLICATION_SMILE_VALUE, BookMediaTypes.APPLICATION_PROTOBUF_VALUE})
+    public Mono<ResponseEntity<CursorPage<BookSummary>>> findSummariesByPublishedBetween(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                                         @RequestParam(required = false) String after,
+                                                                                         @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        return this.bookService.findSummariesByPublishedBetween(from, to, after, size).map(page -> tagged(page, BookSummary::id, BookSummary::version));
+    }
+
+    @GetMapping(value = "/summaries/by-title", produces = {MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.APPLICATION_SMILE_VALUE, BookMediaTypes.APPLICATION_PROTOBUF_VALUE})
+    public Flux<BookSummary> findSummariesByTitle(@RequestParam String title) {
+        return this.bookService.findSummariesByTitle(title);
+    }
+
+    @GetMapping("/search")
+    public Mono<List<BookSearchResult>> search(@RequestParam("q") String query,
+                                               @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        return this.bookService.search(query, limit);
+    }
+
+    @GetMapping("/facets/authors")
+    public Mono<List<AuthorFacet>> getAuthorFacets(@RequestParam(required = false) List<String> author,
+                                                   @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        return author == null ? this.bookService.findTopAuthorFacets(limit).collectList() : this.bookService.findAuthorFacets(author);
+    }
+
+    @PostMapping("/facets/authors/rebuild")
+    public Mono<ResponseEntity<Void>> rebuildAuthorFacets() {
+        return this.bookService.rebuildAuthorFacets().thenReturn(ResponseEntity.noContent().build());
+    }
+
+    @GetMapping("/histogram")
+    public Flux<HistogramCount> getHistogram(@RequestParam(defaultValue = "publishedAt") String field,
+                                             @RequestParam(defaultValue = "month") String granularity,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return this.bookService.histogram(field, granularity, from, to);
+    }
+
+    @PostMapping("/histogram/rebuild")
+    public Mono<ResponseEntity<Void>> rebuildHistogram() {
+        return this.bookService.rebuildHistogram().thenReturn(ResponseEntity.noContent().build());
+    }
+
+    @GetMapping(value = "/{id}", produces = {MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.APPLICATION_SMILE_VALUE, BookMediaTypes.APPLICATION_PROTOBUF_VALUE})
+    public Mono<ResponseEntity<Book>> getById(@PathVariable String id, ServerWebExchange exchange) {
+        if (exchange.getRequest().getHeaders().getIfNoneMatch().isEmpty()) {
+            return bookService.findById(id).map(ReactiveBookController::tagged);
+        }
+        return bookService.findVersionById(id).flatMap(version -> {
+            String eTag = ETags.ofVersion(version);
+            if (exchange.checkNotModified(eTag)) {
+                return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).<Book>build());
+            }
+            return bookService.findById(id).map(ReactiveBookController::tagged);
+        });
+    }
+
+    @PostMapping("/")
+    public Mono<ResponseEntity<Book>> create(@RequestBody BookCreateDto book) {
+        return bookService.create(book).map(savedBook -> ResponseEntity.status(HttpStatus.CREATED).body(savedBook));
+    }
+
+    @PostMapping("/bulk")
+    public Mono<ResponseEntity<List<BookBulkItemResult>>> createAll(@RequestBody List<BookCreateDto> books) {
+        return bookService.createAll(books).map(results -> {
+            boolean allCreated = results.stream().allMatch(result -> result.status() == BookBulkItemResult.Status.CREATED);
+            return ResponseEntity.status(allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(results);
+        });
+    }
+
+    @PostMapping(value = "/import", consumes = CatalogFormat.CSV_VALUE)
+    public Mono<ResponseEntity<CatalogImportReport>> importCsv(@RequestBody Flux<DataBuffer> body, @RequestParam(defaultValue = "0") long offset) {
+        return BlockingStreams.read(body, input -> bookImportService.importCatalog(input, CatalogFormat.CSV, offset)).map(BookController::imported);
+    }
+
+    @PostMapping(value = "/import", consumes = CatalogFormat.NDJSON_VALUE)
+    public Mono<ResponseEntity<CatalogImportReport>> importNdjson(@RequestBody Flux<DataBuffer> body, @RequestParam(defaultValue = "0") long offset) {
+        return BlockingStreams.read(body, input -> bookImportService.importCatalog(input, CatalogFormat.NDJSON, offset)).map(BookController::imported);
+    }
+
+    @PutMapping(value = "/{id}", produces = {MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.APPLICATION_SMILE_VALUE, BookMediaTypes.APPLICATION_PROTOBUF_VALUE})
+    public Mono<ResponseEntity<Book>> update(@PathVariable String id, @RequestBody BookCreateDto book) {
+        return bookService.update(id, book).map(ReactiveBookController::tagged);
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<String>> delete(@PathVariable String id) {
+        return bookService.deleteById(id).map(deleted -> ResponseEntity.noContent().build());
+    }
+
+    private static ResponseEntity<Book> tagged(Book book) {
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(ETags.ofVersion(book.getVersion())).body(book);
+    }
+
+    private static <T> ResponseEntity<CursorPage<T>> tagged(CursorPage<T> page, Function<T, String> id, ToLongFunction<T> version) {
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(ETags.ofItems(page.items(), id, version, page.next())).body(page);
+    }
+}
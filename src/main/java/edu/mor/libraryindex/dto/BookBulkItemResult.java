@@ -0,0 +1,19 @@
+package edu.mor.libraryindex.dto;
+
+/**
+ * Outcome of one element of a bulk create request, {@code index} being its position in the request.
+ */
+public record BookBulkItemResult(int index, Status status, String id, String error) {
+    public enum Status {
+        CREATED,
+        FAILED
+    }
+
+    public static BookBulkItemResult created(int index, String id) {
+        return new BookBulkItemResult(index, Status.CREATED, id, null);
+    }
+
+    public static BookBulkItemResult failed(int index, String error) {
+        return new BookBulkItemResult(index, Status.FAILED, null, error);
+    }
+}
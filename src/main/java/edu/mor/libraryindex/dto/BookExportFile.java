@@ -0,0 +1,7 @@
+package edu.mor.libraryindex.dto;
+
+/**
+ * A finished export file, {@code bytes} being its compressed size.
+ */
+public record BookExportFile(String path, long books, long bytes, long elapsedMillis) {
+}
@@ -0,0 +1,7 @@
+package edu.mor.libraryindex.dto;
+
+import edu.mor.libraryindex.model.Book;
+
+public record BookSearchResult(Book book, double score) {
+
+}
@@ -0,0 +1,13 @@
+package edu.mor.libraryindex.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * List view of a book without its description. Used as a repository projection, so only these fields are read
+ * from Mongo.
+ */
+public record BookSummary(String id, String title, List<String> authors, LocalDateTime publishedAt, LocalDateTime createdAt,
+                          long version) {
+
+}
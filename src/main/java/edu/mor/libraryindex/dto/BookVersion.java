@@ -0,0 +1,8 @@
+package edu.mor.libraryindex.dto;
+
+/**
+ * Projection of a book on its id and version, enough to answer a conditional read without loading the document.
+ */
+public record BookVersion(String id, long version) {
+
+}
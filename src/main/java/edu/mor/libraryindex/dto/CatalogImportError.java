@@ -0,0 +1,7 @@
+package edu.mor.libraryindex.dto;
+
+/**
+ * A catalog row that was not imported, {@code row} being its number in the file.
+ */
+public record CatalogImportError(long row, String error) {
+}
@@ -0,0 +1,15 @@
+package edu.mor.libraryindex.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a catalog import. Every row before {@code checkpoint} was either created or failed, so an import that
+ * was aborted, whose {@code abortedBy} says why, is resumed by sending the same file again with the checkpoint as
+ * offset. Only the first failed rows are listed in {@code errors}, {@code failed} counts them all.
+ */
+public record CatalogImportReport(long offset, long checkpoint, long created, long failed, long elapsedMillis,
+                                  double rowsPerSecond, List<CatalogImportError> errors, String abortedBy) {
+    public boolean complete() {
+        return abortedBy == null;
+    }
+}
@@ -0,0 +1,11 @@
+package edu.mor.libraryindex.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code next} is the opaque continuation token for the following page,
+ * or {@code null} when this is the last one.
+ */
+public record CursorPage<T>(List<T> items, String next) {
+
+}
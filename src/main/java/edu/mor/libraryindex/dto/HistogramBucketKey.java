@@ -0,0 +1,88 @@
+package edu.mor.libraryindex.dto;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * One bucket of a date histogram: the books whose {@code field} falls in the {@code granularity} long period that
+ * begins at {@code start}.
+ */
+public record HistogramBucketKey(Field field, Granularity granularity, LocalDateTime start) {
+    public enum Field {
+        PUBLISHED_AT("publishedAt"),
+        CREATED_AT("createdAt");
+
+        private final String property;
+
+        Field(String property) {
+            this.property = property;
+        }
+
+        public String property() {
+            return property;
+        }
+
+        /**
+         * @throws IllegalArgumentException if no field has the given book property name
+         */
+        public static Field of(String property) {
+            for (Field field : values()) {
+                if (field.property.equals(property)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("Unknown histogram field " + property);
+        }
+    }
+
+    public enum Granularity {
+        YEAR(ChronoUnit.YEARS),
+        MONTH(ChronoUnit.MONTHS),
+        DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unit;
+
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        public LocalDateTime truncate(LocalDateTime value) {
+            LocalDateTime day = value.truncatedTo(ChronoUnit.DAYS);
+            return switch (this) {
+                case YEAR -> day.withDayOfYear(1);
+                case MONTH -> day.withDayOfMonth(1);
+                case DAY -> day;
+            };
+        }
+
+        /**
+         * Number of buckets from the one holding {@code from} up to the one holding {@code to}, both included.
+         */
+        public long bucketsBetween(LocalDateTime from, LocalDateTime to) {
+            return unit.between(truncate(from), truncate(to)) + 1;
+        }
+
+        public String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * @throws IllegalArgumentException if the name is not one of year, month or day, in any case
+         */
+        public static Granularity of(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * The bucket of the given granularity holding {@code value}.
+     */
+    public static HistogramBucketKey of(Field field, Granularity granularity, LocalDateTime value) {
+        return new HistogramBucketKey(field, granularity, granularity.truncate(value));
+    }
+
+    public String id() {
+        return field.property() + ':' + granularity.key() + ':' + start.toLocalDate();
+    }
+}
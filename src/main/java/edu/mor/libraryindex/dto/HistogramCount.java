@@ -0,0 +1,10 @@
+package edu.mor.libraryindex.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of books in the histogram bucket beginning at {@code start}. Used as a projection of the stored buckets.
+ */
+public record HistogramCount(LocalDateTime start, long count) {
+
+}
@@ -0,0 +1,55 @@
+package edu.mor.libraryindex.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position of the last book of a page, passed around as an opaque string. Listings are ordered by
+ * {@code (createdAt, id)}, except those filtered on a {@code publishedAt} range, which are ordered by
+ * {@code (publishedAt, createdAt, id)} so that the range and the order are served by the same index; their tokens
+ * also carry {@code publishedAt}, which is null otherwise.
+ */
+public record PageToken(LocalDateTime publishedAt, LocalDateTime createdAt, String id) {
+    private static final char SEPARATOR = '|';
+    private static final char PUBLISHED_MARKER = 'p';
+
+    public PageToken(LocalDateTime createdAt, String id) {
+        this(null, createdAt, id);
+    }
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        if (publishedAt != null) {
+            raw = PUBLISHED_MARKER + publishedAt.toString() + SEPARATOR + raw;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static PageToken decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        try {
+            LocalDateTime publishedAt = null;
+            if (!raw.isEmpty() && raw.charAt(0) == PUBLISHED_MARKER) {
+                int separator = separatorIn(raw);
+                publishedAt = LocalDateTime.parse(raw.substring(1, separator));
+                raw = raw.substring(separator + 1);
+            }
+            int separator = separatorIn(raw);
+            return new PageToken(publishedAt, LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed page token", e);
+        }
+    }
+
+    private static int separatorIn(String raw) {
+        int separator = raw.indexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed page token");
+        }
+        return separator;
+    }
+}
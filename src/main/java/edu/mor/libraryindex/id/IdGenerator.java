@@ -0,0 +1,9 @@
+package edu.mor.libraryindex.id;
+
+/**
+ * Source of identifiers for newly created documents, selected with {@code library-index.id.strategy}.
+ */
+@FunctionalInterface
+public interface IdGenerator {
+    String nextId();
+}
@@ -0,0 +1,18 @@
+package edu.mor.libraryindex.id;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdGeneratorConfiguration {
+    @Bean
+    public IdGenerator idGenerator(@Value("${library-index.id.strategy:uuid-v7}") String strategy) {
+        return switch (strategy) {
+            case "uuid-v7" -> new TimeOrderedUuidGenerator();
+            case "object-id" -> new ObjectIdGenerator();
+            case "random-uuid" -> new RandomUuidGenerator();
+            default -> throw new IllegalArgumentException("Unknown library-index.id.strategy: " + strategy);
+        };
+    }
+}
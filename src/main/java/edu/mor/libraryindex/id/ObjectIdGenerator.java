@@ -0,0 +1,14 @@
+package edu.mor.libraryindex.id;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Hex strings of Mongo ObjectIds: time-ordered at second granularity and only 24 characters long. Spring Data stores
+ * a String id that is a valid ObjectId as a 12-byte ObjectId, and converts it back transparently on reads.
+ */
+public class ObjectIdGenerator implements IdGenerator {
+    @Override
+    public String nextId() {
+        return ObjectId.get().toHexString();
+    }
+}
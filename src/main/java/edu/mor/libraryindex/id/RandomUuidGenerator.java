@@ -0,0 +1,14 @@
+package edu.mor.libraryindex.id;
+
+import java.util.UUID;
+
+/**
+ * Random version 4 UUIDs, the original id scheme. Every id draws from the shared {@code SecureRandom} and new ids
+ * land on random pages of the {@code _id} index.
+ */
+public class RandomUuidGenerator implements IdGenerator {
+    @Override
+    public String nextId() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,27 @@
+package edu.mor.libraryindex.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Version 7 UUIDs: the first 48 bits are the Unix timestamp in milliseconds, so ids (and their canonical string form)
+ * sort by creation time and new documents are appended to the right edge of the {@code _id} index. The remaining
+ * 74 bits come from {@link ThreadLocalRandom}, which does not contend between threads.
+ * <p>
+ * Like the random UUIDs before them, these ids are stored as their 36-character string, not as 16-byte BSON binary
+ * subtype 4: ids stay one String type in the {@code _id} index next to existing random UUIDs, and every index that
+ * ends in {@code _id} pays for the longer key. The id scheme insert benchmark measures what the binary form would save.
+ */
+public class TimeOrderedUuidGenerator implements IdGenerator {
+    @Override
+    public String nextId() {
+        return next(System.currentTimeMillis()).toString();
+    }
+
+    static UUID next(long epochMillis) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (epochMillis << 16) | 0x7000L | (random.nextInt() & 0x0FFFL);
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
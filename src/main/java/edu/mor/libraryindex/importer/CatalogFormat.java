@@ -0,0 +1,19 @@
+package edu.mor.libraryindex.importer;
+
+/**
+ * File formats a catalog can be imported from, each accepted under its own content type.
+ */
+public enum CatalogFormat {
+    /**
+     * Comma separated values with a header row naming the columns title, description, authors and publishedAt.
+     * Authors are separated by semicolons and publishedAt is an ISO date or date-time.
+     */
+    CSV,
+    /**
+     * One {@code BookCreateDto} JSON object per line.
+     */
+    NDJSON;
+
+    public static final String CSV_VALUE = "text/csv";
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+}
@@ -0,0 +1,40 @@
+package edu.mor.libraryindex.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a catalog one row at a time, so only the current row is held in memory whatever the size of the file. A row
+ * that is malformed is returned as a failed row and reading goes on; an {@link IOException} means the rest of the file
+ * cannot be read.
+ */
+public interface CatalogReader extends Closeable {
+    int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * @return the next row, or {@code null} at the end of the file
+     */
+    CatalogRow next() throws IOException;
+
+    /**
+     * Moves past the next rows without turning them into books, for resuming an import. Skipped rows are numbered
+     * like read ones, so the row returned next is numbered {@code rows} higher.
+     *
+     * @return the number of rows skipped, fewer than asked for at the end of the file
+     */
+    long skip(long rows) throws IOException;
+
+    static CatalogReader open(CatalogFormat format, InputStream input, ObjectMapper objectMapper) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), BUFFER_SIZE);
+        return switch (format) {
+            case CSV -> new CsvCatalogReader(reader);
+            case NDJSON -> new NdjsonCatalogReader(reader, objectMapper);
+        };
+    }
+}
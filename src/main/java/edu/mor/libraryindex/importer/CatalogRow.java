@@ -0,0 +1,17 @@
+package edu.mor.libraryindex.importer;
+
+import edu.mor.libraryindex.dto.BookCreateDto;
+
+/**
+ * One data row of a catalog file, numbered from zero in file order without the CSV header and blank lines. A row
+ * that could not be read has an {@code error} instead of a book.
+ */
+public record CatalogRow(long number, BookCreateDto book, String error) {
+    public static CatalogRow read(long number, BookCreateDto book) {
+        return new CatalogRow(number, book, null);
+    }
+
+    public static CatalogRow failed(long number, String error) {
+        return new CatalogRow(number, null, error);
+    }
+}
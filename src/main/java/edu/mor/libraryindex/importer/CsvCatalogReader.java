@@ -0,0 +1,197 @@
+package edu.mor.libraryindex.importer;
+
+import edu.mor.libraryindex.dto.BookCreateDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RFC 4180 reader: fields may be quoted, a quoted field may hold commas, line breaks and quotes doubled. Columns are
+ * matched by the names in the header row, so they may come in any order and unknown columns are ignored.
+ */
+class CsvCatalogReader implements CatalogReader {
+    /**
+     * Bounds the memory held by one row, so a quote left open does not read the rest of the file into a field.
+     */
+    static final int MAX_RECORD_LENGTH = 1024 * 1024;
+    private static final String AUTHOR_SEPARATOR = ";";
+    private static final String BYTE_ORDER_MARK = "\uFEFF";
+    private static final int END = -1;
+
+    private final BufferedReader reader;
+    private final StringBuilder field = new StringBuilder();
+    private int title = -1;
+    private int description = -1;
+    private int authors = -1;
+    private int publishedAt = -1;
+    private int columns;
+    private long number;
+
+    CsvCatalogReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public CatalogRow next() throws IOException {
+        if (columns == 0 && !readHeader()) {
+            return null;
+        }
+        List<String> record = new ArrayList<>(columns);
+        if (!readRecord(record)) {
+            return null;
+        }
+        long row = number++;
+        if (record.size() != columns) {
+            return CatalogRow.failed(row, "Row has " + record.size() + " columns but the header has " + columns + "!");
+        }
+        try {
+            return CatalogRow.read(row, new BookCreateDto(column(record, title), column(record, description),
+                authors(column(record, authors)), publishedAt(column(record, publishedAt))));
+        } catch (DateTimeParseException e) {
+            return CatalogRow.failed(row, "publishedAt must be an ISO date or date-time!");
+        }
+    }
+
+    @Override
+    public long skip(long rows) throws IOException {
+        if (columns == 0 && !readHeader()) {
+            return 0;
+        }
+        long skipped = 0;
+        while (skipped < rows && readRecord(null)) {
+            number++;
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean readHeader() throws IOException {
+        List<String> header = new ArrayList<>();
+        if (!readRecord(header)) {
+            return false;
+        }
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim();
+            if (i == 0 && name.startsWith(BYTE_ORDER_MARK)) {
+                name = name.substring(1);
+            }
+            switch (name) {
+                case "title" -> title = i;
+                case "description" -> description = i;
+                case "authors" -> authors = i;
+                case "publishedAt" -> publishedAt = i;
+                default -> {
+                }
+            }
+        }
+        if (publishedAt < 0) {
+            throw new IOException("CSV header must name a publishedAt column!");
+        }
+        columns = header.size();
+        return true;
+    }
+
+    /**
+     * Reads the next record that is not a blank line into {@code record}, or past it when {@code record} is null.
+     *
+     * @return {@code false} at the end of the file
+     */
+    private boolean readRecord(List<String> record) throws IOException {
+        int c = reader.read();
+        while (c == '\r' || c == '\n') {
+            c = reader.read();
+        }
+        if (c == END) {
+            return false;
+        }
+        field.setLength(0);
+        boolean quoted = false;
+        for (int length = 1; c != END; c = reader.read(), length++) {
+            if (length > MAX_RECORD_LENGTH) {
+                throw new IOException("CSV row " + number + " is longer than " + MAX_RECORD_LENGTH + " characters!");
+            }
+            if (quoted) {
+                if (c != '"') {
+                    field.append((char) c);
+                    continue;
+                }
+                c = reader.read();
+                if (c == '"') {
+                    field.append('"');
+                    continue;
+                }
+                quoted = false;
+                if (c == END) {
+                    break;
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+                continue;
+            }
+
+            if (c == ',') {
+                endField(record);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                endField(record);
+                return true;
+            } else {
+                field.append((char) c);
+            }
+        }
+        if (quoted) {
+            throw new IOException("CSV row " + number + " has a quote that is never closed!");
+        }
+        endField(record);
+        return true;
+    }
+
+    private void endField(List<String> record) {
+        if (record != null) {
+            record.add(field.toString());
+        }
+        field.setLength(0);
+    }
+
+    private static String column(List<String> record, int index) {
+        if (index < 0) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static List<String> authors(String value) {
+        List<String> authors = new ArrayList<>();
+        if (value != null) {
+            for (String author : value.split(AUTHOR_SEPARATOR)) {
+                if (!author.isBlank()) {
+                    authors.add(author.trim());
+                }
+            }
+        }
+        return authors;
+    }
+
+    private static LocalDateTime publishedAt(String value) {
+        if (value == null) {
+            return null;
+        }
+        return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+    }
+}
@@ -0,0 +1,92 @@
+package edu.mor.libraryindex.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import edu.mor.libraryindex.dto.BookCreateDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+class NdjsonCatalogReader implements CatalogReader {
+    /**
+     * Bounds the memory held by one row like {@link CsvCatalogReader#MAX_RECORD_LENGTH}, so a file without line
+     * breaks is not read into one line.
+     */
+    static final int MAX_LINE_LENGTH = CsvCatalogReader.MAX_RECORD_LENGTH;
+    private static final int END = -1;
+
+    private final BufferedReader reader;
+    private final ObjectReader bookReader;
+    private final StringBuilder line = new StringBuilder();
+    private long number;
+
+    NdjsonCatalogReader(BufferedReader reader, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.bookReader = objectMapper.readerFor(BookCreateDto.class);
+    }
+
+    @Override
+    public CatalogRow next() throws IOException {
+        if (!readLine(true)) {
+            return null;
+        }
+        long row = number++;
+        try {
+            BookCreateDto book = bookReader.readValue(line.toString());
+            return book == null ? CatalogRow.failed(row, "Row must be a JSON object!") : CatalogRow.read(row, book);
+        } catch (JsonProcessingException e) {
+            return CatalogRow.failed(row, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public long skip(long rows) throws IOException {
+        long skipped = 0;
+        while (skipped < rows && readLine(false)) {
+            number++;
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Reads the next line that is not blank, into {@link #line} when {@code keep} is set.
+     *
+     * @return {@code false} at the end of the file
+     */
+    private boolean readLine(boolean keep) throws IOException {
+        boolean blank = true;
+        line.setLength(0);
+        int length = 0;
+        for (int c = reader.read(); c != END; c = reader.read()) {
+            if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                if (!blank) {
+                    return true;
+                }
+                line.setLength(0);
+                length = 0;
+                continue;
+            }
+            if (++length > MAX_LINE_LENGTH) {
+                throw new IOException("NDJSON row " + number + " is longer than " + MAX_LINE_LENGTH + " characters!");
+            }
+            blank &= Character.isWhitespace(c);
+            if (keep) {
+                line.append((char) c);
+            }
+        }
+        return !blank;
+    }
+}
@@ -0,0 +1,23 @@
+package edu.mor.libraryindex.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Number of books listing an author, one document per author. Maintained by {@code AuthorFacetService} on every book
+ * write, so facet reads never touch the books collection.
+ */
+@Document("author_facets")
+@CompoundIndex(name = "count_id", def = "{'count': -1, '_id': 1}")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AuthorFacet {
+    @Id
+    private String author;
+    private long count;
+}
@@ -4,28 +4,52 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.UUID;
 
 @Document
+@CompoundIndexes({
+    @CompoundIndex(name = "createdAt_id", def = "{'createdAt': 1, '_id': 1}"),
+    @CompoundIndex(name = "authors_createdAt_id", def = "{'authors': 1, 'createdAt': 1, '_id': 1}"),
+    @CompoundIndex(name = "publishedAt_createdAt_id", def = "{'publishedAt': 1, 'createdAt': 1, '_id': 1}")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class Book {
     @Id
     private String id;
+    @Indexed
     private String title;
     private String description;
     private List<String> authors;
     private LocalDateTime publishedAt;
     private LocalDateTime createdAt;
+    /**
+     * Incremented on every update and used as the ETag of the book. Documents written before it existed read as 0.
+     * It describes the stored revision rather than the book itself, so it takes no part in equality.
+     */
+    private long version;
+
+    public Book(String id, String title, String description, List<String> authors, LocalDateTime publishedAt,
+                LocalDateTime createdAt) {
+        this(id, title, description, authors, publishedAt, createdAt, 0);
+    }
 
     public Book(String title, String description, List<String> authors, LocalDateTime publishedAt) {
-        this.id = UUID.randomUUID().toString();
+        this(UUID.randomUUID().toString(), title, description, authors, publishedAt);
+    }
+
+    public Book(String id, String title, String description, List<String> authors, LocalDateTime publishedAt) {
+        this.id = id;
         this.title = title;
         this.description = description;
         this.authors = authors;
@@ -33,21 +57,77 @@ public class Book {
         this.createdAt = LocalDateTime.now().withNano(0);
     }
 
+    /**
+     * Same contract as before, but computed field by field: {@code Objects.hash} allocates a varargs array per call and
+     * the authors list was wrapped in a second one.
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(id, title, description, Objects.hash(authors), publishedAt, createdAt);
+        return hash(id, title, description, authors, publishedAt, createdAt);
     }
 
+    /**
+     * Compares the cheap and most selective fields first and walks the authors by index, so comparing two books
+     * allocates no list iterators.
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Book)) return false;
         Book book = (Book) o;
         return Objects.equals(id, book.id) &&
+            Objects.equals(createdAt, book.createdAt) &&
+            Objects.equals(publishedAt, book.publishedAt) &&
             Objects.equals(title, book.title) &&
             Objects.equals(description, book.description) &&
-            Objects.equals(authors, book.authors) &&
-            Objects.equals(publishedAt, book.publishedAt) &&
-            Objects.equals(createdAt, book.createdAt);
+            authorsEqual(authors, book.authors);
+    }
+
+    private static int hash(String id, String title, String description, List<String> authors, LocalDateTime publishedAt,
+                            LocalDateTime createdAt) {
+        int result = Objects.hashCode(id);
+        result = 31 * result + Objects.hashCode(title);
+        result = 31 * result + Objects.hashCode(description);
+        result = 31 * result + authorsHash(authors);
+        result = 31 * result + Objects.hashCode(publishedAt);
+        result = 31 * result + Objects.hashCode(createdAt);
+        return result;
+    }
+
+    /**
+     * {@link List#hashCode()} without an iterator for the random access lists that Jackson and the Mongo converter
+     * create.
+     */
+    private static int authorsHash(List<String> authors) {
+        if (!(authors instanceof RandomAccess)) {
+            return Objects.hashCode(authors);
+        }
+        int result = 1;
+        for (int i = 0, size = authors.size(); i < size; i++) {
+            result = 31 * result + Objects.hashCode(authors.get(i));
+        }
+        return result;
+    }
+
+    private static boolean authorsEqual(List<String> left, List<String> right) {
+        if (left == right) {
+            return true;
+        }
+        if (left == null || right == null) {
+            return false;
+        }
+        if (!(left instanceof RandomAccess) || !(right instanceof RandomAccess)) {
+            return left.equals(right);
+        }
+        int size = left.size();
+        if (size != right.size()) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (!Objects.equals(left.get(i), right.get(i))) {
+                return false;
+            }
+        }
+        return true;
     }
 }
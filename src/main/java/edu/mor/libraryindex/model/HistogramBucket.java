@@ -0,0 +1,28 @@
+package edu.mor.libraryindex.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of books whose {@code field} date falls in one year, month or day. The id is the bucket key, see
+ * {@code HistogramBucketKey#id()}. Maintained by {@code DateHistogramService} on every book write.
+ */
+@Document("histogram_buckets")
+@CompoundIndex(name = "field_granularity_start", def = "{'field': 1, 'granularity': 1, 'start': 1}")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HistogramBucket {
+    @Id
+    private String id;
+    private String field;
+    private String granularity;
+    private LocalDateTime start;
+    private long count;
+}
@@ -0,0 +1,180 @@
+package edu.mor.libraryindex.monitoring;
+
+import edu.mor.libraryindex.dto.CursorPage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.data.domain.Slice;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records a latency timer, an error counter and a result size distribution for every intercepted method, tagged with
+ * the owning type and the method name. {@code Mono} and {@code Flux} results are measured from subscription until
+ * they terminate. The meters of a method are looked up once and reused, so an invocation does not go through the
+ * registry. Besides the configured client-side percentiles, the latency of successful invocations is published as a
+ * histogram for aggregation across instances. Its buckets are bounded to {@link #HISTOGRAM_MIN} to
+ * {@link #HISTOGRAM_MAX}, unbounded they would add a few hundred series to every method.
+ */
+public class InvocationMetrics implements MethodInterceptor {
+    private static final String SUCCESS = "none";
+    static final Duration HISTOGRAM_MIN = Duration.ofMillis(1);
+    static final Duration HISTOGRAM_MAX = Duration.ofSeconds(10);
+
+    private final MeterRegistry registry;
+    private final String prefix;
+    private final String ownerTag;
+    private final String owner;
+    private final double[] percentiles;
+    private final Map<Method, Meters> meters = new ConcurrentHashMap<>();
+
+    /**
+     * @param prefix   metric name prefix, the meters are {@code <prefix>.invocations}, {@code .errors} and {@code .results}
+     * @param ownerTag name of the tag holding the simple name of the intercepted type
+     * @param owner    value of the owner tag, or {@code null} to use the class of the invoked target
+     */
+    public InvocationMetrics(MeterRegistry registry, String prefix, String ownerTag, String owner, double[] percentiles) {
+        this.registry = registry;
+        this.prefix = prefix;
+        this.ownerTag = ownerTag;
+        this.owner = owner;
+        this.percentiles = percentiles;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Meters methodMeters = meters.computeIfAbsent(invocation.getMethod(), method -> new Meters(owner(invocation), method.getName()));
+        long start = registry.config().clock().monotonicTime();
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            methodMeters.failed(start, e);
+            throw e;
+        }
+        if (result instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                long subscribed = registry.config().clock().monotonicTime();
+                return mono
+                    .doOnSuccess(value -> methodMeters.succeeded(subscribed, value))
+                    .doOnError(e -> methodMeters.failed(subscribed, e));
+            });
+        }
+        if (result instanceof Flux<?> flux) {
+            return Flux.defer(() -> {
+                long subscribed = registry.config().clock().monotonicTime();
+                AtomicLong count = new AtomicLong();
+                return flux
+                    .doOnNext(value -> count.incrementAndGet())
+                    .doOnComplete(() -> methodMeters.succeeded(subscribed, count.get()))
+                    .doOnError(e -> methodMeters.failed(subscribed, e));
+            });
+        }
+        methodMeters.succeeded(start, result);
+        return result;
+    }
+
+    private String owner(MethodInvocation invocation) {
+        if (owner != null) {
+            return owner;
+        }
+        if (invocation.getThis() == null) {
+            return invocation.getMethod().getDeclaringClass().getSimpleName();
+        }
+        return AopUtils.getTargetClass(invocation.getThis()).getSimpleName();
+    }
+
+    /**
+     * Number of elements in a result, or -1 when the result is not a container. A {@code Long} is taken as a count, as
+     * returned by the delete and count queries or by a completed {@code Flux}.
+     */
+    static long sizeOf(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof CursorPage<?> page) {
+            return page.items().size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        if (result instanceof Long count) {
+            return count;
+        }
+        if (result != null && result.getClass().isArray()) {
+            return Array.getLength(result);
+        }
+        return -1;
+    }
+
+    private final class Meters {
+        private final String owner;
+        private final String method;
+        private final Timer success;
+        private final DistributionSummary results;
+        private final Map<Class<?>, Failure> failures = new ConcurrentHashMap<>();
+
+        private Meters(String owner, String method) {
+            this.owner = owner;
+            this.method = method;
+            this.success = timer(SUCCESS)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(HISTOGRAM_MIN)
+                .maximumExpectedValue(HISTOGRAM_MAX)
+                .register(registry);
+            this.results = DistributionSummary.builder(prefix + ".results")
+                .description("Number of elements returned")
+                .tags(ownerTag, owner, "method", method)
+                .publishPercentiles(percentiles)
+                .register(registry);
+        }
+
+        private void succeeded(long start, Object result) {
+            success.record(registry.config().clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
+            long size = sizeOf(result);
+            if (size >= 0) {
+                results.record(size);
+            }
+        }
+
+        private void failed(long start, Throwable e) {
+            Failure failure = failures.computeIfAbsent(e.getClass(), type -> new Failure(timer(type.getSimpleName()).register(registry),
+                Counter.builder(prefix + ".errors")
+                    .description("Invocations that threw")
+                    .tags(ownerTag, owner, "method", method, "exception", type.getSimpleName())
+                    .register(registry)));
+            failure.timer().record(registry.config().clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
+            failure.counter().increment();
+        }
+
+        private Timer.Builder timer(String exception) {
+            return Timer.builder(prefix + ".invocations")
+                .description("Invocation latency")
+                .tags(ownerTag, owner, "method", method, "exception", exception)
+                .publishPercentiles(percentiles);
+        }
+    }
+
+    private record Failure(Timer timer, Counter counter) {
+    }
+}
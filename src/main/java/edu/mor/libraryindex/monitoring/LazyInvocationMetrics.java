@@ -0,0 +1,43 @@
+package edu.mor.libraryindex.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Defers the registry lookup to the first invocation. The advisor and the repository post processor are created
+ * before the registry, and resolving it eagerly would drag the metrics auto-configuration into early bean creation.
+ */
+class LazyInvocationMetrics implements MethodInterceptor {
+    private final ObjectProvider<MeterRegistry> registry;
+    private final String prefix;
+    private final String ownerTag;
+    private final String owner;
+    private final double[] percentiles;
+    private volatile InvocationMetrics delegate;
+
+    LazyInvocationMetrics(ObjectProvider<MeterRegistry> registry, String prefix, String ownerTag, String owner,
+                          double[] percentiles) {
+        this.registry = registry;
+        this.prefix = prefix;
+        this.ownerTag = ownerTag;
+        this.owner = owner;
+        this.percentiles = percentiles;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        InvocationMetrics metrics = delegate;
+        if (metrics == null) {
+            synchronized (this) {
+                metrics = delegate;
+                if (metrics == null) {
+                    metrics = new InvocationMetrics(registry.getObject(), prefix, ownerTag, owner, percentiles);
+                    delegate = metrics;
+                }
+            }
+        }
+        return metrics.invoke(invocation);
+    }
+}
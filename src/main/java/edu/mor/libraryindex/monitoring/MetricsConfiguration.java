@@ -0,0 +1,78 @@
+package edu.mor.libraryindex.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.aop.support.annotation.AnnotationClassFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Times the public methods of the {@code @Service} beans that serve requests and every repository query method. Event
+ * listeners, scheduled jobs and the {@code rebuild} methods are left out: they run once in a while for seconds to
+ * minutes, would stretch the latency histograms and log their outcome instead. Service metrics are
+ * published as {@code library.service.*} tagged with {@code service}, repository metrics as
+ * {@code library.repository.*} tagged with {@code repository}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library-index.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class MetricsConfiguration {
+    /**
+     * Ordered first, so that the timing includes cache hits served by the caching advice of the same bean.
+     */
+    @Bean
+    public static Advisor serviceMetricsAdvisor(ObjectProvider<MeterRegistry> registry,
+                                                @Value("${library-index.metrics.percentiles:0.5,0.95,0.99}") double[] percentiles) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(new ServiceRequestPointcut(),
+            new LazyInvocationMetrics(registry, "library.service", "service", null, percentiles));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    @Bean
+    public static BeanPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> registry,
+                                                                   @Value("${library-index.metrics.percentiles:0.5,0.95,0.99}") double[] percentiles) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory ->
+                        factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(
+                            new LazyInvocationMetrics(registry, "library.repository", "repository",
+                                repositoryInformation.getRepositoryInterface().getSimpleName(), percentiles))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    static final class ServiceRequestPointcut extends StaticMethodMatcherPointcut {
+        ServiceRequestPointcut() {
+            setClassFilter(new AnnotationClassFilter(Service.class, true));
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+            return Modifier.isPublic(specificMethod.getModifiers())
+                && !specificMethod.getName().startsWith("rebuild")
+                && !AnnotatedElementUtils.hasAnnotation(specificMethod, EventListener.class)
+                && !AnnotatedElementUtils.hasAnnotation(specificMethod, Scheduled.class);
+        }
+    }
+}
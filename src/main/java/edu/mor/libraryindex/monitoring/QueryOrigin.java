@@ -0,0 +1,34 @@
+package edu.mor.libraryindex.monitoring;
+
+/**
+ * Repository method that is running on the current thread, so that Mongo commands seen by {@link SlowQueryLog} can be
+ * traced back to the query that issued them. The blocking driver runs commands on the calling thread; commands of
+ * the reactive driver run elsewhere and carry no origin.
+ */
+public final class QueryOrigin {
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private QueryOrigin() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return the origin it replaces, to be passed back to {@link #restore(String)}
+     */
+    static String enter(String origin) {
+        String previous = CURRENT.get();
+        CURRENT.set(origin);
+        return previous;
+    }
+
+    static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package edu.mor.libraryindex.monitoring;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publishes {@code Repository.method} as the {@link QueryOrigin} while a repository method runs.
+ */
+class QueryOriginInterceptor implements MethodInterceptor {
+    private final String repository;
+    private final Map<Method, String> origins = new ConcurrentHashMap<>();
+
+    QueryOriginInterceptor(String repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        String origin = origins.computeIfAbsent(invocation.getMethod(), method -> repository + "." + method.getName());
+        String previous = QueryOrigin.enter(origin);
+        try {
+            return invocation.proceed();
+        } finally {
+            QueryOrigin.restore(previous);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package edu.mor.libraryindex.monitoring;
+
+import java.time.Instant;
+
+/**
+ * A Mongo command that took longer than the slow query threshold. The shape is the command with every value replaced
+ * by {@code "?"}, so it identifies the query without exposing the data it was run with.
+ */
+public record SlowQuery(Instant finishedAt, String database, String command, String origin, long durationMillis,
+                        long documents, boolean failed, String shape) {
+}
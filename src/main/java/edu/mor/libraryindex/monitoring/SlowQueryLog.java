@@ -0,0 +1,166 @@
+package edu.mor.libraryindex.monitoring;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mongo command listener that logs the commands slower than a threshold and keeps the most recent of them in a ring
+ * buffer. The redacted shape of a command has to be taken when it starts, since the driver only guarantees the
+ * command document for the duration of that callback. The shape is kept as a document of keys and one shared
+ * placeholder value and only serialized for the commands that turn out slow, so the fast majority costs a walk over
+ * the command keys. Handshake, authentication and cursor cleanup commands are ignored.
+ */
+public class SlowQueryLog implements CommandListener {
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+    private static final BsonString REDACTED = new BsonString("?");
+    private static final String NO_ORIGIN = "-";
+    private static final Set<String> IGNORED_COMMANDS = Set.of(
+        "hello", "ismaster", "isMaster", "ping", "buildInfo", "saslStart", "saslContinue", "authenticate", "endSessions",
+        "killCursors", "getLastError");
+    // Session and cluster bookkeeping added by the driver, it says nothing about the query
+    private static final Set<String> IGNORED_FIELDS = Set.of(
+        "lsid", "$db", "$clusterTime", "txnNumber", "$readPreference", "autocommit", "startTransaction", "signature");
+
+    private final long thresholdNanos;
+    private final Clock clock;
+    private final SlowQuery[] recent;
+    private final Map<Integer, Started> inFlight = new ConcurrentHashMap<>();
+    private long recorded;
+
+    public SlowQueryLog(Duration threshold, int capacity, Clock clock) {
+        this.thresholdNanos = threshold.toNanos();
+        this.clock = clock;
+        this.recent = new SlowQuery[capacity];
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (IGNORED_COMMANDS.contains(event.getCommandName())) {
+            return;
+        }
+        String origin = QueryOrigin.current();
+        inFlight.put(event.getRequestId(), new Started(event.getDatabaseName(), origin == null ? NO_ORIGIN : origin,
+            redact(event.getCommand())));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        Started started = inFlight.remove(event.getRequestId());
+        if (started != null && event.getElapsedTime(TimeUnit.NANOSECONDS) >= thresholdNanos) {
+            record(started, event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS),
+                documentsIn(event.getResponse()), false);
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        Started started = inFlight.remove(event.getRequestId());
+        if (started != null && event.getElapsedTime(TimeUnit.NANOSECONDS) >= thresholdNanos) {
+            record(started, event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), 0, true);
+        }
+    }
+
+    /**
+     * @return the retained slow commands, newest first
+     */
+    public synchronized List<SlowQuery> recent() {
+        int size = (int) Math.min(recorded, recent.length);
+        List<SlowQuery> queries = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            queries.add(recent[(int) ((recorded - i) % recent.length)]);
+        }
+        return queries;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(recent, null);
+        recorded = 0;
+    }
+
+    private void record(Started started, String command, long elapsedNanos, long documents, boolean failed) {
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        String shape = started.shape().toJson();
+        SlowQuery query = new SlowQuery(clock.instant(), started.database(), command, started.origin(), durationMillis, documents,
+            failed, shape);
+        synchronized (this) {
+            recent[(int) (recorded % recent.length)] = query;
+            recorded++;
+        }
+        log.warn("Slow Mongo {} from {} took {} ms{} returning {} documents: {}", command, started.origin(), durationMillis,
+            failed ? " and failed" : "", documents, shape);
+    }
+
+    /**
+     * Keeps the keys of the command and replaces every value by {@code "?"}. The first field names the command and
+     * its value is the collection, which is kept. Arrays are collapsed to the shape of their first element, so an
+     * {@code $in} list or an insert batch does not grow the shape.
+     */
+    static BsonDocument redact(BsonDocument command) {
+        BsonDocument shape = new BsonDocument();
+        boolean first = true;
+        for (Map.Entry<String, BsonValue> field : command.entrySet()) {
+            if (first) {
+                shape.put(field.getKey(), field.getValue().isString() ? field.getValue() : REDACTED);
+                first = false;
+            } else if (!IGNORED_FIELDS.contains(field.getKey())) {
+                shape.put(field.getKey(), redactValue(field.getValue()));
+            }
+        }
+        return shape;
+    }
+
+    private static BsonValue redactValue(BsonValue value) {
+        if (value.isDocument()) {
+            BsonDocument shape = new BsonDocument();
+            value.asDocument().forEach((key, nested) -> shape.put(key, redactValue(nested)));
+            return shape;
+        }
+        if (value.isArray()) {
+            BsonArray array = value.asArray();
+            BsonArray shape = new BsonArray();
+            if (!array.isEmpty()) {
+                shape.add(redactValue(array.get(0)));
+            }
+            return shape;
+        }
+        return REDACTED;
+    }
+
+    /**
+     * Documents returned by a cursor batch, or affected by a write or count.
+     */
+    static long documentsIn(BsonDocument response) {
+        BsonValue cursor = response.get("cursor");
+        if (cursor != null && cursor.isDocument()) {
+            for (String batch : new String[]{"firstBatch", "nextBatch"}) {
+                BsonValue documents = cursor.asDocument().get(batch);
+                if (documents != null && documents.isArray()) {
+                    return documents.asArray().size();
+                }
+            }
+        }
+        BsonValue count = response.get("n");
+        return count != null && count.isNumber() ? count.asNumber().longValue() : 0;
+    }
+
+    private record Started(String database, String origin, BsonDocument shape) {
+    }
+}
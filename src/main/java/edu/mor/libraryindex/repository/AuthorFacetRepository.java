@@ -0,0 +1,19 @@
+package edu.mor.libraryindex.repository;
+
+import edu.mor.libraryindex.model.AuthorFacet;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AuthorFacetRepository extends MongoRepository<AuthorFacet, String> {
+    /**
+     * Unlike {@code findAll(Pageable)} this runs no count query, the page is all that is read.
+     */
+    List<AuthorFacet> findAllBy(Pageable pageable);
+
+    List<AuthorFacet> findByAuthorIn(Collection<String> authors);
+}
@@ -1,18 +1,85 @@
 package edu.mor.libraryindex.repository;
 
+import edu.mor.libraryindex.dto.BookVersion;
 import edu.mor.libraryindex.model.Book;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends MongoRepository<Book, String> {
+    int STREAM_BATCH_SIZE = 500;
+
     List<Book> findByTitle(String title);
+    <T> List<T> findByTitle(String title, Class<T> type);
     List<Book> findByAuthors(String author);
     List<Book> findByPublishedAtBetween(LocalDateTime startDate, LocalDateTime endDate);
     List<Book> findByCreatedAtBefore(LocalDateTime date);
     List<Book> findByDescriptionContainingIgnoreCase(String keyword);
     List<Book> findByIdIn(List<String> ids);
+    Optional<BookVersion> findVersionById(String id);
+
+    /**
+     * Removes the book and returns it with only the fields that the author facets and date histogram count.
+     */
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'authors': 1, 'publishedAt': 1, 'createdAt': 1 }", delete = true)
+    Optional<Book> findAndRemoveById(String id);
+
+    /*
+     * Keyset pagination: pages are ordered by (createdAt, id), or by (publishedAt, createdAt, id) when filtered on a
+     * publishedAt range, so that an index serves the filter and the order and no page is sorted in memory. The first
+     * page of a listing is fetched with the plain finder, every following page with its "After" counterpart, which
+     * resumes strictly after the last position of the previous page instead of skipping over it. The last $or branch
+     * of an "After" query spells out its order, which is what BookIndexService checks against the indexes. The type
+     * argument selects the projection, so summary listings only read the fields they need.
+     */
+    <T> Slice<T> findAllBy(Pageable pageable, Class<T> type);
+
+    @Query("{ '$or': [ { 'createdAt': { '$gt': ?0 } }, { 'createdAt': ?0, '_id': { '$gt': ?1 } } ] }")
+    <T> Slice<T> findAllAfter(LocalDateTime createdAt, String id, Pageable pageable, Class<T> type);
+
+    <T> Slice<T> findByAuthors(String author, Pageable pageable, Class<T> type);
+
+    @Query("{ 'authors': ?0, '$or': [ { 'createdAt': { '$gt': ?1 } }, { 'createdAt': ?1, '_id': { '$gt': ?2 } } ] }")
+    <T> Slice<T> findByAuthorsAfter(String author, LocalDateTime createdAt, String id, Pageable pageable, Class<T> type);
+
+    <T> Slice<T> findByPublishedAtBetween(LocalDateTime startDate, LocalDateTime endDate, Pageable pageable, Class<T> type);
+
+    @Query("{ 'publishedAt': { '$gt': ?0, '$lt': ?1 }, '$or': [ { 'publishedAt': { '$gt': ?2 } }, { 'publishedAt': ?2, 'createdAt': { '$gt': ?3 } }, { 'publishedAt': ?2, 'createdAt': ?3, '_id': { '$gt': ?4 } } ] }")
+    <T> Slice<T> findByPublishedAtBetweenAfter(LocalDateTime startDate, LocalDateTime endDate, LocalDateTime publishedAt, LocalDateTime createdAt, String id,
+                                               Pageable pageable, Class<T> type);
+
+    <T> Slice<T> findByCreatedAtBefore(LocalDateTime date, Pageable pageable, Class<T> type);
+
+    @Query("{ 'createdAt': { '$lt': ?0 }, '$or': [ { 'createdAt': { '$gt': ?1 } }, { 'createdAt': ?1, '_id': { '$gt': ?2 } } ] }")
+    <T> Slice<T> findByCreatedAtBeforeAfter(LocalDateTime date, LocalDateTime createdAt, String id, Pageable pageable, Class<T> type);
+
+    /**
+     * Walks the whole collection through a server-side cursor, fetching {@link #STREAM_BATCH_SIZE} documents
+     * per round trip. The returned stream holds the cursor open and must be closed by the caller.
+     */
+    @Meta(cursorBatchSize = STREAM_BATCH_SIZE)
+    Stream<Book> streamAllBy();
+
+    /*
+     * Streams of the export filters, with the bounds of the finders above: createdAt strictly before, publishedAt
+     * within a range that the caller may leave open on either side.
+     */
+    @Meta(cursorBatchSize = STREAM_BATCH_SIZE)
+    Stream<Book> streamByCreatedAtBefore(LocalDateTime date);
+
+    @Meta(cursorBatchSize = STREAM_BATCH_SIZE)
+    Stream<Book> streamByPublishedAtBetween(Range<LocalDateTime> publishedAt);
+
+    @Meta(cursorBatchSize = STREAM_BATCH_SIZE)
+    Stream<Book> streamByCreatedAtBeforeAndPublishedAtBetween(LocalDateTime date, Range<LocalDateTime> publishedAt);
 }
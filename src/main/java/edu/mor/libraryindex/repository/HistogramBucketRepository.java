@@ -0,0 +1,19 @@
+package edu.mor.libraryindex.repository;
+
+import edu.mor.libraryindex.dto.HistogramCount;
+import edu.mor.libraryindex.model.HistogramBucket;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface HistogramBucketRepository extends MongoRepository<HistogramBucket, String> {
+    /**
+     * Buckets starting in {@code [from, to)} in chronological order.
+     */
+    @Query(value = "{ 'field': ?0, 'granularity': ?1, 'start': { '$gte': ?2, '$lt': ?3 } }", sort = "{ 'start': 1 }")
+    List<HistogramCount> findCounts(String field, String granularity, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,57 @@
+package edu.mor.libraryindex.repository;
+
+import edu.mor.libraryindex.dto.BookVersion;
+import edu.mor.libraryindex.model.Book;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Meta;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Non-blocking counterpart of {@link BookRepository} used by the reactive profile. Reactive repositories cannot return
+ * a {@code Slice}, so the keyset finders return the page as a {@link Flux} limited by the {@link Pageable}; callers ask
+ * for one element more than the page size to find out whether a next page exists.
+ */
+@Repository
+@Profile("reactive")
+public interface ReactiveBookRepository extends ReactiveMongoRepository<Book, String> {
+    <T> Flux<T> findByTitle(String title, Class<T> type);
+    Mono<BookVersion> findVersionById(String id);
+
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'authors': 1, 'publishedAt': 1, 'createdAt': 1 }", delete = true)
+    Mono<Book> findAndRemoveById(String id);
+
+    <T> Flux<T> findAllBy(Pageable pageable, Class<T> type);
+
+    @Query("{ '$or': [ { 'createdAt': { '$gt': ?0 } }, { 'createdAt': ?0, '_id': { '$gt': ?1 } } ] }")
+    <T> Flux<T> findAllAfter(LocalDateTime createdAt, String id, Pageable pageable, Class<T> type);
+
+    <T> Flux<T> findByAuthors(String author, Pageable pageable, Class<T> type);
+
+    @Query("{ 'authors': ?0, '$or': [ { 'createdAt': { '$gt': ?1 } }, { 'createdAt': ?1, '_id': { '$gt': ?2 } } ] }")
+    <T> Flux<T> findByAuthorsAfter(String author, LocalDateTime createdAt, String id, Pageable pageable, Class<T> type);
+
+    <T> Flux<T> findByPublishedAtBetween(LocalDateTime startDate, LocalDateTime endDate, Pageable pageable, Class<T> type);
+
+    @Query("{ 'publishedAt': { '$gt': ?0, '$lt': ?1 }, '$or': [ { 'publishedAt': { '$gt': ?2 } }, { 'publishedAt': ?2, 'createdAt': { '$gt': ?3 } }, { 'publishedAt': ?2, 'createdAt': ?3, '_id': { '$gt': ?4 } } ] }")
+    <T> Flux<T> findByPublishedAtBetweenAfter(LocalDateTime startDate, LocalDateTime endDate, LocalDateTime publishedAt, LocalDateTime createdAt, String id,
+                                               Pageable pageable, Class<T> type);
+
+    <T> Flux<T> findByCreatedAtBefore(LocalDateTime date, Pageable pageable, Class<T> type);
+
+    @Query("{ 'createdAt': { '$lt': ?0 }, '$or': [ { 'createdAt': { '$gt': ?1 } }, { 'createdAt': ?1, '_id': { '$gt': ?2 } } ] }")
+    <T> Flux<T> findByCreatedAtBeforeAfter(LocalDateTime date, LocalDateTime createdAt, String id, Pageable pageable, Class<T> type);
+
+    /**
+     * Walks the whole collection through a cursor fetching {@link BookRepository#STREAM_BATCH_SIZE} documents per
+     * round trip. Batches are only requested as the subscriber asks for more, so a slow client throttles the read.
+     */
+    @Meta(cursorBatchSize = BookRepository.STREAM_BATCH_SIZE)
+    Flux<Book> streamAllBy();
+}
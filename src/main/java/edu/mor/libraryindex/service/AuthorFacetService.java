@@ -0,0 +1,177 @@
+package edu.mor.libraryindex.service;
+
+import com.mongodb.client.model.WriteModel;
+import edu.mor.libraryindex.model.AuthorFacet;
+import edu.mor.libraryindex.model.Book;
+import edu.mor.libraryindex.repository.AuthorFacetRepository;
+import edu.mor.libraryindex.utils.CounterCollections;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+
+/**
+ * Books per author, kept in the {@code author_facets} collection. Every book write passes the change of its authors
+ * here and only the counters of the authors that were added or removed are incremented or decremented, so reading
+ * facets costs one indexed query over the authors returned whatever the size of the library. An author is counted
+ * once per book even when a book lists it twice, and its counter is dropped when it reaches zero.
+ */
+@Service
+public class AuthorFacetService {
+    public static final int MAX_FACETS = 100;
+    static final int REBUILD_BATCH_SIZE = 1000;
+    private static final Logger log = LoggerFactory.getLogger(AuthorFacetService.class);
+    private static final Sort TOP_ORDER = Sort.by(Sort.Order.desc("count"), Sort.Order.asc("author"));
+
+    private final AuthorFacetRepository authorFacetRepository;
+    private final MongoOperations mongoOperations;
+    private final boolean rebuildIfEmpty;
+
+    @Autowired
+    public AuthorFacetService(AuthorFacetRepository authorFacetRepository, MongoOperations mongoOperations,
+                              @Value("${library-index.facets.rebuild-if-empty:true}") boolean rebuildIfEmpty) {
+        this.authorFacetRepository = authorFacetRepository;
+        this.mongoOperations = mongoOperations;
+        this.rebuildIfEmpty = rebuildIfEmpty;
+    }
+
+    /**
+     * Fills the facets of a library that existed before they were maintained.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (rebuildIfEmpty && mongoOperations.estimatedCount(AuthorFacet.class) == 0 && mongoOperations.estimatedCount(Book.class) > 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Authors with the most books, ties broken by name.
+     */
+    public List<AuthorFacet> findTop(int limit) {
+        return authorFacetRepository.findAllBy(topPageable(limit));
+    }
+
+    /**
+     * Counts of the given authors, in the order asked for. Authors without books are returned with a count of zero.
+     */
+    public List<AuthorFacet> findByAuthors(List<String> authors) {
+        return inRequestedOrder(authors, authorFacetRepository.findByAuthorIn(new HashSet<>(authors)));
+    }
+
+    public void booksCreated(Collection<Book> books) {
+        apply(created(books));
+    }
+
+    public void authorsChanged(List<String> before, List<String> after) {
+        apply(diff(before, after));
+    }
+
+    void apply(Map<String, Integer> deltas) {
+        if (!deltas.isEmpty()) {
+            CounterCollections.bulkWrite(mongoOperations, AuthorFacet.class, writes(deltas));
+        }
+    }
+
+    /**
+     * Recounts every author with an aggregation over the books and replaces the stored counters, for recovery after
+     * facets went out of sync. Authors listed twice by a book are deduplicated within the book before unwinding, the
+     * aggregation may spill to disk, and its counts are streamed and written in batches, so neither the server nor
+     * the application holds the whole recount at once. Authors no longer counted are deleted without reading the
+     * stored counters, see {@link CounterCollections.Rebuild}. Book writes that land while the aggregation runs may be missed
+     * by the recount, so it is meant to run while the library is quiet. Returns the number of authors.
+     */
+    public int rebuild() {
+        Aggregation aggregation = newAggregation(
+            project().and(context -> new Document("$setUnion", List.of("$authors", List.of()))).as("authors"),
+            unwind("authors"),
+            match(Criteria.where("authors").ne(null)),
+            group("authors").count().as("count"))
+            .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        CounterCollections.Rebuild rebuild = CounterCollections.rebuild(mongoOperations, AuthorFacet.class, REBUILD_BATCH_SIZE);
+        try (Stream<AuthorFacet> counted = mongoOperations.aggregateStream(aggregation, Book.class, AuthorFacet.class)) {
+            for (Iterator<AuthorFacet> it = counted.iterator(); it.hasNext(); ) {
+                AuthorFacet facet = it.next();
+                rebuild.set(facet.getAuthor(), facet.getCount(), null);
+            }
+        }
+        int authors = rebuild.finish();
+        log.info("Author facets rebuilt with {} authors", authors);
+        return authors;
+    }
+
+    static Pageable topPageable(int limit) {
+        return PageRequest.of(0, Math.max(1, Math.min(limit, MAX_FACETS)), TOP_ORDER);
+    }
+
+    static List<AuthorFacet> inRequestedOrder(List<String> authors, Collection<AuthorFacet> found) {
+        Map<String, Long> counts = new HashMap<>();
+        found.forEach(facet -> counts.put(facet.getAuthor(), facet.getCount()));
+        List<AuthorFacet> facets = new ArrayList<>(authors.size());
+        for (String author : new LinkedHashSet<>(authors)) {
+            facets.add(new AuthorFacet(author, counts.getOrDefault(author, 0L)));
+        }
+        return facets;
+    }
+
+    /**
+     * Change of the counters when the authors of a book go from {@code before} to {@code after}; either may be null
+     * for a book that is created or deleted. Authors in both lists cancel out and are left out.
+     */
+    public static Map<String, Integer> diff(List<String> before, List<String> after) {
+        Set<String> removed = distinct(before);
+        Set<String> added = distinct(after);
+        Map<String, Integer> deltas = new TreeMap<>();
+        for (String author : added) {
+            if (!removed.remove(author)) {
+                deltas.put(author, 1);
+            }
+        }
+        removed.forEach(author -> deltas.put(author, -1));
+        return deltas;
+    }
+
+    public static Map<String, Integer> created(Collection<Book> books) {
+        Map<String, Integer> deltas = new TreeMap<>();
+        for (Book book : books) {
+            distinct(book.getAuthors()).forEach(author -> deltas.merge(author, 1, Integer::sum));
+        }
+        return deltas;
+    }
+
+    /**
+     * The counter writes of {@code deltas}, keyed by author, see {@link CounterCollections#increments}.
+     */
+    public static List<WriteModel<Document>> writes(Map<String, Integer> deltas) {
+        return CounterCollections.increments(deltas, author -> author, author -> null);
+    }
+
+    private static Set<String> distinct(List<String> authors) {
+        Set<String> distinct = new HashSet<>();
+        if (authors != null) {
+            for (String author : authors) {
+                if (author != null) {
+                    distinct.add(author);
+                }
+            }
+        }
+        return distinct;
+    }
+}
@@ -0,0 +1,119 @@
+package edu.mor.libraryindex.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import edu.mor.libraryindex.dto.BookBulkItemResult;
+import edu.mor.libraryindex.dto.BookCreateDto;
+import edu.mor.libraryindex.id.IdGenerator;
+import edu.mor.libraryindex.model.Book;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Service
+public class BookBulkService {
+    static final String MISSING_PUBLISHED_AT = "Book must have a publishedAt date!";
+
+    private final MongoOperations mongoOperations;
+    private final BookSearchService bookSearchService;
+    private final IdGenerator idGenerator;
+    private final AuthorFacetService authorFacetService;
+    private final DateHistogramService dateHistogramService;
+    private final int batchSize;
+
+    @Autowired
+    public BookBulkService(MongoOperations mongoOperations, BookSearchService bookSearchService, IdGenerator idGenerator,
+                           AuthorFacetService authorFacetService, DateHistogramService dateHistogramService,
+                           @Value("${library-index.bulk.batch-size:1000}") int batchSize) {
+        this.mongoOperations = mongoOperations;
+        this.bookSearchService = bookSearchService;
+        this.idGenerator = idGenerator;
+        this.authorFacetService = authorFacetService;
+        this.dateHistogramService = dateHistogramService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Creates the books in batches of {@code library-index.bulk.batch-size}, each written as one unordered bulk
+     * insert, so a rejected document does not stop the rest of its batch. Returns one result per input, in input order.
+     */
+    public List<BookBulkItemResult> createAll(List<BookCreateDto> dtos) {
+        BookBulkItemResult[] results = new BookBulkItemResult[dtos.size()];
+        List<Book> batch = new ArrayList<>(Math.min(batchSize, dtos.size()));
+        List<Integer> batchIndexes = new ArrayList<>(Math.min(batchSize, dtos.size()));
+
+        for (int i : accepted(dtos, results)) {
+            BookCreateDto dto = dtos.get(i);
+            batch.add(new Book(idGenerator.nextId(), dto.title(), dto.description(), dto.authors(), dto.publishedAt()));
+            batchIndexes.add(i);
+            if (batch.size() == batchSize) {
+                insertBatch(batch, batchIndexes, results);
+                batch.clear();
+                batchIndexes.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertBatch(batch, batchIndexes, results);
+        }
+        return Arrays.asList(results);
+    }
+
+    private void insertBatch(List<Book> batch, List<Integer> batchIndexes, BookBulkItemResult[] results) {
+        try {
+            mongoOperations.bulkOps(BulkMode.UNORDERED, Book.class).insert(batch).execute();
+        } catch (BulkOperationException e) {
+            failed(e.getErrors(), batchIndexes, results);
+        }
+        List<Book> created = created(batch, batchIndexes, results);
+        bookSearchService.indexAll(created);
+        authorFacetService.booksCreated(created);
+        dateHistogramService.booksCreated(created);
+    }
+
+    /**
+     * Fails the inputs that cannot be inserted and returns the indexes of the others, in input order.
+     */
+    static List<Integer> accepted(List<BookCreateDto> dtos, BookBulkItemResult[] results) {
+        List<Integer> accepted = new ArrayList<>(dtos.size());
+        for (int i = 0; i < dtos.size(); i++) {
+            BookCreateDto dto = dtos.get(i);
+            if (dto == null || dto.publishedAt() == null) {
+                results[i] = BookBulkItemResult.failed(i, MISSING_PUBLISHED_AT);
+            } else {
+                accepted.add(i);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Fails the inputs rejected by the bulk insert of a batch; an error's index is its position in the batch.
+     */
+    static void failed(List<BulkWriteError> errors, List<Integer> batchIndexes, BookBulkItemResult[] results) {
+        for (BulkWriteError error : errors) {
+            int index = batchIndexes.get(error.getIndex());
+            results[index] = BookBulkItemResult.failed(index, error.getMessage());
+        }
+    }
+
+    /**
+     * Marks every book of the batch that did not fail as created and returns them.
+     */
+    static List<Book> created(List<Book> batch, List<Integer> batchIndexes, BookBulkItemResult[] results) {
+        List<Book> created = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            int index = batchIndexes.get(i);
+            if (results[index] == null) {
+                results[index] = BookBulkItemResult.created(index, batch.get(i).getId());
+                created.add(batch.get(i));
+            }
+        }
+        return created;
+    }
+}
@@ -0,0 +1,146 @@
+package edu.mor.libraryindex.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import edu.mor.libraryindex.dto.BookExportFile;
+import edu.mor.libraryindex.model.Book;
+import edu.mor.libraryindex.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Range.Bound;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports the books as gzip compressed NDJSON. Documents come from a server-side cursor and every book is serialized
+ * straight into the deflater, which writes into the response or a file, so memory stays at one cursor batch and the
+ * compression buffers whatever the size of the collection. The filters are the streaming queries of
+ * {@link BookRepository}: {@code createdAt} strictly before, {@code publishedAt} strictly between.
+ */
+@Service
+public class BookExportService {
+    public static final String FILE_SUFFIX = ".ndjson.gz";
+    private static final Logger log = LoggerFactory.getLogger(BookExportService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    private final BookRepository bookRepository;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter bookWriter;
+    private final String directory;
+    private final Clock clock;
+
+    @Autowired
+    public BookExportService(BookRepository bookRepository, ObjectMapper objectMapper,
+                             @Value("${library-index.export.directory:exports}") String directory) {
+        this(bookRepository, objectMapper, directory, Clock.systemDefaultZone());
+    }
+
+    BookExportService(BookRepository bookRepository, ObjectMapper objectMapper, String directory, Clock clock) {
+        this.bookRepository = bookRepository;
+        this.objectMapper = objectMapper;
+        this.bookWriter = objectMapper.writerFor(Book.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.directory = directory;
+        this.clock = clock;
+    }
+
+    /**
+     * Writes the matching books to {@code output} and finishes the gzip stream, leaving {@code output} open. Any
+     * filter may be null. Returns the number of books written.
+     */
+    public long export(OutputStream output, LocalDateTime createdBefore, LocalDateTime publishedFrom, LocalDateTime publishedTo)
+        throws IOException {
+        long count = 0;
+        try (Stream<Book> books = books(createdBefore, publishedFrom, publishedTo)) {
+            GZIPOutputStream gzip = new GZIPOutputStream(output, BUFFER_SIZE);
+            try (JsonGenerator generator = objectMapper.createGenerator(gzip).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                generator.setRootValueSeparator(null);
+                for (Book book : (Iterable<Book>) books::iterator) {
+                    bookWriter.writeValue(generator, book);
+                    generator.writeRaw('\n');
+                    count++;
+                }
+            }
+            gzip.finish();
+        }
+        return count;
+    }
+
+    /**
+     * Exports every book to a new file of {@code library-index.export.directory}. The file is written under a
+     * temporary name, forced to disk and moved in place once complete, so a file with the export suffix is never
+     * partial.
+     */
+    public BookExportFile exportToFile() throws IOException {
+        long started = System.nanoTime();
+        Path target = Path.of(directory).resolve("books-" + LocalDateTime.now(clock).format(FILE_TIMESTAMP) + FILE_SUFFIX);
+        Files.createDirectories(target.getParent());
+        Path partial = target.resolveSibling(target.getFileName() + ".partial");
+        long count;
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             OutputStream output = Channels.newOutputStream(channel)) {
+            count = export(output, null, null, null);
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+        BookExportFile file = new BookExportFile(target.toString(), count, Files.size(target),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        log.info("Exported {} books to {} ({} bytes) in {} ms", file.books(), file.path(), file.bytes(), file.elapsedMillis());
+        return file;
+    }
+
+    /**
+     * Daily export job, run on the {@code library-index.export.cron} schedule. It is off unless a schedule is set.
+     */
+    @Scheduled(cron = "${library-index.export.cron:-}")
+    public void scheduledExport() {
+        try {
+            exportToFile();
+        } catch (IOException | RuntimeException e) {
+            log.error("Scheduled book export failed", e);
+        }
+    }
+
+    /**
+     * The matching books, from the repository query of the filters that are set. The range is checked first, so an
+     * empty one is rejected before anything is written.
+     */
+    Stream<Book> books(LocalDateTime createdBefore, LocalDateTime publishedFrom, LocalDateTime publishedTo) {
+        if (publishedFrom != null && publishedTo != null && !publishedFrom.isBefore(publishedTo)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Export publishedAt range must end after it starts!");
+        }
+        if (publishedFrom == null && publishedTo == null) {
+            return createdBefore == null ? bookRepository.streamAllBy() : bookRepository.streamByCreatedAtBefore(createdBefore);
+        }
+        Range<LocalDateTime> publishedAt = Range.of(publishedFrom == null ? Bound.unbounded() : Bound.exclusive(publishedFrom),
+            publishedTo == null ? Bound.unbounded() : Bound.exclusive(publishedTo));
+        return createdBefore == null
+            ? bookRepository.streamByPublishedAtBetween(publishedAt)
+            : bookRepository.streamByCreatedAtBeforeAndPublishedAtBetween(createdBefore, publishedAt);
+    }
+}
@@ -0,0 +1,198 @@
+package edu.mor.libraryindex.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.mor.libraryindex.dto.BookBulkItemResult;
+import edu.mor.libraryindex.dto.BookCreateDto;
+import edu.mor.libraryindex.dto.CatalogImportError;
+import edu.mor.libraryindex.dto.CatalogImportReport;
+import edu.mor.libraryindex.importer.CatalogFormat;
+import edu.mor.libraryindex.importer.CatalogReader;
+import edu.mor.libraryindex.importer.CatalogRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Imports catalog files of any size. Each import starts a parser thread of its own, which reads the file row by row
+ * into batches of {@code library-index.bulk.batch-size} and hands them over a queue of
+ * {@code library-index.import.queue-capacity} batches to the calling thread, which writes each one through {@link BookBulkService}. When the writes fall behind the
+ * queue fills and the parser waits, so at most the queued batches are held in memory and parsing overlaps writing.
+ */
+@Service
+public class BookImportService {
+    private static final Logger log = LoggerFactory.getLogger(BookImportService.class);
+    private static final List<CatalogRow> END_OF_FILE = List.of();
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+    private static final long PROGRESS_LOG_INTERVAL = 100_000;
+
+    private final BookBulkService bookBulkService;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final int maxReportedErrors;
+
+    @Autowired
+    public BookImportService(BookBulkService bookBulkService, ObjectMapper objectMapper,
+                             @Value("${library-index.bulk.batch-size:1000}") int batchSize,
+                             @Value("${library-index.import.queue-capacity:4}") int queueCapacity,
+                             @Value("${library-index.import.max-reported-errors:100}") int maxReportedErrors) {
+        this.bookBulkService = bookBulkService;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Creates the books of the catalog from row {@code offset} on. Rows before it are skipped without being parsed,
+     * which resumes an import from the checkpoint of its report. A failed write or an unreadable file aborts the import
+     * instead of throwing, the report then holds the checkpoint reached.
+     */
+    public CatalogImportReport importCatalog(InputStream input, CatalogFormat format, long offset) {
+        if (offset < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Import offset must not be negative!");
+        }
+        long started = System.nanoTime();
+        BlockingQueue<List<CatalogRow>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicReference<Exception> parseFailure = new AtomicReference<>();
+        CountDownLatch parsed = new CountDownLatch(1);
+        // Not a pooled thread: the import would otherwise wait on a parser queued behind the streaming responses
+        Thread parser = new Thread(() -> parse(CatalogReader.open(format, input, objectMapper), offset, queue, cancelled,
+            parseFailure, parsed), "catalog-import-parser");
+        parser.setDaemon(true);
+        parser.start();
+
+        long checkpoint = offset;
+        long created = 0;
+        long failed = 0;
+        List<CatalogImportError> errors = new ArrayList<>();
+        String abortedBy = null;
+        try {
+            for (List<CatalogRow> batch = queue.take(); batch != END_OF_FILE; batch = queue.take()) {
+                List<CatalogRow> readable = new ArrayList<>(batch.size());
+                List<BookCreateDto> books = new ArrayList<>(batch.size());
+                for (CatalogRow row : batch) {
+                    if (row.error() != null) {
+                        failed++;
+                        report(errors, row.number(), row.error());
+                    } else {
+                        readable.add(row);
+                        books.add(row.book());
+                    }
+                }
+                List<BookBulkItemResult> results = books.isEmpty() ? List.of() : bookBulkService.createAll(books);
+                for (BookBulkItemResult result : results) {
+                    if (result.status() == BookBulkItemResult.Status.CREATED) {
+                        created++;
+                    } else {
+                        failed++;
+                        report(errors, readable.get(result.index()).number(), result.error());
+                    }
+                }
+                long previous = checkpoint;
+                checkpoint = batch.get(batch.size() - 1).number() + 1;
+                if (checkpoint / PROGRESS_LOG_INTERVAL != previous / PROGRESS_LOG_INTERVAL) {
+                    log.info("Catalog import at row {}, {} rows/s", checkpoint, rowsPerSecond(checkpoint - offset, started));
+                }
+            }
+            Exception failure = parseFailure.get();
+            if (failure != null) {
+                abortedBy = failure.getMessage();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abortedBy = "Import was interrupted!";
+        } catch (RuntimeException e) {
+            log.warn("Catalog import aborted at row {}", checkpoint, e);
+            abortedBy = e.getMessage();
+        } finally {
+            cancelled.set(true);
+            awaitParser(parsed);
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        log.info("Catalog import from row {} to {}: {} created, {} failed in {} ms{}", offset, checkpoint, created, failed,
+            elapsedMillis, abortedBy == null ? "" : ", aborted by " + abortedBy);
+        return new CatalogImportReport(offset, checkpoint, created, failed, elapsedMillis,
+            rowsPerSecond(checkpoint - offset, started), errors, abortedBy);
+    }
+
+    private void parse(CatalogReader reader, long offset, BlockingQueue<List<CatalogRow>> queue, AtomicBoolean cancelled,
+                       AtomicReference<Exception> failure, CountDownLatch parsed) {
+        try (reader) {
+            reader.skip(offset);
+            List<CatalogRow> batch = new ArrayList<>(batchSize);
+            for (CatalogRow row = reader.next(); row != null; row = reader.next()) {
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    if (!enqueue(queue, batch, cancelled)) {
+                        return;
+                    }
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                enqueue(queue, batch, cancelled);
+            }
+        } catch (IOException | RuntimeException e) {
+            failure.set(e);
+        } finally {
+            enqueue(queue, END_OF_FILE, cancelled);
+            parsed.countDown();
+        }
+    }
+
+    /**
+     * Waits for room in the queue, giving up once the writing side is gone.
+     */
+    private static boolean enqueue(BlockingQueue<List<CatalogRow>> queue, List<CatalogRow> batch, AtomicBoolean cancelled) {
+        try {
+            while (!cancelled.get()) {
+                if (queue.offer(batch, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * The parser reads from the request body, which must not be touched once the request is answered.
+     */
+    private static void awaitParser(CountDownLatch parsed) {
+        try {
+            parsed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void report(List<CatalogImportError> errors, long row, String error) {
+        if (errors.size() < maxReportedErrors) {
+            errors.add(new CatalogImportError(row, error));
+        }
+    }
+
+    private static double rowsPerSecond(long rows, long startedNanos) {
+        long elapsed = System.nanoTime() - startedNanos;
+        return elapsed == 0 ? 0 : rows * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+}
@@ -0,0 +1,180 @@
+package edu.mor.libraryindex.service;
+
+import edu.mor.libraryindex.model.AuthorFacet;
+import edu.mor.libraryindex.model.Book;
+import edu.mor.libraryindex.model.HistogramBucket;
+import edu.mor.libraryindex.repository.BookRepository;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * Creates the indexes declared on {@link Book} and on the collections derived from it when the application starts
+ * and checks that every query method of {@link BookRepository} filters on at least one field that leads an index, so
+ * that no query silently turns into a collection scan, and that every keyset query is returned in its order by an
+ * index, so that no page turns into an in-memory sort of all matches.
+ */
+@Service
+public class BookIndexService {
+    private static final Logger log = LoggerFactory.getLogger(BookIndexService.class);
+    private static final List<Class<?>> INDEXED_TYPES = List.of(Book.class, AuthorFacet.class, HistogramBucket.class);
+
+    private final MongoOperations mongoOperations;
+    private final MongoMappingContext mappingContext;
+    private final boolean failOnMissingIndex;
+    private final Set<String> ignoredMethods;
+
+    @Autowired
+    public BookIndexService(MongoOperations mongoOperations, MongoMappingContext mappingContext,
+                            @Value("${library-index.indexes.fail-on-missing:false}") boolean failOnMissingIndex,
+                            @Value("${library-index.indexes.ignored-methods:}") List<String> ignoredMethods) {
+        this.mongoOperations = mongoOperations;
+        this.mappingContext = mappingContext;
+        this.failOnMissingIndex = failOnMissingIndex;
+        this.ignoredMethods = new HashSet<>(ignoredMethods);
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void onContextRefreshed() {
+        ensureIndexes();
+        verifyIndexes();
+    }
+
+    public void ensureIndexes() {
+        MongoPersistentEntityIndexResolver indexResolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        for (Class<?> type : INDEXED_TYPES) {
+            IndexOperations indexOperations = mongoOperations.indexOps(type);
+            indexResolver.resolveIndexFor(type).forEach(indexOperations::ensureIndex);
+        }
+    }
+
+    public void verifyIndexes() {
+        List<String> unsupported = findUnsupportedQueryMethods(mongoOperations.indexOps(Book.class).getIndexInfo());
+        if (unsupported.isEmpty()) {
+            log.info("Every BookRepository query method is supported by an index");
+            return;
+        }
+        String message = "BookRepository query methods without a supporting index: " + String.join(", ", unsupported);
+        if (failOnMissingIndex) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+
+    List<String> findUnsupportedQueryMethods(List<IndexInfo> indexes) {
+        Set<String> leadingFields = new HashSet<>();
+        leadingFields.add("_id");
+        List<List<String>> indexKeys = new ArrayList<>();
+        for (IndexInfo index : indexes) {
+            leadingFields.add(index.getIndexFields().get(0).getKey());
+            indexKeys.add(index.getIndexFields().stream().map(IndexField::getKey).toList());
+        }
+
+        List<String> unsupported = new ArrayList<>();
+        for (Method method : BookRepository.class.getDeclaredMethods()) {
+            if (method.isDefault() || method.isSynthetic() || ignoredMethods.contains(method.getName())) {
+                continue;
+            }
+            Set<String> filterFields = filterFields(method);
+            if (!filterFields.isEmpty() && Collections.disjoint(filterFields, leadingFields)) {
+                unsupported.add(method.getName() + filterFields);
+                continue;
+            }
+            Query query = method.getAnnotation(Query.class);
+            Document filter = query == null ? new Document() : parse(query);
+            List<String> order = keysetOrder(filter);
+            if (!order.isEmpty() && indexKeys.stream().noneMatch(keys -> coversOrder(keys, filter, order))) {
+                unsupported.add(method.getName() + filterFields + " ordered by " + order);
+            }
+        }
+        Collections.sort(unsupported);
+        return unsupported;
+    }
+
+    /**
+     * Order of a keyset query, spelled out by the fields of the last branch of its {@code $or}: ties on the earlier
+     * fields are broken by the later ones, the last of which is compared with {@code $gt}. Empty for other queries.
+     */
+    static List<String> keysetOrder(Document filter) {
+        List<Document> branches = filter.getList("$or", Document.class, Collections.emptyList());
+        if (branches.isEmpty()) {
+            return List.of();
+        }
+        List<String> order = List.copyOf(branches.get(branches.size() - 1).keySet());
+        Object last = branches.get(branches.size() - 1).get(order.get(order.size() - 1));
+        return last instanceof Document ? order : List.of();
+    }
+
+    /**
+     * Whether walking the index returns the matches of the filter in the given order, so that a page is read without
+     * sorting every match in memory: the fields the filter compares for equality come first, in any order, followed
+     * by the order. A range on any other field than the first of the order must be on a field after it.
+     */
+    static boolean coversOrder(List<String> indexKeys, Document filter, List<String> order) {
+        Set<String> equalities = new HashSet<>();
+        Set<String> ranges = new HashSet<>();
+        filter.forEach((field, value) -> {
+            if (!field.startsWith("$")) {
+                (value instanceof Document ? ranges : equalities).add(field);
+            }
+        });
+        int orderStart = equalities.size();
+        if (indexKeys.size() < orderStart + order.size()
+            || !equalities.equals(new HashSet<>(indexKeys.subList(0, orderStart)))
+            || !order.equals(indexKeys.subList(orderStart, orderStart + order.size()))) {
+            return false;
+        }
+        for (String range : ranges) {
+            if (!range.equals(order.get(0)) && indexKeys.indexOf(range) < orderStart + order.size()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fields a query method filters on. For string queries these are the top-level fields, or the fields of the
+     * {@code $or} branches when there are none; for derived queries the properties of the method name.
+     * Methods without criteria read the whole collection on purpose and yield an empty set.
+     */
+    private Set<String> filterFields(Method method) {
+        Set<String> fields = new TreeSet<>();
+        Query query = method.getAnnotation(Query.class);
+        if (query != null) {
+            Document filter = parse(query);
+            filter.keySet().stream().filter(key -> !key.startsWith("$")).forEach(fields::add);
+            if (fields.isEmpty()) {
+                for (Object branch : filter.getList("$or", Document.class, Collections.emptyList())) {
+                    fields.addAll(((Document) branch).keySet());
+                }
+            }
+            return fields;
+        }
+        for (Part part : new PartTree(method.getName(), Book.class).getParts()) {
+            fields.add(mappingContext.getPersistentPropertyPath(part.getProperty()).toDotPath(MongoPersistentProperty::getFieldName));
+        }
+        return fields;
+    }
+
+    private static Document parse(Query query) {
+        return Document.parse(query.value().replaceAll("\\?\\d+", "null"));
+    }
+}
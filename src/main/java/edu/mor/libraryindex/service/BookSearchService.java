@@ -0,0 +1,283 @@
+package edu.mor.libraryindex.service;
+
+import edu.mor.libraryindex.dto.BookSearchResult;
+import edu.mor.libraryindex.model.Book;
+import edu.mor.libraryindex.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-process inverted index over book titles and descriptions. Every term maps to the ids of the books containing it
+ * together with a per-book weight, so a keyword search only touches the postings of the query terms and its cost does
+ * not depend on the size of the collection.
+ */
+@Service
+public class BookSearchService {
+    public static final int MAX_RESULTS = 100;
+    private static final Logger log = LoggerFactory.getLogger(BookSearchService.class);
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it", "of", "on", "or", "that",
+        "the", "to", "with");
+
+    private final BookRepository bookRepository;
+    private final boolean stemming;
+    private final boolean rebuildOnStartup;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Map<String, Integer>> postings = new HashMap<>();
+    private final Map<String, Set<String>> termsByBook = new HashMap<>();
+    // Ids written through the service while a rebuild is running, their cursor copy may be stale and is skipped.
+    // Guarded by the write lock, like the index, so a write cannot slip between the check and the put of a rebuild.
+    private Set<String> changedDuringRebuild;
+
+    @Autowired
+    public BookSearchService(BookRepository bookRepository,
+                             @Value("${library-index.search.stemming:true}") boolean stemming,
+                             @Value("${library-index.search.rebuild-on-startup:true}") boolean rebuildOnStartup) {
+        this.bookRepository = bookRepository;
+        this.stemming = stemming;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (rebuildOnStartup) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Drops the index and re-reads the collection through a cursor, indexing one book at a time so that searches
+     * and writes keep being served (on a partial index) while the rebuild runs.
+     */
+    public void rebuild() {
+        Set<String> changed = new HashSet<>();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            termsByBook.clear();
+            changedDuringRebuild = changed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long indexed = 0;
+        try (Stream<Book> books = bookRepository.streamAllBy()) {
+            for (Iterator<Book> iterator = books.iterator(); iterator.hasNext(); ) {
+                if (putIfUnchanged(iterator.next(), changed)) {
+                    indexed++;
+                }
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Search index rebuilt with {} books", indexed);
+    }
+
+    public void index(Book book) {
+        Map<String, Integer> weights = weights(book);
+        lock.writeLock().lock();
+        try {
+            markChanged(book.getId());
+            putUnlocked(book.getId(), weights);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void indexAll(Collection<Book> books) {
+        books.forEach(this::index);
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            markChanged(id);
+            removeUnlocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks books by a TF-IDF score of the query terms found in their title (weighted higher) and description.
+     */
+    public List<BookSearchResult> search(String query, int limit) {
+        List<Map.Entry<String, Double>> ranked = rankTop(query, limit);
+        if (ranked.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> ids = ranked.stream().map(Map.Entry::getKey).collect(Collectors.toList());
+        return toResults(ranked, bookRepository.findByIdIn(ids));
+    }
+
+    List<Map.Entry<String, Double>> rankTop(String query, int limit) {
+        return rank(query, Math.max(1, Math.min(limit, MAX_RESULTS)));
+    }
+
+    /**
+     * Pairs the ranked ids with the loaded books, keeping the ranking order and dropping ids that were deleted
+     * in the meantime.
+     */
+    static List<BookSearchResult> toResults(List<Map.Entry<String, Double>> ranked, Collection<Book> loaded) {
+        Map<String, Book> books = loaded.stream().collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<BookSearchResult> results = new ArrayList<>(ranked.size());
+        for (Map.Entry<String, Double> entry : ranked) {
+            Book book = books.get(entry.getKey());
+            if (book != null) {
+                results.add(new BookSearchResult(book, entry.getValue()));
+            }
+        }
+        return results;
+    }
+
+    List<Map.Entry<String, Double>> rank(String query, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(tokenize(query));
+        Map<String, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = termsByBook.size();
+            for (String term : queryTerms) {
+                Map<String, Integer> termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (double) documentCount / termPostings.size());
+                termPostings.forEach((id, weight) -> scores.merge(id, (1 + Math.log(weight)) * idf, Double::sum));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        PriorityQueue<Map.Entry<String, Double>> top = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<String, Double> entry : scores.entrySet()) {
+            top.offer(entry);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Map.Entry<String, Double>> ranked = new ArrayList<>(top);
+        ranked.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+        return ranked;
+    }
+
+    List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> terms = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                String term = text.substring(start, i).toLowerCase(Locale.ROOT);
+                if (term.length() >= MIN_TERM_LENGTH && !STOP_WORDS.contains(term)) {
+                    terms.add(stemming ? stem(term) : term);
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Light suffix stripping for English plurals and verb forms, enough to match "guides" with "guide" or
+     * "programming" with "program" without a dictionary.
+     */
+    static String stem(String term) {
+        if (term.length() > 4 && term.endsWith("ies")) {
+            return term.substring(0, term.length() - 3) + "y";
+        }
+        if (term.length() > 5 && term.endsWith("ing")) {
+            return undouble(term.substring(0, term.length() - 3));
+        }
+        if (term.length() > 4 && term.endsWith("ed")) {
+            return undouble(term.substring(0, term.length() - 2));
+        }
+        if (term.length() > 3 && term.endsWith("s") && !term.endsWith("ss") && !term.endsWith("us")) {
+            return term.substring(0, term.length() - 1);
+        }
+        return term;
+    }
+
+    private static String undouble(String stem) {
+        int length = stem.length();
+        char last = stem.charAt(length - 1);
+        if (length > 2 && last == stem.charAt(length - 2) && last != 'l' && last != 's' && last != 'z') {
+            return stem.substring(0, length - 1);
+        }
+        return stem;
+    }
+
+    /**
+     * Indexes the cursor copy of a book unless the book was written or removed since the rebuild started.
+     */
+    private boolean putIfUnchanged(Book book, Set<String> changed) {
+        Map<String, Integer> weights = weights(book);
+        lock.writeLock().lock();
+        try {
+            if (changed.contains(book.getId())) {
+                return false;
+            }
+            putUnlocked(book.getId(), weights);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Map<String, Integer> weights(Book book) {
+        Map<String, Integer> weights = new HashMap<>();
+        tokenize(book.getTitle()).forEach(term -> weights.merge(term, TITLE_WEIGHT, Integer::sum));
+        tokenize(book.getDescription()).forEach(term -> weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum));
+        return weights;
+    }
+
+    private void putUnlocked(String id, Map<String, Integer> weights) {
+        removeUnlocked(id);
+        weights.forEach((term, weight) -> postings.computeIfAbsent(term, key -> new HashMap<>()).put(id, weight));
+        termsByBook.put(id, weights.keySet());
+    }
+
+    private void removeUnlocked(String id) {
+        Set<String> terms = termsByBook.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<String, Integer> termPostings = postings.get(term);
+            termPostings.remove(id);
+            if (termPostings.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private void markChanged(String id) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(id);
+        }
+    }
+}
@@ -1,31 +1,131 @@
 package edu.mor.libraryindex.service;
 
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import edu.mor.libraryindex.concurrent.GroupCommitBuffer;
+import edu.mor.libraryindex.concurrent.SingleFlight;
 import edu.mor.libraryindex.dto.BookCreateDto;
+import edu.mor.libraryindex.dto.BookSummary;
+import edu.mor.libraryindex.dto.BookVersion;
+import edu.mor.libraryindex.dto.CursorPage;
+import edu.mor.libraryindex.dto.PageToken;
+import edu.mor.libraryindex.id.IdGenerator;
 import edu.mor.libraryindex.model.Book;
 import edu.mor.libraryindex.repository.BookRepository;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 public class BookService {
+    public static final String BOOKS_CACHE = "books";
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final Sort KEYSET_ORDER = Sort.by("createdAt", "id");
+    private static final Sort PUBLISHED_KEYSET_ORDER = Sort.by("publishedAt", "createdAt", "id");
+
     private final BookRepository bookRepository;
+    private final MongoOperations mongoOperations;
+    private final BookSearchService bookSearchService;
+    private final IdGenerator idGenerator;
+    private final CacheManager cacheManager;
+    private final AuthorFacetService authorFacetService;
+    private final DateHistogramService dateHistogramService;
+    private final GroupCommitBuffer<Book> createBuffer;
+    private final SingleFlight<String, Book> bookLoads = new SingleFlight<>();
 
+    /**
+     * With {@code library-index.group-commit.enabled}, concurrent creates are inserted together, see
+     * {@link GroupCommitBuffer}.
+     */
     @Autowired
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository, MongoOperations mongoOperations, BookSearchService bookSearchService,
+                       IdGenerator idGenerator, CacheManager cacheManager, AuthorFacetService authorFacetService,
+                       DateHistogramService dateHistogramService,
+                       @Value("${library-index.group-commit.enabled:false}") boolean groupCommit,
+                       @Value("${library-index.group-commit.max-batch-size:100}") int groupCommitBatchSize,
+                       @Value("${library-index.group-commit.max-delay:2ms}") Duration groupCommitDelay) {
         this.bookRepository = bookRepository;
+        this.mongoOperations = mongoOperations;
+        this.bookSearchService = bookSearchService;
+        this.idGenerator = idGenerator;
+        this.cacheManager = cacheManager;
+        this.authorFacetService = authorFacetService;
+        this.dateHistogramService = dateHistogramService;
+        this.createBuffer = groupCommit
+            ? new GroupCommitBuffer<>("book-group-commit", groupCommitBatchSize, groupCommitDelay, this::insertCreated)
+            : null;
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (createBuffer != null) {
+            createBuffer.close();
+        }
     }
 
     public List<Book> getAll() {
         return this.bookRepository.findAll();
     }
 
+    public void streamAll(Consumer<Book> consumer) {
+        try (Stream<Book> books = this.bookRepository.streamAllBy()) {
+            books.forEach(consumer);
+        }
+    }
+
+    /**
+     * Book from the books cache, or loaded and cached on a miss. Misses for the same id that overlap, such as the burst
+     * after a popular book expires, share one query, and only the caller that ran it writes the cache. The cache is
+     * written by hand rather than through {@code @Cacheable} so that a load overtaken by an update or a delete is
+     * returned to its callers but not cached over the write, see {@link SingleFlight#forget}.
+     */
     public Book findById(String id) {
+        Cache cache = cacheManager.getCache(BOOKS_CACHE);
+        Book cached = cache == null ? null : cache.get(id, Book.class);
+        if (cached != null) {
+            return cached;
+        }
+        return bookLoads.execute(id, () -> load(id), book -> {
+            if (cache != null) {
+                cache.put(id, book);
+            }
+        });
+    }
+
+    private Book load(String id) {
         Optional<Book> book = bookRepository.findById(id);
         if (book.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Book with specified id not found!");
@@ -33,30 +133,95 @@ public class BookService {
         return book.get();
     }
 
+    /**
+     * Version of the book, taken from the books cache when it holds the book and otherwise read through a projection
+     * on the id and version, so that a conditional read which turns out unmodified never loads the document.
+     */
+    public long findVersionById(String id) {
+        Cache cache = cacheManager.getCache(BOOKS_CACHE);
+        Book cached = cache == null ? null : cache.get(id, Book.class);
+        if (cached != null) {
+            return cached.getVersion();
+        }
+        Optional<BookVersion> version = bookRepository.findVersionById(id);
+        if (version.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Book with specified id not found!");
+        }
+        return version.get().version();
+    }
+
+    @CachePut(cacheNames = BOOKS_CACHE, key = "#result.id")
     public Book create(BookCreateDto dto) {
-        Book book = new Book(dto.title(), dto.description(), dto.authors(), dto.publishedAt());
-        return bookRepository.save(book);
+        Book book = new Book(idGenerator.nextId(), dto.title(), dto.description(), dto.authors(), dto.publishedAt());
+        if (createBuffer != null) {
+            createBuffer.submit(book);
+            return book;
+        }
+        book = bookRepository.save(book);
+        bookSearchService.index(book);
+        authorFacetService.authorsChanged(null, book.getAuthors());
+        dateHistogramService.booksCreated(List.of(book));
+        return book;
     }
 
+    /**
+     * Applies {@code dto} in one atomic write. The updated book is cached unless the cache already holds a later version,
+     * since two updates of the same book may return in the opposite order of their writes.
+     */
     public Book update(String id, BookCreateDto dto) {
-        Optional<Book> existingBook = bookRepository.findById(id);
-        if (existingBook.isEmpty()) {
+        // The previous state is returned so that the response is built exactly like a read-modify-write would build it
+        Book book = mongoOperations.findAndModify(byId(id), updateOf(dto), FindAndModifyOptions.options().returnNew(false), Book.class);
+        bookLoads.forget(id);
+        if (book == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Book with specified id not found!");
         }
-        Book book = existingBook.get();
-        book.setTitle(dto.title());
-        book.setDescription(dto.description());
-        book.setAuthors(dto.authors());
-        book.setPublishedAt(dto.publishedAt());
-        return bookRepository.save(book);
+        List<String> previousAuthors = book.getAuthors();
+        LocalDateTime previousPublishedAt = book.getPublishedAt();
+        applyUpdate(book, dto);
+        bookSearchService.index(book);
+        authorFacetService.authorsChanged(previousAuthors, book.getAuthors());
+        dateHistogramService.publishedAtChanged(previousPublishedAt, book.getPublishedAt());
+        cacheUnlessOlder(id, book);
+        return book;
     }
 
+    private void cacheUnlessOlder(String id, Book book) {
+        Cache cache = cacheManager.getCache(BOOKS_CACHE);
+        if (cache == null) {
+            return;
+        }
+        ConcurrentMap<Object, Object> entries = entriesOf(cache);
+        if (entries == null) {
+            // Versions cannot be compared atomically, so the next read loads the book instead
+            cache.evict(id);
+            return;
+        }
+        entries.merge(id, book, (cached, updated) ->
+            cached instanceof Book cachedBook && cachedBook.getVersion() > book.getVersion() ? cached : updated);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<Object, Object> entriesOf(Cache cache) {
+        Object nativeCache = cache.getNativeCache();
+        if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+            return (ConcurrentMap<Object, Object>) caffeine.asMap();
+        }
+        if (nativeCache instanceof ConcurrentMap<?, ?> map) {
+            return (ConcurrentMap<Object, Object>) map;
+        }
+        return null;
+    }
+
+    @CacheEvict(cacheNames = BOOKS_CACHE, key = "#id")
     public String deleteById(String id) {
-        Optional<Book> existingBook = bookRepository.findById(id);
-        if (existingBook.isEmpty()) {
+        Optional<Book> removed = bookRepository.findAndRemoveById(id);
+        bookLoads.forget(id);
+        if (removed.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Book with specified id not found!");
         }
-        bookRepository.deleteById(id);
+        bookSearchService.remove(id);
+        authorFacetService.authorsChanged(removed.get().getAuthors(), null);
+        dateHistogramService.bookDeleted(removed.get());
         return id;
     }
 
@@ -83,4 +248,184 @@ public class BookService {
     public List<Book> findByIds(List<String> ids) {
         return this.bookRepository.findByIdIn(ids);
     }
+
+    public CursorPage<Book> getPage(String after, int size) {
+        return getPage(after, size, Book.class, BookService::positionOf);
+    }
+
+    public CursorPage<BookSummary> getSummaryPage(String after, int size) {
+        return getPage(after, size, BookSummary.class, BookService::positionOf);
+    }
+
+    public CursorPage<Book> findByAuthors(String author, String after, int size) {
+        return findByAuthors(author, after, size, Book.class, BookService::positionOf);
+    }
+
+    public CursorPage<BookSummary> findSummariesByAuthors(String author, String after, int size) {
+        return findByAuthors(author, after, size, BookSummary.class, BookService::positionOf);
+    }
+
+    public CursorPage<Book> findByPublishedBetween(LocalDateTime startDate, LocalDateTime endDate, String after, int size) {
+        return findByPublishedBetween(startDate, endDate, after, size, Book.class, BookService::publishedPositionOf);
+    }
+
+    public CursorPage<BookSummary> findSummariesByPublishedBetween(LocalDateTime startDate, LocalDateTime endDate, String after, int size) {
+        return findByPublishedBetween(startDate, endDate, after, size, BookSummary.class, BookService::publishedPositionOf);
+    }
+
+    public CursorPage<Book> findByCreatedBefore(LocalDateTime date, String after, int size) {
+        Pageable pageable = keysetPageable(size);
+        PageToken token = decodeToken(after);
+        Slice<Book> slice = token == null
+            ? this.bookRepository.findByCreatedAtBefore(date, pageable, Book.class)
+            : this.bookRepository.findByCreatedAtBeforeAfter(date, token.createdAt(), token.id(), pageable, Book.class);
+        return toPage(slice, BookService::positionOf);
+    }
+
+    public List<BookSummary> findSummariesByTitle(String title) {
+        return this.bookRepository.findByTitle(title, BookSummary.class);
+    }
+
+    /**
+     * Inserts a group of created books as one unordered bulk insert and maintains the derived data of the ones that
+     * were written in one go. A book rejected by the server fails only its own create.
+     */
+    Map<Integer, DataAccessException> insertCreated(List<Book> books) {
+        Map<Integer, DataAccessException> failures = new HashMap<>();
+        try {
+            mongoOperations.bulkOps(BulkMode.UNORDERED, Book.class).insert(books).execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                failures.put(error.getIndex(), ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY
+                    ? new DuplicateKeyException(error.getMessage())
+                    : new DataIntegrityViolationException(error.getMessage()));
+            }
+        }
+        List<Book> created = new ArrayList<>(books.size());
+        for (int i = 0; i < books.size(); i++) {
+            if (!failures.containsKey(i)) {
+                created.add(books.get(i));
+            }
+        }
+        bookSearchService.indexAll(created);
+        authorFacetService.booksCreated(created);
+        dateHistogramService.booksCreated(created);
+        return failures;
+    }
+
+    private <T> CursorPage<T> getPage(String after, int size, Class<T> type, Function<T, PageToken> position) {
+        Pageable pageable = keysetPageable(size);
+        PageToken token = decodeToken(after);
+        Slice<T> slice = token == null
+            ? this.bookRepository.findAllBy(pageable, type)
+            : this.bookRepository.findAllAfter(token.createdAt(), token.id(), pageable, type);
+        return toPage(slice, position);
+    }
+
+    private <T> CursorPage<T> findByAuthors(String author, String after, int size, Class<T> type, Function<T, PageToken> position) {
+        Pageable pageable = keysetPageable(size);
+        PageToken token = decodeToken(after);
+        Slice<T> slice = token == null
+            ? this.bookRepository.findByAuthors(author, pageable, type)
+            : this.bookRepository.findByAuthorsAfter(author, token.createdAt(), token.id(), pageable, type);
+        return toPage(slice, position);
+    }
+
+    private <T> CursorPage<T> findByPublishedBetween(LocalDateTime startDate, LocalDateTime endDate, String after, int size,
+                                                    Class<T> type, Function<T, PageToken> position) {
+        Pageable pageable = publishedKeysetPageable(size);
+        PageToken token = decodePublishedToken(after);
+        Slice<T> slice = token == null
+            ? this.bookRepository.findByPublishedAtBetween(startDate, endDate, pageable, type)
+            : this.bookRepository.findByPublishedAtBetweenAfter(startDate, endDate, token.publishedAt(), token.createdAt(), token.id(), pageable, type);
+        return toPage(slice, position);
+    }
+
+    static Query byId(String id) {
+        return Query.query(Criteria.where("id").is(id));
+    }
+
+    /**
+     * Update writing the fields of {@code dto} and incrementing the version, see {@link #applyUpdate}.
+     */
+    static Update updateOf(BookCreateDto dto) {
+        return new Update()
+            .set("title", dto.title())
+            .set("description", dto.description())
+            .set("authors", dto.authors())
+            .set("publishedAt", dto.publishedAt())
+            .inc("version", 1);
+    }
+
+    /**
+     * Turns the previous state of a book into the state {@link #updateOf} wrote.
+     */
+    static void applyUpdate(Book book, BookCreateDto dto) {
+        book.setTitle(dto.title());
+        book.setDescription(dto.description());
+        book.setAuthors(dto.authors());
+        book.setPublishedAt(dto.publishedAt());
+        book.setVersion(book.getVersion() + 1);
+    }
+
+    static Pageable keysetPageable(int size) {
+        return keysetPageable(size, KEYSET_ORDER);
+    }
+
+    static Pageable publishedKeysetPageable(int size) {
+        return keysetPageable(size, PUBLISHED_KEYSET_ORDER);
+    }
+
+    private static Pageable keysetPageable(int size, Sort order) {
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be positive!");
+        }
+        return PageRequest.of(0, Math.min(size, MAX_PAGE_SIZE), order);
+    }
+
+    static PageToken decodeToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            return PageToken.decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page token!");
+        }
+    }
+
+    /**
+     * Token of a listing ordered by {@code publishedAt}, which must carry it.
+     */
+    static PageToken decodePublishedToken(String token) {
+        PageToken decoded = decodeToken(token);
+        if (decoded != null && decoded.publishedAt() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page token!");
+        }
+        return decoded;
+    }
+
+    private static <T> CursorPage<T> toPage(Slice<T> slice, Function<T, PageToken> position) {
+        List<T> items = slice.getContent();
+        if (!slice.hasNext() || items.isEmpty()) {
+            return new CursorPage<>(items, null);
+        }
+        return new CursorPage<>(items, position.apply(items.get(items.size() - 1)).encode());
+    }
+
+    static PageToken positionOf(Book book) {
+        return new PageToken(book.getCreatedAt(), book.getId());
+    }
+
+    static PageToken positionOf(BookSummary summary) {
+        return new PageToken(summary.createdAt(), summary.id());
+    }
+
+    static PageToken publishedPositionOf(Book book) {
+        return new PageToken(book.getPublishedAt(), book.getCreatedAt(), book.getId());
+    }
+
+    static PageToken publishedPositionOf(BookSummary summary) {
+        return new PageToken(summary.publishedAt(), summary.createdAt(), summary.id());
+    }
 }
@@ -0,0 +1,228 @@
+package edu.mor.libraryindex.service;
+
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import edu.mor.libraryindex.dto.HistogramBucketKey;
+import edu.mor.libraryindex.dto.HistogramBucketKey.Field;
+import edu.mor.libraryindex.dto.HistogramBucketKey.Granularity;
+import edu.mor.libraryindex.dto.HistogramCount;
+import edu.mor.libraryindex.model.Book;
+import edu.mor.libraryindex.model.HistogramBucket;
+import edu.mor.libraryindex.repository.HistogramBucketRepository;
+import edu.mor.libraryindex.utils.CounterCollections;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.aggregation.DateOperators.Timezone;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+
+/**
+ * Book counts per year, month and day of {@code publishedAt} and {@code createdAt}, kept as one counter document per
+ * bucket in the {@code histogram_buckets} collection. Every book write increments or decrements the six buckets it
+ * falls in, so a histogram is one indexed range read over its buckets and never touches the books.
+ */
+@Service
+public class DateHistogramService {
+    public static final int MAX_BUCKETS = 10_000;
+    static final int REBUILD_BATCH_SIZE = 1000;
+    private static final Logger log = LoggerFactory.getLogger(DateHistogramService.class);
+
+    private final HistogramBucketRepository histogramBucketRepository;
+    private final MongoOperations mongoOperations;
+    private final boolean rebuildIfEmpty;
+
+    @Autowired
+    public DateHistogramService(HistogramBucketRepository histogramBucketRepository, MongoOperations mongoOperations,
+                                @Value("${library-index.histogram.rebuild-if-empty:true}") boolean rebuildIfEmpty) {
+        this.histogramBucketRepository = histogramBucketRepository;
+        this.mongoOperations = mongoOperations;
+        this.rebuildIfEmpty = rebuildIfEmpty;
+    }
+
+    /**
+     * Fills the buckets of a library that existed before they were maintained.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (rebuildIfEmpty && mongoOperations.estimatedCount(HistogramBucket.class) == 0 && mongoOperations.estimatedCount(Book.class) > 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Non-empty buckets that start before {@code to}, beginning with the one holding {@code from}.
+     */
+    public List<HistogramCount> histogram(String field, String granularity, LocalDateTime from, LocalDateTime to) {
+        HistogramBucketKey first = firstBucket(field, granularity, from, to);
+        return histogramBucketRepository.findCounts(first.field().property(), first.granularity().key(), first.start(), to);
+    }
+
+    public void booksCreated(Collection<Book> books) {
+        apply(created(books));
+    }
+
+    public void bookDeleted(Book book) {
+        apply(deleted(book));
+    }
+
+    public void publishedAtChanged(LocalDateTime before, LocalDateTime after) {
+        apply(moved(Field.PUBLISHED_AT, before, after));
+    }
+
+    void apply(Map<HistogramBucketKey, Integer> deltas) {
+        if (!deltas.isEmpty()) {
+            CounterCollections.bulkWrite(mongoOperations, HistogramBucket.class, writes(deltas, mongoOperations.getConverter()));
+        }
+    }
+
+    /**
+     * Recounts every bucket and replaces the stored counters. The books are counted per day on the server, by an
+     * aggregation that may spill to disk, and the daily counts are streamed and written in batches; only the month
+     * and year buckets they roll up into are held until the end. Buckets no longer counted are deleted without
+     * reading the stored ones, see {@link CounterCollections.Rebuild}. Like the author facets rebuild, writes that land
+     * while it runs may be missed, so it is meant for a quiet library. Returns the number of buckets.
+     */
+    public int rebuild() {
+        MongoConverter converter = mongoOperations.getConverter();
+        CounterCollections.Rebuild rebuild = CounterCollections.rebuild(mongoOperations, HistogramBucket.class, REBUILD_BATCH_SIZE);
+        Map<HistogramBucketKey, Integer> rolledUp = new HashMap<>();
+        for (Field field : Field.values()) {
+            try (Stream<Document> days = mongoOperations.aggregateStream(dailyCounts(field), Book.class, Document.class)) {
+                for (Iterator<Document> it = days.iterator(); it.hasNext(); ) {
+                    Document day = it.next();
+                    LocalDateTime start = LocalDate.parse(day.getString("_id")).atStartOfDay();
+                    int count = day.get("count", Number.class).intValue();
+                    HistogramBucketKey key = HistogramBucketKey.of(field, Granularity.DAY, start);
+                    rebuild.set(key.id(), count, insertFields(key, converter));
+                    rolledUp.merge(HistogramBucketKey.of(field, Granularity.MONTH, start), count, Integer::sum);
+                    rolledUp.merge(HistogramBucketKey.of(field, Granularity.YEAR, start), count, Integer::sum);
+                }
+            }
+        }
+        for (Map.Entry<HistogramBucketKey, Integer> bucket : rolledUp.entrySet()) {
+            rebuild.set(bucket.getKey().id(), bucket.getValue(), insertFields(bucket.getKey(), converter));
+        }
+        int buckets = rebuild.finish();
+        log.info("Date histogram rebuilt with {} buckets", buckets);
+        return buckets;
+    }
+
+    /**
+     * Number of books per day of the field, with the day as an ISO date in {@code _id}. Days are cut in the default
+     * time zone, the one the mapping layer converts {@code LocalDateTime} with.
+     */
+    static Aggregation dailyCounts(Field field) {
+        return newAggregation(
+            match(Criteria.where(field.property()).ne(null)),
+            project().and(DateOperators.dateOf(field.property()).withTimezone(Timezone.valueOf(ZoneId.systemDefault().getId())).toString("%Y-%m-%d"))
+                .as("day"),
+            group("day").count().as("count"))
+            .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+    }
+
+    /**
+     * Validates a histogram request and returns the bucket holding {@code from}, whose start is where the range read
+     * begins.
+     */
+    static HistogramBucketKey firstBucket(String field, String granularity, LocalDateTime from, LocalDateTime to) {
+        Field parsedField;
+        Granularity parsedGranularity;
+        try {
+            parsedField = Field.of(field);
+            parsedGranularity = Granularity.of(granularity);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Histogram field must be publishedAt or createdAt and granularity year, month or day!");
+        }
+        if (!from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Histogram range must end after it starts!");
+        }
+        if (parsedGranularity.bucketsBetween(from, to) > MAX_BUCKETS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Histogram range has too many buckets for its granularity!");
+        }
+        return HistogramBucketKey.of(parsedField, parsedGranularity, from);
+    }
+
+    public static Map<HistogramBucketKey, Integer> created(Collection<Book> books) {
+        Map<HistogramBucketKey, Integer> deltas = new HashMap<>();
+        for (Book book : books) {
+            forEachBucket(book, key -> deltas.merge(key, 1, Integer::sum));
+        }
+        return deltas;
+    }
+
+    public static Map<HistogramBucketKey, Integer> deleted(Book book) {
+        Map<HistogramBucketKey, Integer> deltas = new HashMap<>();
+        forEachBucket(book, key -> deltas.merge(key, -1, Integer::sum));
+        return deltas;
+    }
+
+    /**
+     * Change of the buckets when a date of a book goes from {@code before} to {@code after}. At the granularities
+     * where both fall in the same bucket, nothing changes.
+     */
+    public static Map<HistogramBucketKey, Integer> moved(Field field, LocalDateTime before, LocalDateTime after) {
+        Map<HistogramBucketKey, Integer> deltas = new HashMap<>();
+        for (Granularity granularity : Granularity.values()) {
+            HistogramBucketKey removed = before == null ? null : HistogramBucketKey.of(field, granularity, before);
+            HistogramBucketKey added = after == null ? null : HistogramBucketKey.of(field, granularity, after);
+            if (!Objects.equals(removed, added)) {
+                if (removed != null) {
+                    deltas.put(removed, -1);
+                }
+                if (added != null) {
+                    deltas.put(added, 1);
+                }
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * The counter writes of {@code deltas}, keyed by bucket, see {@link CounterCollections#increments}. The converter
+     * writes the bucket start the way the mapping layer writes dates, so that range reads through the repository
+     * match it.
+     */
+    public static List<WriteModel<Document>> writes(Map<HistogramBucketKey, Integer> deltas, MongoConverter converter) {
+        return CounterCollections.increments(deltas, HistogramBucketKey::id, key -> insertFields(key, converter));
+    }
+
+    private static Bson insertFields(HistogramBucketKey key, MongoConverter converter) {
+        return Updates.combine(
+            Updates.setOnInsert("field", key.field().property()),
+            Updates.setOnInsert("granularity", key.granularity().key()),
+            Updates.setOnInsert("start", converter.convertToMongoType(key.start())));
+    }
+
+    private static void forEachBucket(Book book, Consumer<HistogramBucketKey> action) {
+        for (Field field : Field.values()) {
+            LocalDateTime value = field == Field.PUBLISHED_AT ? book.getPublishedAt() : book.getCreatedAt();
+            if (value != null) {
+                for (Granularity granularity : Granularity.values()) {
+                    action.accept(HistogramBucketKey.of(field, granularity, value));
+                }
+            }
+        }
+    }
+}
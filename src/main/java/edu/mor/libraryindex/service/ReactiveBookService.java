@@ -0,0 +1,325 @@
+package edu.mor.libraryindex.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertOneModel;
+import edu.mor.libraryindex.dto.BookBulkItemResult;
+import edu.mor.libraryindex.dto.BookCreateDto;
+import edu.mor.libraryindex.dto.BookSearchResult;
+import edu.mor.libraryindex.dto.BookSummary;
+import edu.mor.libraryindex.dto.BookVersion;
+import edu.mor.libraryindex.dto.CursorPage;
+import edu.mor.libraryindex.dto.HistogramBucketKey;
+import edu.mor.libraryindex.dto.HistogramBucketKey.Field;
+import edu.mor.libraryindex.dto.HistogramCount;
+import edu.mor.libraryindex.dto.PageToken;
+import edu.mor.libraryindex.id.IdGenerator;
+import edu.mor.libraryindex.model.AuthorFacet;
+import edu.mor.libraryindex.model.Book;
+import edu.mor.libraryindex.model.HistogramBucket;
+import edu.mor.libraryindex.repository.ReactiveBookRepository;
+import edu.mor.libraryindex.utils.CounterCollections;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reactive counterpart of {@link BookService} and {@link BookBulkService} for the reactive profile. It keeps the same
+ * validation, error messages and page tokens, and keeps the in-memory search index, the author facets and the date
+ * histogram up to date on every write. Only the I/O is reactive: validation, update documents, bulk results and the
+ * facet and histogram deltas come from the static helpers of the blocking services, and the rebuilds, the catalog
+ * import and the export run the blocking services themselves off the event loop.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveBookService {
+    private final ReactiveBookRepository bookRepository;
+    private final ReactiveMongoOperations mongoOperations;
+    private final BookSearchService bookSearchService;
+    private final IdGenerator idGenerator;
+    private final AuthorFacetService authorFacetService;
+    private final DateHistogramService dateHistogramService;
+    private final int batchSize;
+
+    @Autowired
+    public ReactiveBookService(ReactiveBookRepository bookRepository, ReactiveMongoOperations mongoOperations,
+                               BookSearchService bookSearchService, IdGenerator idGenerator, AuthorFacetService authorFacetService,
+                               DateHistogramService dateHistogramService, @Value("${library-index.bulk.batch-size:1000}") int batchSize) {
+        this.bookRepository = bookRepository;
+        this.mongoOperations = mongoOperations;
+        this.bookSearchService = bookSearchService;
+        this.idGenerator = idGenerator;
+        this.authorFacetService = authorFacetService;
+        this.dateHistogramService = dateHistogramService;
+        this.batchSize = batchSize;
+    }
+
+    public Flux<Book> streamAll() {
+        return this.bookRepository.streamAllBy();
+    }
+
+    public Mono<Book> findById(String id) {
+        return this.bookRepository.findById(id).switchIfEmpty(notFound());
+    }
+
+    public Mono<Long> findVersionById(String id) {
+        return this.bookRepository.findVersionById(id).switchIfEmpty(notFound()).map(BookVersion::version);
+    }
+
+    public Mono<Book> create(BookCreateDto dto) {
+        return this.bookRepository.save(new Book(idGenerator.nextId(), dto.title(), dto.description(), dto.authors(), dto.publishedAt()))
+            .doOnNext(bookSearchService::index)
+            .flatMap(book -> Mono.when(updateFacets(AuthorFacetService.diff(null, book.getAuthors())),
+                updateHistogram(DateHistogramService.created(List.of(book)))).thenReturn(book));
+    }
+
+    public Mono<Book> update(String id, BookCreateDto dto) {
+        return mongoOperations.findAndModify(BookService.byId(id), BookService.updateOf(dto), FindAndModifyOptions.options().returnNew(false), Book.class)
+            .switchIfEmpty(notFound())
+            .flatMap(book -> {
+                Map<String, Integer> facetDeltas = AuthorFacetService.diff(book.getAuthors(), dto.authors());
+                Map<HistogramBucketKey, Integer> histogramDeltas = DateHistogramService.moved(Field.PUBLISHED_AT, book.getPublishedAt(), dto.publishedAt());
+                BookService.applyUpdate(book, dto);
+                bookSearchService.index(book);
+                return Mono.when(updateFacets(facetDeltas), updateHistogram(histogramDeltas)).thenReturn(book);
+            });
+    }
+
+    public Mono<String> deleteById(String id) {
+        return this.bookRepository.findAndRemoveById(id)
+            .switchIfEmpty(notFound())
+            .doOnNext(removed -> bookSearchService.remove(id))
+            .flatMap(removed -> Mono.when(updateFacets(AuthorFacetService.diff(removed.getAuthors(), null)),
+                updateHistogram(DateHistogramService.deleted(removed))))
+            .thenReturn(id);
+    }
+
+    public Flux<AuthorFacet> findTopAuthorFacets(int limit) {
+        return mongoOperations.find(new Query().with(AuthorFacetService.topPageable(limit)), AuthorFacet.class);
+    }
+
+    public Mono<List<AuthorFacet>> findAuthorFacets(List<String> authors) {
+        return mongoOperations.find(Query.query(Criteria.where("author").in(new HashSet<>(authors))), AuthorFacet.class)
+            .collectList()
+            .map(found -> AuthorFacetService.inRequestedOrder(authors, found));
+    }
+
+    /**
+     * The recount reads and writes through the blocking template of {@link AuthorFacetService}, so it runs on the
+     * bounded elastic scheduler.
+     */
+    public Mono<Integer> rebuildAuthorFacets() {
+        return Mono.fromCallable(authorFacetService::rebuild).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Flux<HistogramCount> histogram(String field, String granularity, LocalDateTime from, LocalDateTime to) {
+        return Flux.defer(() -> {
+            HistogramBucketKey first = DateHistogramService.firstBucket(field, granularity, from, to);
+            Query query = Query.query(Criteria.where("field").is(first.field().property())
+                    .and("granularity").is(first.granularity().key())
+                    .and("start").gte(first.start()).lt(to))
+                .with(Sort.by("start"));
+            return mongoOperations.find(query, HistogramBucket.class).map(bucket -> new HistogramCount(bucket.getStart(), bucket.getCount()));
+        });
+    }
+
+    /**
+     * Runs on the bounded elastic scheduler for the same reason as {@link #rebuildAuthorFacets()}.
+     */
+    public Mono<Integer> rebuildHistogram() {
+        return Mono.fromCallable(dateHistogramService::rebuild).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Same contract as {@link BookBulkService#createAll(List)}. Spring Data has no reactive bulk operations yet, so
+     * every batch is written as one unordered {@code bulkWrite} on the driver collection.
+     */
+    public Mono<List<BookBulkItemResult>> createAll(List<BookCreateDto> dtos) {
+        BookBulkItemResult[] results = new BookBulkItemResult[dtos.size()];
+        return Flux.fromIterable(BookBulkService.accepted(dtos, results))
+            .buffer(batchSize)
+            .concatMap(batchIndexes -> insertBatch(dtos, batchIndexes, results))
+            .then(Mono.fromSupplier(() -> Arrays.asList(results)));
+    }
+
+    public Mono<List<BookSearchResult>> search(String query, int limit) {
+        List<Map.Entry<String, Double>> ranked = bookSearchService.rankTop(query, limit);
+        if (ranked.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        return this.bookRepository.findAllById(ranked.stream().map(Map.Entry::getKey).toList())
+            .collectList()
+            .map(books -> BookSearchService.toResults(ranked, books));
+    }
+
+    public Flux<BookSummary> findSummariesByTitle(String title) {
+        return this.bookRepository.findByTitle(title, BookSummary.class);
+    }
+
+    public Mono<CursorPage<Book>> getPage(String after, int size) {
+        return getPage(after, size, Book.class, BookService::positionOf);
+    }
+
+    public Mono<CursorPage<BookSummary>> getSummaryPage(String after, int size) {
+        return getPage(after, size, BookSummary.class, BookService::positionOf);
+    }
+
+    public Mono<CursorPage<Book>> findByAuthors(String author, String after, int size) {
+        return findByAuthors(author, after, size, Book.class, BookService::positionOf);
+    }
+
+    public Mono<CursorPage<BookSummary>> findSummariesByAuthors(String author, String after, int size) {
+        return findByAuthors(author, after, size, BookSummary.class, BookService::positionOf);
+    }
+
+    public Mono<CursorPage<Book>> findByPublishedBetween(LocalDateTime startDate, LocalDateTime endDate, String after, int size) {
+        return findByPublishedBetween(startDate, endDate, after, size, Book.class, BookService::publishedPositionOf);
+    }
+
+    public Mono<CursorPage<BookSummary>> findSummariesByPublishedBetween(LocalDateTime startDate, LocalDateTime endDate, String after, int size) {
+        return findByPublishedBetween(startDate, endDate, after, size, BookSummary.class, BookService::publishedPositionOf);
+    }
+
+    public Mono<CursorPage<Book>> findByCreatedBefore(LocalDateTime date, String after, int size) {
+        return Mono.defer(() -> {
+            Pageable pageable = BookService.keysetPageable(size);
+            PageToken token = BookService.decodeToken(after);
+            Flux<Book> books = token == null
+                ? this.bookRepository.findByCreatedAtBefore(date, lookahead(pageable), Book.class)
+                : this.bookRepository.findByCreatedAtBeforeAfter(date, token.createdAt(), token.id(), lookahead(pageable), Book.class);
+            return toPage(books, pageable, BookService::positionOf);
+        });
+    }
+
+    private <T> Mono<CursorPage<T>> getPage(String after, int size, Class<T> type, Function<T, PageToken> position) {
+        return Mono.defer(() -> {
+            Pageable pageable = BookService.keysetPageable(size);
+            PageToken token = BookService.decodeToken(after);
+            Flux<T> items = token == null
+                ? this.bookRepository.findAllBy(lookahead(pageable), type)
+                : this.bookRepository.findAllAfter(token.createdAt(), token.id(), lookahead(pageable), type);
+            return toPage(items, pageable, position);
+        });
+    }
+
+    private <T> Mono<CursorPage<T>> findByAuthors(String author, String after, int size, Class<T> type, Function<T, PageToken> position) {
+        return Mono.defer(() -> {
+            Pageable pageable = BookService.keysetPageable(size);
+            PageToken token = BookService.decodeToken(after);
+            Flux<T> items = token == null
+                ? this.bookRepository.findByAuthors(author, lookahead(pageable), type)
+                : this.bookRepository.findByAuthorsAfter(author, token.createdAt(), token.id(), lookahead(pageable), type);
+            return toPage(items, pageable, position);
+        });
+    }
+
+    private <T> Mono<CursorPage<T>> findByPublishedBetween(LocalDateTime startDate, LocalDateTime endDate, String after, int size,
+                                                          Class<T> type, Function<T, PageToken> position) {
+        return Mono.defer(() -> {
+            Pageable pageable = BookService.publishedKeysetPageable(size);
+            PageToken token = BookService.decodePublishedToken(after);
+            Flux<T> items = token == null
+                ? this.bookRepository.findByPublishedAtBetween(startDate, endDate, lookahead(pageable), type)
+                : this.bookRepository.findByPublishedAtBetweenAfter(startDate, endDate, token.publishedAt(), token.createdAt(), token.id(),
+                    lookahead(pageable), type);
+            return toPage(items, pageable, position);
+        });
+    }
+
+    private Mono<Void> insertBatch(List<BookCreateDto> dtos, List<Integer> batchIndexes, BookBulkItemResult[] results) {
+        List<Book> batch = new ArrayList<>(batchIndexes.size());
+        List<InsertOneModel<Document>> inserts = new ArrayList<>(batchIndexes.size());
+        for (int index : batchIndexes) {
+            BookCreateDto dto = dtos.get(index);
+            Book book = new Book(idGenerator.nextId(), dto.title(), dto.description(), dto.authors(), dto.publishedAt());
+            Document document = new Document();
+            mongoOperations.getConverter().write(book, document);
+            batch.add(book);
+            inserts.add(new InsertOneModel<>(document));
+        }
+
+        return mongoOperations.execute(Book.class, collection -> collection.bulkWrite(inserts, new BulkWriteOptions().ordered(false)))
+            .then()
+            .onErrorResume(e -> {
+                List<BulkWriteError> errors = writeErrors(e);
+                if (errors == null) {
+                    return Mono.error(e);
+                }
+                BookBulkService.failed(errors, batchIndexes, results);
+                return Mono.empty();
+            })
+            .then(Mono.fromSupplier(() -> {
+                List<Book> created = BookBulkService.created(batch, batchIndexes, results);
+                bookSearchService.indexAll(created);
+                return created;
+            }))
+            .flatMap(created -> Mono.when(updateFacets(AuthorFacetService.created(created)),
+                updateHistogram(DateHistogramService.created(created))));
+    }
+
+    private Mono<Void> updateFacets(Map<String, Integer> deltas) {
+        return CounterCollections.bulkWrite(mongoOperations, AuthorFacet.class, AuthorFacetService.writes(deltas));
+    }
+
+    private Mono<Void> updateHistogram(Map<HistogramBucketKey, Integer> deltas) {
+        return CounterCollections.bulkWrite(mongoOperations, HistogramBucket.class,
+            DateHistogramService.writes(deltas, mongoOperations.getConverter()));
+    }
+
+    private static List<BulkWriteError> writeErrors(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoBulkWriteException bulkWriteException) {
+                return bulkWriteException.getWriteErrors();
+            }
+            if (cause instanceof BulkOperationException bulkOperationException) {
+                return bulkOperationException.getErrors();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Asks for one element more than the page size, its presence tells that a next page exists.
+     */
+    private static Pageable lookahead(Pageable pageable) {
+        return PageRequest.of(0, pageable.getPageSize() + 1, pageable.getSort());
+    }
+
+    private static <T> Mono<CursorPage<T>> toPage(Flux<T> items, Pageable pageable, Function<T, PageToken> position) {
+        return items.collectList().map(list -> {
+            if (list.size() <= pageable.getPageSize()) {
+                return new CursorPage<>(list, null);
+            }
+            List<T> page = list.subList(0, pageable.getPageSize());
+            return new CursorPage<>(page, position.apply(page.get(page.size() - 1)).encode());
+        });
+    }
+
+    private static <T> Mono<T> notFound() {
+        return Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Book with specified id not found!"));
+    }
+}
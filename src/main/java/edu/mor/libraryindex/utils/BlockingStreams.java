@@ -0,0 +1,111 @@
+package edu.mor.libraryindex.utils;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Connects request and response bodies of the reactive stack to code written against {@link InputStream} and
+ * {@link OutputStream}, such as the catalog import and the export. The blocking side runs on the bounded elastic
+ * scheduler and meets the body in a pipe of {@link #BUFFER_SIZE} bytes, so whichever side is slower holds back the
+ * other instead of the body being buffered. A body that fails half way fails the blocking side too, it never looks
+ * like a shorter stream.
+ */
+public final class BlockingStreams {
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private BlockingStreams() {
+    }
+
+    @FunctionalInterface
+    public interface InputFunction<T> {
+        T apply(InputStream input) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface OutputConsumer {
+        void accept(OutputStream output) throws IOException;
+    }
+
+    /**
+     * Applies {@code function} to the body as an {@link InputStream}. The body is copied into the pipe off the event
+     * loop, since the copy blocks while the pipe is full.
+     */
+    public static <T> Mono<T> read(Flux<DataBuffer> body, InputFunction<T> function) {
+        return Mono.defer(() -> {
+            PipedInputStream input = new PipedInputStream(BUFFER_SIZE);
+            PipedOutputStream output;
+            try {
+                output = new PipedOutputStream(input);
+            } catch (IOException e) {
+                return Mono.error(e);
+            }
+            Disposable copy = DataBufferUtils.write(body.publishOn(Schedulers.boundedElastic()), output)
+                .doOnError(error -> closeQuietly(input))
+                .doFinally(signal -> closeQuietly(output))
+                .subscribe(DataBufferUtils.releaseConsumer(), error -> {
+                });
+            return Mono.fromCallable(() -> {
+                    try (input) {
+                        return function.apply(input);
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .doFinally(signal -> copy.dispose());
+        });
+    }
+
+    /**
+     * The bytes {@code consumer} writes to an {@link OutputStream}, as a body. The consumer starts on subscription and
+     * fails with an {@link IOException} once the body is cancelled. Its failure fails the body after the bytes written
+     * before it.
+     */
+    public static Flux<DataBuffer> write(OutputConsumer consumer) {
+        return Flux.defer(() -> {
+            PipedInputStream input = new PipedInputStream(BUFFER_SIZE);
+            PipedOutputStream output;
+            try {
+                output = new PipedOutputStream(input);
+            } catch (IOException e) {
+                return Flux.error(e);
+            }
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Disposable writing = Mono.fromRunnable(() -> {
+                    try {
+                        consumer.accept(output);
+                    } catch (IOException | RuntimeException e) {
+                        failure.set(e);
+                    } finally {
+                        closeQuietly(output);
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe();
+            return DataBufferUtils.readInputStream(() -> input, DefaultDataBufferFactory.sharedInstance, BUFFER_SIZE)
+                .subscribeOn(Schedulers.boundedElastic())
+                .concatWith(Mono.defer(() -> failure.get() == null ? Mono.empty() : Mono.error(failure.get())))
+                .doOnCancel(() -> closeQuietly(input))
+                .doFinally(signal -> writing.dispose());
+        });
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // the other side of the pipe has already failed
+        }
+    }
+}
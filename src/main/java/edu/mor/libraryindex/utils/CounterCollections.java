@@ -0,0 +1,118 @@
+package edu.mor.libraryindex.utils;
+
+import com.mongodb.client.model.DeleteManyModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Writes to collections of counter documents such as the author facets and the histogram buckets, one document per
+ * key holding its {@code count}. A counter exists while its count is positive: increments upsert it and decrements
+ * that leave it at zero delete it. The blocking and the reactive stack share these writes so that both keep the
+ * collections in the same shape.
+ */
+public final class CounterCollections {
+    static final String REBUILD_MARK = "rebuild";
+    private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+
+    private CounterCollections() {
+    }
+
+    /**
+     * One upserting increment per key, followed by the removal of the decremented counters left at zero. The writes
+     * are meant for one ordered bulk write. {@code insertFields} returns the fields set when a counter is created, or
+     * {@code null} when there are none.
+     */
+    public static <K> List<WriteModel<Document>> increments(Map<K, Integer> deltas, Function<K, String> id,
+                                                            Function<K, Bson> insertFields) {
+        List<WriteModel<Document>> writes = new ArrayList<>(deltas.size() + 1);
+        List<String> decremented = new ArrayList<>();
+        deltas.forEach((key, delta) -> {
+            writes.add(new UpdateOneModel<>(Filters.eq("_id", id.apply(key)), withInsertFields(Updates.inc("count", delta), insertFields.apply(key)),
+                UPSERT));
+            if (delta < 0) {
+                decremented.add(id.apply(key));
+            }
+        });
+        if (!decremented.isEmpty()) {
+            writes.add(new DeleteManyModel<>(Filters.and(Filters.in("_id", decremented), Filters.lte("count", 0))));
+        }
+        return writes;
+    }
+
+    public static void bulkWrite(MongoOperations mongoOperations, Class<?> type, List<WriteModel<Document>> writes) {
+        if (!writes.isEmpty()) {
+            mongoOperations.execute(type, collection -> collection.bulkWrite(writes));
+        }
+    }
+
+    public static Mono<Void> bulkWrite(ReactiveMongoOperations mongoOperations, Class<?> type, List<WriteModel<Document>> writes) {
+        if (writes.isEmpty()) {
+            return Mono.empty();
+        }
+        return mongoOperations.execute(type, collection -> collection.bulkWrite(writes)).then();
+    }
+
+    /**
+     * Replaces the counters of {@code type} with recounted ones, written in bulk writes of {@code batchSize}.
+     */
+    public static Rebuild rebuild(MongoOperations mongoOperations, Class<?> type, int batchSize) {
+        return new Rebuild(mongoOperations, type, batchSize);
+    }
+
+    /**
+     * Every counter set is marked with the id of the rebuild, and {@link #finish()} deletes the counters left
+     * unmarked with one write, so the counters the recount no longer produces are found without reading them.
+     */
+    public static final class Rebuild {
+        private final ObjectId id = new ObjectId();
+        private final MongoOperations mongoOperations;
+        private final Class<?> type;
+        private final int batchSize;
+        private List<WriteModel<Document>> writes = new ArrayList<>();
+        private int counters;
+
+        private Rebuild(MongoOperations mongoOperations, Class<?> type, int batchSize) {
+            this.mongoOperations = mongoOperations;
+            this.type = type;
+            this.batchSize = batchSize;
+        }
+
+        public void set(String counterId, long count, Bson insertFields) {
+            writes.add(new UpdateOneModel<>(Filters.eq("_id", counterId),
+                withInsertFields(Updates.combine(Updates.set("count", count), Updates.set(REBUILD_MARK, id)), insertFields), UPSERT));
+            counters++;
+            if (writes.size() == batchSize) {
+                bulkWrite(mongoOperations, type, writes);
+                writes = new ArrayList<>();
+            }
+        }
+
+        /**
+         * Deletes the counters this rebuild did not set and returns the number it did.
+         */
+        public int finish() {
+            writes.add(new DeleteManyModel<>(Filters.ne(REBUILD_MARK, id)));
+            bulkWrite(mongoOperations, type, writes);
+            writes = new ArrayList<>();
+            return counters;
+        }
+    }
+
+    private static Bson withInsertFields(Bson update, Bson insertFields) {
+        return insertFields == null ? update : Updates.combine(update, insertFields);
+    }
+}
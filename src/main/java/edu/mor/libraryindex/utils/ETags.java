@@ -0,0 +1,53 @@
+package edu.mor.libraryindex.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Weak entity tags for book responses, derived from the stored versions instead of the serialized body. A book
+ * never changes without its version being incremented, so the ids and versions of a response identify its content
+ * and the tag can be compared before anything is serialized. The tags are weak because the JSON, CBOR, Smile and
+ * Protobuf representations of the same content share them: they are equivalent but not byte for byte equal, which a
+ * strong tag would promise to caches and range requests.
+ */
+public final class ETags {
+    private ETags() {
+    }
+
+    public static String ofVersion(long version) {
+        return "W/\"" + version + "\"";
+    }
+
+    /**
+     * Tag of a listing: an MD5 digest of the id and version of every item, in order, and of the continuation token.
+     */
+    public static <T> String ofItems(List<T> items, Function<T, String> id, ToLongFunction<T> version, String next) {
+        MessageDigest digest = md5();
+        byte[] versionBytes = new byte[Long.BYTES];
+        for (T item : items) {
+            digest.update(id.apply(item).getBytes(StandardCharsets.UTF_8));
+            long itemVersion = version.applyAsLong(item);
+            for (int i = 0; i < Long.BYTES; i++) {
+                versionBytes[i] = (byte) (itemVersion >>> (56 - 8 * i));
+            }
+            digest.update(versionBytes);
+        }
+        if (next != null) {
+            digest.update(next.getBytes(StandardCharsets.UTF_8));
+        }
+        return "W/\"" + HexFormat.of().formatHex(digest.digest()) + "\"";
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is required on every Java platform", e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package edu.mor.libraryindex.utils;
+
+/**
+ * Reason reported by {@link ValidationUtils} for a rejected email or password. Only the first rule an input breaks is
+ * reported.
+ */
+public enum ValidationFailure {
+    MISSING,
+    TOO_LONG,
+    INVALID_CHARACTER,
+    MISSING_AT,
+    MULTIPLE_AT,
+    INVALID_LOCAL_PART,
+    LOCAL_PART_TOO_LONG,
+    INVALID_DOMAIN,
+    DOMAIN_LABEL_TOO_LONG,
+    INVALID_TOP_LEVEL_DOMAIN,
+    INVALID_IP_ADDRESS,
+    TOO_SHORT,
+    MISSING_UPPERCASE,
+    MISSING_LOWERCASE,
+    MISSING_DIGIT,
+    MISSING_SPECIAL_CHARACTER
+}
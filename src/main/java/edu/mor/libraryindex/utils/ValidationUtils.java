@@ -1,16 +1,261 @@
 package edu.mor.libraryindex.utils;
 
+import java.util.Iterator;
+
+/**
+ * Email and password validation written as single-pass scanners: every character is looked at once, nothing is
+ * allocated and there is no backtracking, so the cost grows linearly with the input whatever its shape. The
+ * {@code check} methods return the reason an input is rejected, or {@code null} when it is valid.
+ */
 public class ValidationUtils {
+    public static final int MAX_EMAIL_LENGTH = 254;
+    public static final int MAX_LOCAL_PART_LENGTH = 63;
+    public static final int MAX_DOMAIN_LABEL_LENGTH = 63;
+    public static final int MIN_PASSWORD_LENGTH = 8;
+    private static final String PASSWORD_SPECIAL_CHARACTERS = "!@#$%^&+=";
+    private static final int IP_ADDRESS_OCTETS = 4;
+    private static final int MAX_OCTET = 255;
+    // Generic top level domains accepted besides any two letter country code
+    private static final String[] GENERIC_TOP_LEVEL_DOMAINS = {
+        "com", "org", "net", "edu", "gov", "mil", "int", "info", "biz", "name", "pro", "aero", "coop", "museum", "mobi",
+        "app", "dev", "tech", "blog", "shop", "store", "site", "online", "cloud", "email", "coffee"
+    };
+
+    /**
+     * Receives the rejected inputs of a batch, identified by their position in it.
+     */
+    @FunctionalInterface
+    public interface FailureHandler {
+        void onFailure(int index, ValidationFailure failure);
+    }
+
     public static boolean isValidEmail(String email) {
-        return true;
+        return checkEmail(email) == null;
     }
 
     public static boolean isValidPassword(String password) {
-        // At least 8 characters
-        // At least one uppercase letter
-        // At least one lowercase letter
-        // At least one digit
-        // At least one special character (!@#$%^&+=)
+        return checkPassword(password) == null;
+    }
+
+    public static ValidationFailure checkEmail(CharSequence email) {
+        if (email == null || email.length() == 0) {
+            return ValidationFailure.MISSING;
+        }
+        int length = email.length();
+        if (length > MAX_EMAIL_LENGTH) {
+            return ValidationFailure.TOO_LONG;
+        }
+
+        int at = -1;
+        char previous = 0;
+        int labelStart = 0;
+        int labels = 0;
+        boolean labelNumeric = true;
+        boolean labelAlphabetic = true;
+        int labelValue = 0;
+        boolean allOctets = true;
+        for (int i = 0; i < length; i++) {
+            char c = email.charAt(i);
+            if (at < 0) {
+                if (c == '@') {
+                    if (i == 0 || previous == '.') {
+                        return ValidationFailure.INVALID_LOCAL_PART;
+                    }
+                    if (i > MAX_LOCAL_PART_LENGTH) {
+                        return ValidationFailure.LOCAL_PART_TOO_LONG;
+                    }
+                    at = i;
+                    labelStart = i + 1;
+                } else if (c == '.') {
+                    if (i == 0 || previous == '.') {
+                        return ValidationFailure.INVALID_LOCAL_PART;
+                    }
+                } else if (!isLetter(c) && !isDigit(c) && c != '-' && c != '_' && c != '+') {
+                    return ValidationFailure.INVALID_CHARACTER;
+                }
+            } else if (c == '.') {
+                ValidationFailure failure = checkLabel(email, labelStart, i);
+                if (failure != null) {
+                    return failure;
+                }
+                allOctets &= labelNumeric && isOctet(labelStart, i, labelValue);
+                labels++;
+                labelStart = i + 1;
+                labelNumeric = true;
+                labelAlphabetic = true;
+                labelValue = 0;
+            } else if (isLetter(c)) {
+                labelNumeric = false;
+            } else if (isDigit(c)) {
+                labelAlphabetic = false;
+                labelValue = Math.min(labelValue * 10 + (c - '0'), MAX_OCTET + 1);
+            } else if (c == '-') {
+                labelNumeric = false;
+                labelAlphabetic = false;
+            } else if (c == '@') {
+                return ValidationFailure.MULTIPLE_AT;
+            } else {
+                return ValidationFailure.INVALID_CHARACTER;
+            }
+            previous = c;
+        }
+        if (at < 0) {
+            return ValidationFailure.MISSING_AT;
+        }
+
+        ValidationFailure failure = checkLabel(email, labelStart, length);
+        if (failure != null) {
+            return failure;
+        }
+        allOctets &= labelNumeric && isOctet(labelStart, length, labelValue);
+        labels++;
+        if (labels < 2) {
+            return ValidationFailure.INVALID_DOMAIN;
+        }
+        if (labelNumeric) {
+            return allOctets && labels == IP_ADDRESS_OCTETS ? null : ValidationFailure.INVALID_IP_ADDRESS;
+        }
+        if (!labelAlphabetic || !isTopLevelDomain(email, labelStart, length)) {
+            return ValidationFailure.INVALID_TOP_LEVEL_DOMAIN;
+        }
+        return null;
+    }
+
+    public static ValidationFailure checkPassword(CharSequence password) {
+        if (password == null || password.length() == 0) {
+            return ValidationFailure.MISSING;
+        }
+        int length = password.length();
+        if (length < MIN_PASSWORD_LENGTH) {
+            return ValidationFailure.TOO_SHORT;
+        }
+        boolean upper = false;
+        boolean lower = false;
+        boolean digit = false;
+        boolean special = false;
+        for (int i = 0; i < length; i++) {
+            char c = password.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                upper = true;
+            } else if (c >= 'a' && c <= 'z') {
+                lower = true;
+            } else if (isDigit(c)) {
+                digit = true;
+            } else if (PASSWORD_SPECIAL_CHARACTERS.indexOf(c) >= 0) {
+                special = true;
+            }
+        }
+        if (!upper) {
+            return ValidationFailure.MISSING_UPPERCASE;
+        }
+        if (!lower) {
+            return ValidationFailure.MISSING_LOWERCASE;
+        }
+        if (!digit) {
+            return ValidationFailure.MISSING_DIGIT;
+        }
+        return special ? null : ValidationFailure.MISSING_SPECIAL_CHARACTER;
+    }
+
+    /**
+     * Validates a batch of emails, such as the rows of an import, streaming each rejected one to the handler.
+     *
+     * @return the number of rejected emails
+     */
+    public static int validateEmails(Iterable<? extends CharSequence> emails, FailureHandler handler) {
+        int failures = 0;
+        int index = 0;
+        for (Iterator<? extends CharSequence> iterator = emails.iterator(); iterator.hasNext(); index++) {
+            ValidationFailure failure = checkEmail(iterator.next());
+            if (failure != null) {
+                handler.onFailure(index, failure);
+                failures++;
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * @return the failure of every email at its index, {@code null} for the valid ones
+     */
+    public static ValidationFailure[] validateEmails(CharSequence[] emails) {
+        ValidationFailure[] failures = new ValidationFailure[emails.length];
+        for (int i = 0; i < emails.length; i++) {
+            failures[i] = checkEmail(emails[i]);
+        }
+        return failures;
+    }
+
+    /**
+     * Validates a batch of passwords, streaming each rejected one to the handler.
+     *
+     * @return the number of rejected passwords
+     */
+    public static int validatePasswords(Iterable<? extends CharSequence> passwords, FailureHandler handler) {
+        int failures = 0;
+        int index = 0;
+        for (Iterator<? extends CharSequence> iterator = passwords.iterator(); iterator.hasNext(); index++) {
+            ValidationFailure failure = checkPassword(iterator.next());
+            if (failure != null) {
+                handler.onFailure(index, failure);
+                failures++;
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * @return the failure of every password at its index, {@code null} for the valid ones
+     */
+    public static ValidationFailure[] validatePasswords(CharSequence[] passwords) {
+        ValidationFailure[] failures = new ValidationFailure[passwords.length];
+        for (int i = 0; i < passwords.length; i++) {
+            failures[i] = checkPassword(passwords[i]);
+        }
+        return failures;
+    }
+
+    private static ValidationFailure checkLabel(CharSequence email, int start, int end) {
+        if (start == end || email.charAt(start) == '-' || email.charAt(end - 1) == '-') {
+            return ValidationFailure.INVALID_DOMAIN;
+        }
+        return end - start > MAX_DOMAIN_LABEL_LENGTH ? ValidationFailure.DOMAIN_LABEL_TOO_LONG : null;
+    }
+
+    private static boolean isOctet(int start, int end, int value) {
+        return end - start <= 3 && value <= MAX_OCTET;
+    }
+
+    private static boolean isTopLevelDomain(CharSequence email, int start, int end) {
+        if (end - start == 2) {
+            return true;
+        }
+        for (String domain : GENERIC_TOP_LEVEL_DOMAINS) {
+            if (equalsIgnoreCase(email, start, end, domain)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean equalsIgnoreCase(CharSequence text, int start, int end, String lowerCaseWord) {
+        if (end - start != lowerCaseWord.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            // The label is known to be ASCII letters, setting the 0x20 bit lower-cases it
+            if ((text.charAt(i) | 0x20) != lowerCaseWord.charAt(i - start)) {
+                return false;
+            }
+        }
         return true;
     }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
 }
@@ -0,0 +1,60 @@
+package edu.mor.libraryindex.codec;
+
+import edu.mor.libraryindex.dto.CursorPage;
+import edu.mor.libraryindex.model.Book;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes the protobuf representations with the messages generated from {@code proto/book.proto}, so what the
+ * application writes is checked against the published schema rather than against its own encoder.
+ */
+public final class BookProtobufReader {
+    private BookProtobufReader() {
+    }
+
+    public static Book readBook(byte[] bytes) throws IOException {
+        return toBook(BookProtos.Book.parseFrom(bytes));
+    }
+
+    public static CursorPage<Book> readBookPage(byte[] bytes) throws IOException {
+        BookProtos.BookPage page = BookProtos.BookPage.parseFrom(bytes);
+        List<Book> items = new ArrayList<>(page.getItemsCount());
+        page.getItemsList().forEach(item -> items.add(toBook(item)));
+        return new CursorPage<>(items, page.hasNext() ? page.getNext() : null);
+    }
+
+    /**
+     * Reads every book of a delimited stream.
+     */
+    public static List<Book> readDelimited(InputStream input) throws IOException {
+        List<Book> books = new ArrayList<>();
+        BookProtos.Book message;
+        while ((message = BookProtos.Book.parseDelimitedFrom(input)) != null) {
+            books.add(toBook(message));
+        }
+        return books;
+    }
+
+    static Book toBook(BookProtos.Book message) {
+        Book book = new Book();
+        book.setId(message.getId().isEmpty() ? null : message.getId());
+        book.setTitle(message.getTitle().isEmpty() ? null : message.getTitle());
+        book.setDescription(message.getDescription().isEmpty() ? null : message.getDescription());
+        book.setAuthors(new ArrayList<>(message.getAuthorsList()));
+        book.setPublishedAt(message.hasPublishedAt() ? fromEpochMilli(message.getPublishedAt()) : null);
+        book.setCreatedAt(message.hasCreatedAt() ? fromEpochMilli(message.getCreatedAt()) : null);
+        book.setVersion(message.getVersion());
+        return book;
+    }
+
+    private static LocalDateTime fromEpochMilli(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,129 @@
+package edu.mor.libraryindex.codec;
+
+import com.google.protobuf.CodedOutputStream;
+import edu.mor.libraryindex.dto.BookSearchResult;
+import edu.mor.libraryindex.dto.BookSummary;
+import edu.mor.libraryindex.dto.CursorPage;
+import edu.mor.libraryindex.model.Book;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookProtobufTest {
+    private final Book book = new Book("1", "Java for Beginners", "A beginner's guide to Java programming",
+        Arrays.asList("John Doe", "Jane Roe"), LocalDateTime.of(2022, 1, 1, 10, 30), LocalDateTime.of(2023, 4, 1, 8, 0, 15), 3);
+
+    @Test
+    void bookShouldSurviveRoundTrip() throws IOException {
+        // when
+        Book decoded = BookProtobufReader.readBook(BookProtobuf.toByteArray(book));
+
+        // then
+        assertEquals(book, decoded);
+        assertEquals(3, decoded.getVersion());
+    }
+
+    @Test
+    void bookShouldOnlyUseFieldsOfSchema() throws IOException {
+        // when
+        BookProtos.Book message = BookProtos.Book.parseFrom(BookProtobuf.toByteArray(book));
+
+        // then
+        assertTrue(message.getUnknownFields().asMap().isEmpty());
+        assertEquals(book.getPublishedAt().toInstant(ZoneOffset.UTC).toEpochMilli(), message.getPublishedAt());
+        assertEquals(List.of("John Doe", "Jane Roe"), message.getAuthorsList());
+    }
+
+    @Test
+    void bookWithoutOptionalFieldsShouldSurviveRoundTrip() throws IOException {
+        // given
+        Book empty = new Book("2", null, null, List.of(), null, null);
+
+        // when
+        Book decoded = BookProtobufReader.readBook(BookProtobuf.toByteArray(empty));
+
+        // then
+        assertEquals(empty, decoded);
+    }
+
+    @Test
+    void pageShouldSurviveRoundTrip() throws IOException {
+        // given
+        Book second = new Book("2", "Effective Java", null, List.of("Joshua Bloch"), LocalDateTime.of(2018, 1, 6, 0, 0),
+            LocalDateTime.of(2023, 4, 1, 8, 0, 16));
+        CursorPage<Book> page = new CursorPage<>(List.of(book, second), "next-token");
+
+        // when
+        CursorPage<Book> decoded = BookProtobufReader.readBookPage(BookProtobuf.toByteArray(page));
+
+        // then
+        assertEquals(page, decoded);
+    }
+
+    @Test
+    void summaryShouldMatchSummaryMessageOfSchema() throws IOException {
+        // given
+        BookSummary summary = new BookSummary(book.getId(), book.getTitle(), book.getAuthors(), book.getPublishedAt(),
+            book.getCreatedAt(), book.getVersion());
+
+        // when
+        BookProtos.BookSummary message = BookProtos.BookSummary.parseFrom(BookProtobuf.toByteArray(summary));
+
+        // then
+        assertTrue(message.getUnknownFields().asMap().isEmpty());
+        assertEquals(book.getTitle(), message.getTitle());
+        assertEquals(book.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli(), message.getCreatedAt());
+        assertEquals(3, message.getVersion());
+    }
+
+    @Test
+    void summaryPageShouldMatchSummaryPageMessageOfSchema() throws IOException {
+        // given
+        BookSummary summary = new BookSummary(book.getId(), book.getTitle(), book.getAuthors(), book.getPublishedAt(),
+            book.getCreatedAt(), book.getVersion());
+
+        // when
+        BookProtos.BookSummaryPage message = BookProtos.BookSummaryPage.parseFrom(BookProtobuf.toByteArray(List.of(summary, summary)));
+
+        // then
+        assertEquals(2, message.getItemsCount());
+        assertFalse(message.hasNext());
+        assertTrue(message.getItems(1).getUnknownFields().asMap().isEmpty());
+    }
+
+    @Test
+    void delimitedStreamShouldBeReadBack() throws IOException {
+        // given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        BookProtobuf.writeDelimited(output, book);
+        BookProtobuf.writeDelimited(output, book);
+        output.flush();
+
+        // when
+        List<Book> decoded = BookProtobufReader.readDelimited(new ByteArrayInputStream(bytes.toByteArray()));
+
+        // then
+        assertEquals(List.of(book, book), decoded);
+        assertEquals(2 * BookProtobuf.delimitedSize(book), bytes.size());
+    }
+
+    @Test
+    void canEncodeShouldAcceptOnlyBooksSummariesAndTheirListsAndPages() {
+        // then
+        assertTrue(BookProtobuf.canEncode(ResolvableType.forClass(Book.class)));
+        assertTrue(BookProtobuf.canEncode(ResolvableType.forClassWithGenerics(List.class, BookSummary.class)));
+        assertTrue(BookProtobuf.canEncode(ResolvableType.forClassWithGenerics(CursorPage.class, Book.class)));
+        assertFalse(BookProtobuf.canEncode(ResolvableType.forClassWithGenerics(List.class, BookSearchResult.class)));
+        assertFalse(BookProtobuf.canEncode(ResolvableType.forClass(String.class)));
+    }
+}
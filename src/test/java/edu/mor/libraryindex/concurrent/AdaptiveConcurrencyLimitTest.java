@@ -0,0 +1,127 @@
+package edu.mor.libraryindex.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimitTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(20);
+
+    @Test
+    void tryAcquireShouldRejectOnceLimitIsInFlight() {
+        // given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10, 2.0);
+
+        // when
+        boolean first = limit.tryAcquire();
+        boolean second = limit.tryAcquire();
+        boolean third = limit.tryAcquire();
+        limit.release();
+        boolean afterRelease = limit.tryAcquire();
+
+        // then
+        assertTrue(first);
+        assertTrue(second);
+        assertFalse(third);
+        assertTrue(afterRelease);
+        assertEquals(2, limit.getInFlight());
+    }
+
+    @Test
+    void limitShouldGrowWhileBusyAndFast() {
+        // given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(100, 10, 1000, 2.0);
+        hold(limit, 80);
+
+        // when
+        complete(limit, 20, FAST, false);
+
+        // then
+        assertTrue(limit.getLimit() > 100, "limit " + limit.getLimit());
+        assertEquals(80, limit.getInFlight());
+    }
+
+    @Test
+    void limitShouldShrinkWhenLatencyRises() {
+        // given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(100, 10, 1000, 2.0);
+        hold(limit, 80);
+        complete(limit, 20, FAST, false);
+        int before = limit.getLimit();
+
+        // when
+        complete(limit, 20, SLOW, false);
+
+        // then
+        assertTrue(limit.getLimit() < before, "limit " + limit.getLimit() + " not below " + before);
+    }
+
+    @Test
+    void singleSlowCallShouldBarelyMoveLimit() {
+        // given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(100, 10, 1000, 2.0);
+        hold(limit, 80);
+        complete(limit, 20, FAST, false);
+        int before = limit.getLimit();
+
+        // when
+        complete(limit, 1, SLOW, false);
+
+        // then
+        assertTrue(limit.getLimit() >= before * 0.95, "limit " + limit.getLimit() + " far below " + before);
+    }
+
+    @Test
+    void overloadShouldBackOffDownToMinimum() {
+        // given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 5, 200, 2.0);
+        hold(limit, 1);
+
+        // when
+        complete(limit, 50, FAST, true);
+
+        // then
+        assertEquals(5, limit.getLimit());
+    }
+
+    @Test
+    void quietTrafficShouldNotMoveLimit() {
+        // given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(100, 10, 1000, 2.0);
+        hold(limit, 1);
+
+        // when
+        complete(limit, 10, FAST, false);
+        complete(limit, 50, SLOW, false);
+
+        // then
+        assertEquals(100, limit.getLimit());
+    }
+
+    @Test
+    void constructorShouldRejectInconsistentBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(5, 10, 100, 2.0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(200, 10, 100, 2.0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(1, 0, 100, 2.0));
+    }
+
+    private static void hold(AdaptiveConcurrencyLimit limit, int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+    }
+
+    /**
+     * Completes calls one by one, each replaced by a new one while the limit allows, so that the number in flight
+     * stays the same unless the limit falls below it.
+     */
+    private static void complete(AdaptiveConcurrencyLimit limit, int calls, long latencyNanos, boolean overloaded) {
+        for (int i = 0; i < calls; i++) {
+            limit.release(latencyNanos, overloaded);
+            limit.tryAcquire();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package edu.mor.libraryindex.concurrent;
+
+import com.mongodb.MongoTimeoutException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private AdaptiveConcurrencyLimit readLimit;
+    private AdaptiveConcurrencyLimit writeLimit;
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        readLimit = new AdaptiveConcurrencyLimit(1, 1, 10, 2.0);
+        writeLimit = new AdaptiveConcurrencyLimit(1, 1, 10, 2.0);
+        filter = new ConcurrencyLimitFilter(readLimit, writeLimit, registry, Duration.ofSeconds(2), Set.of("/api/v1/books/export"));
+    }
+
+    @Test
+    void requestOverLimitShouldBeRejectedWithRetryAfter() throws Exception {
+        // given
+        assertTrue(readLimit.tryAcquire());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // when
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/books/1"), response, chain);
+
+        // then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatus());
+        assertEquals("2", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(ConcurrencyLimitFilter.REJECTED_MESSAGE, response.getContentAsString());
+        assertNull(chain.getRequest());
+        assertEquals(1.0, registry.get("library.concurrency.rejections").tag("group", "read").counter().count());
+        assertEquals(0.0, registry.get("library.concurrency.rejections").tag("group", "write").counter().count());
+    }
+
+    @Test
+    void writesShouldNotBeRejectedWhenReadsAreAtLimit() throws Exception {
+        // given
+        assertTrue(readLimit.tryAcquire());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/books/"), response, new MockFilterChain());
+
+        // then
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(0, writeLimit.getInFlight());
+    }
+
+    @Test
+    void admittedRequestShouldBeCountedInFlightUntilItCompletes() throws Exception {
+        // given
+        double[] inFlightDuringRequest = new double[1];
+        FilterChain chain = (request, response) ->
+            inFlightDuringRequest[0] = registry.get("library.concurrency.in-flight").tag("group", "read").gauge().value();
+
+        // when
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/books/1"), new MockHttpServletResponse(), chain);
+
+        // then
+        assertEquals(1.0, inFlightDuringRequest[0]);
+        assertEquals(0, readLimit.getInFlight());
+        assertEquals(1.0, registry.get("library.concurrency.limit").tag("group", "read").gauge().value());
+    }
+
+    @Test
+    void excludedPathShouldBypassLimit() throws Exception {
+        // given
+        assertTrue(readLimit.tryAcquire());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // when
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/books/export"), response, chain);
+
+        // then
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void failureThatIsNotTimeoutShouldNotCutLimit() {
+        // given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 10, 2.0);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limit, limit, new SimpleMeterRegistry(), Duration.ofSeconds(1), Set.of());
+        FilterChain chain = (request, response) -> {
+            throw new IllegalStateException("boom");
+        };
+
+        // when
+        assertThrows(IllegalStateException.class, () ->
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/books/1"), new MockHttpServletResponse(), chain));
+
+        // then
+        assertEquals(10, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    void timeoutShouldCutLimit() {
+        // given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 10, 2.0);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limit, limit, new SimpleMeterRegistry(), Duration.ofSeconds(1), Set.of());
+        FilterChain chain = (request, response) -> {
+            throw new IllegalStateException(new MongoTimeoutException("no server"));
+        };
+
+        // when
+        assertThrows(IllegalStateException.class, () ->
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/books/1"), new MockHttpServletResponse(), chain));
+
+        // then
+        assertEquals(9, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    void streamedResponseShouldBeReleasedWithoutLatencySample() throws Exception {
+        // given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 10, 2.0);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limit, limit, new SimpleMeterRegistry(), Duration.ofSeconds(1), Set.of());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/books/");
+        request.setAsyncSupported(true);
+        FilterChain chain = (servletRequest, servletResponse) -> {
+            ((MockHttpServletResponse) servletResponse).setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            servletRequest.startAsync();
+        };
+
+        // when
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        assertEquals(1, limit.getInFlight());
+        request.getAsyncContext().complete();
+
+        // then
+        assertEquals(10, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+}
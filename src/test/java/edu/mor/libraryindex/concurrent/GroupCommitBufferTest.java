@@ -0,0 +1,129 @@
+package edu.mor.libraryindex.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupCommitBufferTest {
+    private final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+    private final ExecutorService callers = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void submitShouldReturnOnceItsBatchIsWritten() throws Exception {
+        // given
+        try (GroupCommitBuffer<Integer> buffer = new GroupCommitBuffer<>("test", 10, Duration.ZERO, batch -> {
+            batches.add(List.copyOf(batch));
+            return Map.of();
+        })) {
+            // when
+            buffer.submit(1);
+
+            // then
+            assertEquals(List.of(List.of(1)), batches);
+        }
+    }
+
+    @Test
+    void concurrentSubmitsShouldBeWrittenTogetherUpToBatchSize() throws Exception {
+        // given
+        CountDownLatch firstWriteStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstWrite = new CountDownLatch(1);
+        try (GroupCommitBuffer<Integer> buffer = new GroupCommitBuffer<>("test", 4, Duration.ZERO, batch -> {
+            batches.add(List.copyOf(batch));
+            firstWriteStarted.countDown();
+            await(releaseFirstWrite);
+            return Map.of();
+        })) {
+            Future<?> first = callers.submit(() -> buffer.submit(0));
+            assertTrue(firstWriteStarted.await(5, TimeUnit.SECONDS));
+
+            // when
+            List<Future<?>> others = new ArrayList<>();
+            for (int i = 1; i <= 6; i++) {
+                int item = i;
+                others.add(callers.submit(() -> buffer.submit(item)));
+            }
+            Thread.sleep(200);
+            assertFalse(first.isDone());
+            releaseFirstWrite.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            for (Future<?> other : others) {
+                other.get(5, TimeUnit.SECONDS);
+            }
+
+            // then
+            assertEquals(List.of(0), batches.get(0));
+            assertEquals(4, batches.get(1).size());
+            assertEquals(3, batches.size());
+        }
+    }
+
+    @Test
+    void submitShouldThrowFailureOfItsOwnItemOnly() throws Exception {
+        // given
+        try (GroupCommitBuffer<Integer> buffer = new GroupCommitBuffer<>("test", 10, Duration.ofMillis(50), batch -> {
+            batches.add(List.copyOf(batch));
+            return batch.indexOf(2) < 0 ? Map.of() : Map.of(batch.indexOf(2), new IllegalArgumentException("rejected 2"));
+        })) {
+            // when
+            Future<?> accepted = callers.submit(() -> buffer.submit(1));
+            Future<?> rejected = callers.submit(() -> buffer.submit(2));
+
+            // then
+            accepted.get(5, TimeUnit.SECONDS);
+            Exception exception = assertThrows(Exception.class, () -> rejected.get(5, TimeUnit.SECONDS));
+            assertEquals("rejected 2", exception.getCause().getMessage());
+        }
+    }
+
+    @Test
+    void submitShouldThrowWhenWholeBatchFails() throws Exception {
+        // given
+        try (GroupCommitBuffer<Integer> buffer = new GroupCommitBuffer<>("test", 10, Duration.ZERO, batch -> {
+            throw new IllegalStateException("down");
+        })) {
+            // when
+            IllegalStateException exception = assertThrows(IllegalStateException.class, () -> buffer.submit(1));
+
+            // then
+            assertEquals("down", exception.getMessage());
+        }
+    }
+
+    @Test
+    void submitShouldBeRejectedOnceClosed() throws Exception {
+        // given
+        GroupCommitBuffer<Integer> buffer = new GroupCommitBuffer<>("test", 10, Duration.ZERO, batch -> Map.of());
+
+        // when
+        buffer.close();
+
+        // then
+        assertThrows(IllegalStateException.class, () -> buffer.submit(1));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
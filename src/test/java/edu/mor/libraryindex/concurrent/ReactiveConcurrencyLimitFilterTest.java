@@ -0,0 +1,164 @@
+package edu.mor.libraryindex.concurrent;
+
+import com.mongodb.MongoTimeoutException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveConcurrencyLimitFilterTest {
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private AdaptiveConcurrencyLimit readLimit;
+    private AdaptiveConcurrencyLimit writeLimit;
+    private ReactiveConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        readLimit = new AdaptiveConcurrencyLimit(1, 1, 10, 2.0);
+        writeLimit = new AdaptiveConcurrencyLimit(1, 1, 10, 2.0);
+        filter = new ReactiveConcurrencyLimitFilter(readLimit, writeLimit, registry, Duration.ofSeconds(2), Set.of("/api/v1/books/export"));
+    }
+
+    @Test
+    void requestOverLimitShouldBeRejectedWithRetryAfter() {
+        // given
+        assertTrue(readLimit.tryAcquire());
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/books/1"));
+        AtomicBoolean called = new AtomicBoolean();
+
+        // when
+        filter.filter(exchange, calling(called)).block();
+
+        // then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exchange.getResponse().getStatusCode());
+        assertEquals("2", exchange.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(ConcurrencyLimitGroup.REJECTED_MESSAGE, exchange.getResponse().getBodyAsString().block());
+        assertFalse(called.get());
+        assertEquals(1.0, registry.get("library.concurrency.rejections").tag("group", "read").counter().count());
+    }
+
+    @Test
+    void writesShouldNotBeRejectedWhenReadsAreAtLimit() {
+        // given
+        assertTrue(readLimit.tryAcquire());
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/v1/books/"));
+        AtomicBoolean called = new AtomicBoolean();
+
+        // when
+        filter.filter(exchange, calling(called)).block();
+
+        // then
+        assertTrue(called.get());
+        assertEquals(0, writeLimit.getInFlight());
+    }
+
+    @Test
+    void admittedRequestShouldBeCountedInFlightUntilItCompletes() {
+        // given
+        double[] inFlightDuringRequest = new double[1];
+        WebFilterChain chain = exchange -> Mono.fromRunnable(() ->
+            inFlightDuringRequest[0] = registry.get("library.concurrency.in-flight").tag("group", "read").gauge().value());
+
+        // when
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/books/1")), chain).block();
+
+        // then
+        assertEquals(1.0, inFlightDuringRequest[0]);
+        assertEquals(0, readLimit.getInFlight());
+    }
+
+    @Test
+    void cancelledRequestShouldBeReleased() {
+        // given
+        WebFilterChain chain = exchange -> Mono.never();
+
+        // when
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/books/1")), chain).subscribe().dispose();
+
+        // then
+        assertEquals(0, readLimit.getInFlight());
+    }
+
+    @Test
+    void excludedAndOtherPathsShouldBypassLimit() {
+        // given
+        assertTrue(readLimit.tryAcquire());
+        AtomicBoolean exportCalled = new AtomicBoolean();
+        AtomicBoolean actuatorCalled = new AtomicBoolean();
+
+        // when
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/books/export")), calling(exportCalled)).block();
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/actuator/health")), calling(actuatorCalled)).block();
+
+        // then
+        assertTrue(exportCalled.get());
+        assertTrue(actuatorCalled.get());
+    }
+
+    @Test
+    void failureThatIsNotTimeoutShouldNotCutLimit() {
+        // given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 10, 2.0);
+        ReactiveConcurrencyLimitFilter filter = new ReactiveConcurrencyLimitFilter(limit, limit, new SimpleMeterRegistry(), Duration.ofSeconds(1), Set.of());
+        WebFilterChain chain = exchange -> Mono.error(new IllegalStateException("boom"));
+
+        // when
+        assertThrows(IllegalStateException.class, () ->
+            filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/books/1")), chain).block());
+
+        // then
+        assertEquals(10, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    void timeoutShouldCutLimit() {
+        // given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 10, 2.0);
+        ReactiveConcurrencyLimitFilter filter = new ReactiveConcurrencyLimitFilter(limit, limit, new SimpleMeterRegistry(), Duration.ofSeconds(1), Set.of());
+        WebFilterChain chain = exchange -> Mono.error(new MongoTimeoutException("no server"));
+
+        // when
+        assertThrows(MongoTimeoutException.class, () ->
+            filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/books/1")), chain).block());
+
+        // then
+        assertEquals(9, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    void streamedResponseShouldBeReleasedWithoutLatencySample() {
+        // given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 10, 2.0);
+        ReactiveConcurrencyLimitFilter filter = new ReactiveConcurrencyLimitFilter(limit, limit, new SimpleMeterRegistry(), Duration.ofSeconds(1), Set.of());
+        WebFilterChain chain = exchange -> Mono.fromRunnable(() -> {
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_NDJSON);
+        });
+
+        // when
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/books/")), chain).block();
+
+        // then
+        assertEquals(10, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    private static WebFilterChain calling(AtomicBoolean called) {
+        return exchange -> Mono.fromRunnable(() -> called.set(true));
+    }
+}
@@ -0,0 +1,143 @@
+package edu.mor.libraryindex.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch loadStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseLoad = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShouldShareOneLoad() throws Exception {
+        // given
+        Future<String> leader = callers.submit(() -> singleFlight.execute("1", () -> blockingLoad("value")));
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+        // when
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            followers.add(callers.submit(() -> singleFlight.execute("1", () -> blockingLoad("other"))));
+        }
+        Thread.sleep(200);
+        releaseLoad.countDown();
+
+        // then
+        assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+        for (Future<String> follower : followers) {
+            assertEquals("value", follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    void concurrentCallersShouldShareFailureOfLoad() throws Exception {
+        // given
+        IllegalStateException failure = new IllegalStateException("not found");
+        Future<String> leader = callers.submit(() -> singleFlight.execute("1", () -> {
+            blockingLoad("value");
+            throw failure;
+        }));
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+        // when
+        Future<String> follower = callers.submit(() -> singleFlight.execute("1", () -> blockingLoad("other")));
+        Thread.sleep(200);
+        releaseLoad.countDown();
+
+        // then
+        ExecutionException leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException followerFailure = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertSame(failure, leaderFailure.getCause());
+        assertSame(failure, followerFailure.getCause());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void differentKeysShouldLoadIndependently() {
+        // when
+        String first = singleFlight.execute("1", () -> "value1");
+        String second = singleFlight.execute("2", () -> "value2");
+
+        // then
+        assertEquals("value1", first);
+        assertEquals("value2", second);
+    }
+
+    @Test
+    void callAfterCompletedLoadShouldLoadAgain() {
+        // given
+        singleFlight.execute("1", () -> "value" + loads.incrementAndGet());
+
+        // when
+        String result = singleFlight.execute("1", () -> "value" + loads.incrementAndGet());
+
+        // then
+        assertEquals("value2", result);
+    }
+
+    @Test
+    void callAfterForgetShouldNotWaitForLoadInFlight() throws Exception {
+        // given
+        Future<String> leader = callers.submit(() -> singleFlight.execute("1", () -> blockingLoad("stale")));
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+        // when
+        singleFlight.forget("1");
+        String result = singleFlight.execute("1", () -> "fresh");
+        releaseLoad.countDown();
+
+        // then
+        assertEquals("fresh", result);
+        assertEquals("stale", leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void forgottenLoadShouldNotBePassedToOnLoaded() throws Exception {
+        // given
+        List<String> loaded = new ArrayList<>();
+        Future<String> leader = callers.submit(() -> singleFlight.execute("1", () -> blockingLoad("stale"), loaded::add));
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+        // when
+        singleFlight.forget("1");
+        releaseLoad.countDown();
+
+        // then
+        assertEquals("stale", leader.get(5, TimeUnit.SECONDS));
+        assertTrue(loaded.isEmpty());
+        assertEquals("fresh", singleFlight.execute("1", () -> "fresh", loaded::add));
+        assertEquals(List.of("fresh"), loaded);
+    }
+
+    private String blockingLoad(String value) {
+        loads.incrementAndGet();
+        loadStarted.countDown();
+        try {
+            assertTrue(releaseLoad.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,29 @@
+package edu.mor.libraryindex.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadsTest {
+    @Test
+    void newVirtualThreadPerTaskExecutorShouldRunTasksWhenSupported() throws Exception {
+        if (!VirtualThreads.isSupported()) {
+            assertThrows(IllegalStateException.class, VirtualThreads::newVirtualThreadPerTaskExecutor);
+            return;
+        }
+
+        // given
+        ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+
+        // when
+        Object isVirtual = executor.submit(() -> Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()))
+            .get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // then
+        assertEquals(Boolean.TRUE, isVirtual);
+    }
+}
@@ -2,27 +2,48 @@ package edu.mor.libraryindex.controller;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.mor.libraryindex.codec.BinaryObjectMappers;
+import edu.mor.libraryindex.codec.BookMediaTypes;
+import edu.mor.libraryindex.codec.BookProtobufReader;
+import edu.mor.libraryindex.dto.BookBulkItemResult;
 import edu.mor.libraryindex.dto.BookCreateDto;
+import edu.mor.libraryindex.dto.BookSearchResult;
+import edu.mor.libraryindex.dto.CatalogImportError;
+import edu.mor.libraryindex.dto.CatalogImportReport;
+import edu.mor.libraryindex.dto.CursorPage;
+import edu.mor.libraryindex.dto.HistogramCount;
+import edu.mor.libraryindex.model.AuthorFacet;
 import edu.mor.libraryindex.model.Book;
+import edu.mor.libraryindex.repository.AuthorFacetRepository;
 import edu.mor.libraryindex.repository.BookRepository;
+import edu.mor.libraryindex.repository.HistogramBucketRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -38,9 +59,23 @@ class BookControllerIntegrationTest {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private AuthorFacetRepository authorFacetRepository;
+
+    @Autowired
+    private HistogramBucketRepository histogramBucketRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BinaryObjectMappers binaryObjectMappers;
+
     @BeforeAll
     void setUp() {
         bookRepository.deleteAll();
+        authorFacetRepository.deleteAll();
+        histogramBucketRepository.deleteAll();
     }
 
     @Test
@@ -61,6 +96,52 @@ class BookControllerIntegrationTest {
         assertEquals(book2, books.get(1));
     }
 
+    @Test
+    void givenThatBooksExist_whenRequestAllBooksAsNdjson_thenStreamOneBookPerLine() throws Exception {
+        Book book1 = new Book("Title 1", "Description 1", Arrays.asList("Author 1"), LocalDateTime.now());
+        Book book2 = new Book("Title 2", "Description 2", Arrays.asList("Author 2"), LocalDateTime.now());
+        bookRepository.saveAll(Arrays.asList(book1, book2));
+
+        MvcResult asyncResult = mockMvc.perform(get("/api/v1/books/").accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        MvcResult mvcResult = mockMvc.perform(asyncDispatch(asyncResult))
+            .andExpect(status().isOk())
+            .andReturn();
+
+        List<Book> books = new ArrayList<>();
+        for (String line : mvcResult.getResponse().getContentAsString().split("\n")) {
+            books.add(objectMapper.readValue(line, Book.class));
+        }
+
+        assertTrue(books.contains(book1));
+        assertTrue(books.contains(book2));
+    }
+
+    @Test
+    void givenThatBooksExist_whenRequestExportWithPublishedAtRange_thenReturnCompressedMatchingBooks() throws Exception {
+        bookRepository.saveAll(Arrays.asList(
+            new Book("Exported", "Description", Arrays.asList("author"), LocalDateTime.of(1950, 6, 1, 0, 0)),
+            new Book("Not exported", "Description", Arrays.asList("author"), LocalDateTime.of(1960, 6, 1, 0, 0))));
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/books/export")
+                .param("publishedFrom", "1950-01-01T00:00:00")
+                .param("publishedTo", "1951-01-01T00:00:00"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/gzip"));
+
+        List<String> lines;
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(mvcResult.getResponse().getContentAsByteArray()))) {
+            lines = new String(gzip.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+        assertEquals(1, lines.size());
+        assertEquals("Exported", objectMapper.readValue(lines.get(0), Book.class).getTitle());
+    }
+
     @Test
     void givenThatBookExists_whenRequestBookById_thenReturnBook() throws Exception {
         Book book = new Book("Title", "Description", Arrays.asList("Author"), LocalDateTime.now());
@@ -75,6 +156,125 @@ class BookControllerIntegrationTest {
         assertEquals(book, actualBook);
     }
 
+    @Test
+    void givenThatBookExists_whenRequestBookByIdWithCurrentETag_thenReturnNotModifiedUntilUpdated() throws Exception {
+        Book book = new Book("Title", "Description", Arrays.asList("Author"), LocalDateTime.now());
+        book = bookRepository.save(book);
+
+        String eTag = mockMvc.perform(get("/api/v1/books/{id}", book.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "W/\"0\""))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        MvcResult notModified = mockMvc.perform(get("/api/v1/books/{id}", book.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag))
+            .andReturn();
+        assertEquals("", notModified.getResponse().getContentAsString());
+
+        BookCreateDto updatedBook = new BookCreateDto("Updated Title", "Description", Arrays.asList("Author"), LocalDateTime.now());
+        mockMvc.perform(put("/api/v1/books/{id}", book.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedBook)))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "W/\"1\""));
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/books/{id}", book.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "W/\"1\""))
+            .andReturn();
+
+        Book actualBook = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), Book.class);
+        assertEquals("Updated Title", actualBook.getTitle());
+        assertEquals(1, actualBook.getVersion());
+    }
+
+    @Test
+    void givenUnchangedPage_whenRequestPageWithCurrentETag_thenReturnNotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/api/v1/books/summaries").param("size", "5"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+
+        mockMvc.perform(get("/api/v1/books/summaries").param("size", "5").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/v1/books/summaries").param("size", "4").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void givenThatBookExists_whenRequestBookByIdAsBinaryFormat_thenReturnSameBook() throws Exception {
+        Book book = bookRepository.save(new Book("Title", "Description", Arrays.asList("Author"), LocalDateTime.now()));
+
+        byte[] cbor = mockMvc.perform(get("/api/v1/books/{id}", book.getId()).accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE))
+            .andReturn().getResponse().getContentAsByteArray();
+        byte[] smile = mockMvc.perform(get("/api/v1/books/{id}", book.getId()).accept(BookMediaTypes.APPLICATION_SMILE))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsByteArray();
+        byte[] protobuf = mockMvc.perform(get("/api/v1/books/{id}", book.getId()).accept(BookMediaTypes.APPLICATION_PROTOBUF))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_TYPE, BookMediaTypes.APPLICATION_PROTOBUF_VALUE))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(book, binaryObjectMappers.cbor().readValue(cbor, Book.class));
+        assertEquals(book, binaryObjectMappers.smile().readValue(smile, Book.class));
+        assertEquals(book, BookProtobufReader.readBook(protobuf));
+    }
+
+    @Test
+    void givenPagedRequest_whenRequestPageAsProtobuf_thenReturnPageMessage() throws Exception {
+        bookRepository.save(new Book("Title", "Description", Arrays.asList("Author"), LocalDateTime.now()));
+
+        byte[] protobuf = mockMvc.perform(get("/api/v1/books/page").param("size", "1").accept(BookMediaTypes.APPLICATION_PROTOBUF))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsByteArray();
+
+        CursorPage<Book> page = BookProtobufReader.readBookPage(protobuf);
+        assertEquals(1, page.items().size());
+    }
+
+    @Test
+    void givenSearchRequest_whenAcceptProtobuf_thenReturnNotAcceptable() throws Exception {
+        mockMvc.perform(get("/api/v1/books/search").param("q", "title").accept(BookMediaTypes.APPLICATION_PROTOBUF))
+            .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    void givenThatBooksExist_whenRequestAllBooksAsProtobufStream_thenReturnDelimitedBooks() throws Exception {
+        Book book = bookRepository.save(new Book("Title", "Description", Arrays.asList("Author"), LocalDateTime.now()));
+
+        MvcResult asyncResult = mockMvc.perform(get("/api/v1/books/").accept(BookMediaTypes.APPLICATION_PROTOBUF))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        MvcResult mvcResult = mockMvc.perform(asyncDispatch(asyncResult))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_TYPE, BookMediaTypes.APPLICATION_PROTOBUF_DELIMITED_VALUE))
+            .andReturn();
+
+        List<Book> books = BookProtobufReader.readDelimited(new ByteArrayInputStream(mvcResult.getResponse().getContentAsByteArray()));
+        assertTrue(books.contains(book));
+    }
+
+    @Test
+    void givenThatBooksExist_whenRequestAllBooksAsCborSequence_thenReturnOneValuePerBook() throws Exception {
+        Book book = bookRepository.save(new Book("Title", "Description", Arrays.asList("Author"), LocalDateTime.now()));
+
+        MvcResult asyncResult = mockMvc.perform(get("/api/v1/books/").accept(BookMediaTypes.APPLICATION_CBOR_SEQ))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        MvcResult mvcResult = mockMvc.perform(asyncDispatch(asyncResult))
+            .andExpect(status().isOk())
+            .andReturn();
+
+        List<Book> books = binaryObjectMappers.cbor().readerFor(Book.class)
+            .<Book>readValues(mvcResult.getResponse().getContentAsByteArray()).readAll();
+        assertTrue(books.contains(book));
+    }
+
     @Test
     void givenThatBookDoesNotExist_whenRequestBookById_thenReturnNotFound() throws Exception {
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/books/{id}", "nonExistingId"))
@@ -100,6 +300,80 @@ class BookControllerIntegrationTest {
         assertEquals(bookCreateDto.publishedAt(), actualBook.getPublishedAt());
     }
 
+    @Test
+    void whenRequestBulkCreateBooks_thenReturnResultPerBook() throws Exception {
+        List<BookCreateDto> bookCreateDtos = Arrays.asList(
+            new BookCreateDto("Title 1", "Description 1", Arrays.asList("Author"), LocalDateTime.now().withNano(0)),
+            new BookCreateDto("Title 2", "Description 2", Arrays.asList("Author"), null));
+
+        MvcResult mvcResult = mockMvc.perform(post("/api/v1/books/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bookCreateDtos)))
+            .andExpect(status().isMultiStatus())
+            .andReturn();
+
+        List<BookBulkItemResult> results = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<List<BookBulkItemResult>>() {
+        });
+
+        assertEquals(2, results.size());
+        assertEquals(BookBulkItemResult.Status.CREATED, results.get(0).status());
+        assertTrue(bookRepository.findById(results.get(0).id()).isPresent());
+        assertEquals(BookBulkItemResult.Status.FAILED, results.get(1).status());
+    }
+
+    @Test
+    void whenRequestImportCsvCatalog_thenCreateBooksAndReportFailedRows() throws Exception {
+        String csv = "title,authors,publishedAt\n"
+            + "Imported 1,Import Author,2020-01-01\n"
+            + "Imported 2,Import Author,\n"
+            + "\"Imported, 3\",Import Author;Other Author,2020-01-03T12:00\n";
+
+        MvcResult mvcResult = mockMvc.perform(post("/api/v1/books/import")
+                .contentType("text/csv")
+                .content(csv))
+            .andExpect(status().isMultiStatus())
+            .andReturn();
+
+        CatalogImportReport report = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), CatalogImportReport.class);
+        assertEquals(3, report.checkpoint());
+        assertEquals(2, report.created());
+        assertEquals(List.of(new CatalogImportError(1, "Book must have a publishedAt date!")), report.errors());
+        assertEquals(Arrays.asList(new AuthorFacet("Import Author", 2)), authorFacets("Import Author"));
+    }
+
+    @Test
+    void givenCheckpoint_whenRequestImportNdjsonCatalog_thenOnlyRowsFromOffsetAreCreated() throws Exception {
+        String ndjson = objectMapper.writeValueAsString(new BookCreateDto("Skipped", "Description", Arrays.asList("Resumed Author"), LocalDateTime.now()))
+            + "\n" + objectMapper.writeValueAsString(new BookCreateDto("Resumed", "Description", Arrays.asList("Resumed Author"), LocalDateTime.now()));
+
+        mockMvc.perform(post("/api/v1/books/import")
+                .param("offset", "1")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(ndjson))
+            .andExpect(status().isCreated());
+
+        assertEquals(Arrays.asList(new AuthorFacet("Resumed Author", 1)), authorFacets("Resumed Author"));
+    }
+
+    @Test
+    void givenThatBookWasCreated_whenSearchByKeyword_thenReturnBook() throws Exception {
+        BookCreateDto bookCreateDto = new BookCreateDto("Hitchhiker's Guide", "Don't panic and bring a towel", Arrays.asList("Author"), LocalDateTime.now());
+        mockMvc.perform(post("/api/v1/books/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bookCreateDto)))
+            .andExpect(status().isCreated());
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/books/search").param("q", "towels"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+        List<BookSearchResult> results = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<List<BookSearchResult>>() {
+        });
+
+        assertEquals(1, results.size());
+        assertEquals("Hitchhiker's Guide", results.get(0).book().getTitle());
+    }
+
     @Test
     void givenThatBookExists_whenRequestUpdateBookById_thenReturnUpdatedBook() throws Exception {
         Book book = new Book("Title", "Description", Arrays.asList("Author"), LocalDateTime.now());
@@ -155,4 +429,122 @@ class BookControllerIntegrationTest {
         mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/books/{id}", "nonExistingId"))
             .andExpect(MockMvcResultMatchers.status().isNotFound());
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenBooksWrittenThroughApi_whenRequestAuthorFacets_thenReturnCountsFollowingEveryWrite() throws Exception {
+        String first = createBook(new BookCreateDto("Title 1", "Description", Arrays.asList("Facet A", "Facet B"), LocalDateTime.now()));
+        String second = createBook(new BookCreateDto("Title 2", "Description", Arrays.asList("Facet A"), LocalDateTime.now()));
+        assertEquals(Arrays.asList(new AuthorFacet("Facet A", 2), new AuthorFacet("Facet B", 1)), authorFacets("Facet A", "Facet B"));
+
+        mockMvc.perform(put("/api/v1/books/{id}", first)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BookCreateDto("Title 1", "Description", Arrays.asList("Facet B", "Facet C"), LocalDateTime.now()))))
+            .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/v1/books/{id}", second))
+            .andExpect(status().isNoContent());
+
+        assertEquals(Arrays.asList(new AuthorFacet("Facet A", 0), new AuthorFacet("Facet B", 1), new AuthorFacet("Facet C", 1)),
+            authorFacets("Facet A", "Facet B", "Facet C"));
+    }
+
+    @Test
+    void givenBooksWrittenAroundApi_whenRebuildAuthorFacets_thenCountsAreRecomputed() throws Exception {
+        bookRepository.saveAll(Arrays.asList(
+            new Book("Title 1", "Description", Arrays.asList("Rebuilt A", "Rebuilt A"), LocalDateTime.now()),
+            new Book("Title 2", "Description", Arrays.asList("Rebuilt A", "Rebuilt B"), LocalDateTime.now())));
+        assertEquals(Arrays.asList(new AuthorFacet("Rebuilt A", 0)), authorFacets("Rebuilt A"));
+
+        mockMvc.perform(post("/api/v1/books/facets/authors/rebuild"))
+            .andExpect(status().isNoContent());
+
+        assertEquals(Arrays.asList(new AuthorFacet("Rebuilt A", 2), new AuthorFacet("Rebuilt B", 1)), authorFacets("Rebuilt A", "Rebuilt B"));
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/books/facets/authors").param("limit", "1"))
+            .andExpect(status().isOk())
+            .andReturn();
+        List<AuthorFacet> top = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<List<AuthorFacet>>() {
+        });
+        assertEquals(1, top.size());
+        assertTrue(top.get(0).getCount() >= 2);
+    }
+
+    @Test
+    void givenBooksWrittenThroughApi_whenRequestHistogram_thenReturnCountsFollowingEveryWrite() throws Exception {
+        String first = createBook(new BookCreateDto("Title 1", "Description", Arrays.asList("author"), LocalDateTime.of(1901, 3, 1, 10, 0)));
+        String second = createBook(new BookCreateDto("Title 2", "Description", Arrays.asList("author"), LocalDateTime.of(1901, 7, 1, 10, 0)));
+        assertEquals(Arrays.asList(new HistogramCount(LocalDateTime.of(1901, 1, 1, 0, 0), 2)), histogram("year", 1901));
+
+        mockMvc.perform(put("/api/v1/books/{id}", first)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BookCreateDto("Title 1", "Description", Arrays.asList("author"), LocalDateTime.of(1902, 1, 1, 0, 0)))))
+            .andExpect(status().isOk());
+        assertEquals(Arrays.asList(new HistogramCount(LocalDateTime.of(1901, 1, 1, 0, 0), 1), new HistogramCount(LocalDateTime.of(1902, 1, 1, 0, 0), 1)),
+            histogram("year", 1901));
+
+        mockMvc.perform(delete("/api/v1/books/{id}", second))
+            .andExpect(status().isNoContent());
+        assertEquals(Arrays.asList(new HistogramCount(LocalDateTime.of(1902, 1, 1, 0, 0), 1)), histogram("month", 1901));
+    }
+
+    @Test
+    void givenBooksWrittenAroundApi_whenRebuildHistogram_thenCountsAreRecomputed() throws Exception {
+        bookRepository.saveAll(Arrays.asList(
+            new Book("Title 1", "Description", Arrays.asList("author"), LocalDateTime.of(1905, 5, 2, 0, 0)),
+            new Book("Title 2", "Description", Arrays.asList("author"), LocalDateTime.of(1905, 5, 2, 12, 0))));
+        assertEquals(Collections.emptyList(), histogram("day", 1905));
+
+        mockMvc.perform(post("/api/v1/books/histogram/rebuild"))
+            .andExpect(status().isNoContent());
+
+        assertEquals(Arrays.asList(new HistogramCount(LocalDateTime.of(1905, 5, 2, 0, 0), 2)), histogram("day", 1905));
+    }
+
+    @Test
+    void givenUnknownGranularity_whenRequestHistogram_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/books/histogram")
+                .param("granularity", "week")
+                .param("from", "1901-01-01T00:00:00")
+                .param("to", "1903-01-01T00:00:00"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void givenPagedRequest_whenRequestPage_thenServiceAndRepositoryCallsAreMetered() throws Exception {
+        mockMvc.perform(get("/api/v1/books/page").param("size", "5"))
+            .andExpect(status().isOk());
+
+        assertEquals(1, meterRegistry.get("library.service.invocations")
+            .tags("service", "BookService", "method", "getPage", "exception", "none").timer().count());
+        assertTrue(meterRegistry.get("library.repository.invocations")
+            .tags("repository", "BookRepository", "method", "findAllBy").timer().count() >= 1);
+        assertNotNull(meterRegistry.get("library.repository.results").tags("method", "findAllBy").summary());
+    }
+
+    private String createBook(BookCreateDto dto) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(post("/api/v1/books/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+            .andExpect(status().isCreated())
+            .andReturn();
+        return objectMapper.readValue(mvcResult.getResponse().getContentAsString(), Book.class).getId();
+    }
+
+    private List<HistogramCount> histogram(String granularity, int fromYear) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/books/histogram")
+                .param("field", "publishedAt")
+                .param("granularity", granularity)
+                .param("from", LocalDateTime.of(fromYear, 1, 1, 0, 0).toString())
+                .param("to", LocalDateTime.of(fromYear + 2, 1, 1, 0, 0).toString()))
+            .andExpect(status().isOk())
+            .andReturn();
+        return objectMapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<List<HistogramCount>>() {
+        });
+    }
+
+    private List<AuthorFacet> authorFacets(String... authors) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/books/facets/authors").param("author", authors))
+            .andExpect(status().isOk())
+            .andReturn();
+        return objectMapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<List<AuthorFacet>>() {
+        });
+    }
+}
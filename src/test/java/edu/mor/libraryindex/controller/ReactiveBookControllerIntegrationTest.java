@@ -0,0 +1,284 @@
+package edu.mor.libraryindex.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.mor.libraryindex.codec.BookMediaTypes;
+import edu.mor.libraryindex.codec.BookProtobufReader;
+import edu.mor.libraryindex.codec.BookProtos;
+import edu.mor.libraryindex.dto.BookBulkItemResult;
+import edu.mor.libraryindex.dto.BookCreateDto;
+import edu.mor.libraryindex.dto.CatalogImportError;
+import edu.mor.libraryindex.dto.CatalogImportReport;
+import edu.mor.libraryindex.dto.HistogramCount;
+import edu.mor.libraryindex.model.AuthorFacet;
+import edu.mor.libraryindex.model.Book;
+import edu.mor.libraryindex.repository.AuthorFacetRepository;
+import edu.mor.libraryindex.repository.HistogramBucketRepository;
+import edu.mor.libraryindex.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+class ReactiveBookControllerIntegrationTest {
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorFacetRepository authorFacetRepository;
+
+    @Autowired
+    private HistogramBucketRepository histogramBucketRepository;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAll();
+        authorFacetRepository.deleteAll();
+        histogramBucketRepository.deleteAll();
+    }
+
+    @Test
+    void givenThatBooksExist_whenRequestAllBooksAsNdjson_thenStreamOneBookPerLine() {
+        Book book1 = new Book("Title 1", "Description 1", Arrays.asList("Author 1"), LocalDateTime.now());
+        Book book2 = new Book("Title 2", "Description 2", Arrays.asList("Author 2"), LocalDateTime.now());
+        bookRepository.saveAll(Arrays.asList(book1, book2));
+
+        List<Book> books = webTestClient.get().uri("/api/v1/books/")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+            .returnResult(Book.class)
+            .getResponseBody()
+            .collectList()
+            .block();
+
+        assertEquals(Arrays.asList(book1, book2), books);
+    }
+
+    @Test
+    void givenThatBooksExist_whenRequestAllBooksAsProtobufStream_thenReturnDelimitedBooks() throws IOException {
+        Book book1 = new Book("Title 1", "Description 1", Arrays.asList("Author 1"), LocalDateTime.now());
+        Book book2 = new Book("Title 2", "Description 2", Arrays.asList("Author 2"), LocalDateTime.now());
+        bookRepository.saveAll(Arrays.asList(book1, book2));
+
+        byte[] body = webTestClient.get().uri("/api/v1/books/")
+            .accept(BookMediaTypes.APPLICATION_PROTOBUF_DELIMITED)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .returnResult()
+            .getResponseBody();
+
+        assertEquals(Arrays.asList(book1, book2), BookProtobufReader.readDelimited(new ByteArrayInputStream(body)));
+    }
+
+    @Test
+    void givenThatBooksExist_whenRequestSummariesByTitleAsProtobuf_thenReturnOnePageMessage() throws IOException {
+        Book book1 = new Book("Reactive Title", "Description 1", Arrays.asList("Author 1"), LocalDateTime.now());
+        Book book2 = new Book("Reactive Title", "Description 2", Arrays.asList("Author 2"), LocalDateTime.now());
+        bookRepository.saveAll(Arrays.asList(book1, book2));
+
+        byte[] body = webTestClient.get().uri("/api/v1/books/summaries/by-title?title={title}", "Reactive Title")
+            .accept(BookMediaTypes.APPLICATION_PROTOBUF)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .returnResult()
+            .getResponseBody();
+
+        BookProtos.BookSummaryPage page = BookProtos.BookSummaryPage.parseFrom(body);
+        assertEquals(2, page.getItemsCount());
+        assertEquals("Reactive Title", page.getItems(0).getTitle());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    void givenThatBookDoesNotExist_whenRequestBookById_thenReturnNotFound() {
+        webTestClient.get().uri("/api/v1/books/{id}", "missing")
+            .exchange()
+            .expectStatus().isNotFound();
+    }
+
+    @Test
+    void givenThatBookExists_whenRequestBookByIdWithCurrentETag_thenReturnNotModified() {
+        Book book = bookRepository.save(new Book("Title", "Description", Arrays.asList("Author"), LocalDateTime.now()));
+
+        webTestClient.get().uri("/api/v1/books/{id}", book.getId())
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals(HttpHeaders.ETAG, "W/\"0\"");
+
+        webTestClient.get().uri("/api/v1/books/{id}", book.getId())
+            .header(HttpHeaders.IF_NONE_MATCH, "W/\"0\"")
+            .exchange()
+            .expectStatus().isNotModified()
+            .expectBody().isEmpty();
+    }
+
+    @Test
+    void givenBookCreateDto_whenCreateBook_thenBookIsPersisted() {
+        BookCreateDto dto = new BookCreateDto("Title", "Description", Arrays.asList("Author"), LocalDateTime.now());
+
+        Book created = webTestClient.post().uri("/api/v1/books/")
+            .bodyValue(dto)
+            .exchange()
+            .expectStatus().isCreated()
+            .expectBody(Book.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertNotNull(created);
+        assertTrue(bookRepository.findById(created.getId()).isPresent());
+    }
+
+    @Test
+    void givenBulkWithInvalidItem_whenCreateAll_thenReturnMultiStatus() {
+        List<BookCreateDto> dtos = Arrays.asList(
+            new BookCreateDto("Title 1", "Description 1", Arrays.asList("Author 1"), LocalDateTime.now()),
+            new BookCreateDto("Title 2", "Description 2", Arrays.asList("Author 2"), null));
+
+        List<BookBulkItemResult> results = webTestClient.post().uri("/api/v1/books/bulk")
+            .bodyValue(dtos)
+            .exchange()
+            .expectStatus().isEqualTo(207)
+            .expectBody(new ParameterizedTypeReference<List<BookBulkItemResult>>() {
+            })
+            .returnResult()
+            .getResponseBody();
+
+        assertEquals(BookBulkItemResult.Status.CREATED, results.get(0).status());
+        assertEquals(BookBulkItemResult.Status.FAILED, results.get(1).status());
+        assertEquals(1, bookRepository.count());
+    }
+
+    @Test
+    void givenBookCreatedAndDeleted_whenRequestAuthorFacets_thenCountFollowsWrites() {
+        BookCreateDto dto = new BookCreateDto("Title", "Description", Arrays.asList("Reactive Facet"), LocalDateTime.now());
+        Book created = webTestClient.post().uri("/api/v1/books/")
+            .bodyValue(dto)
+            .exchange()
+            .expectStatus().isCreated()
+            .expectBody(Book.class)
+            .returnResult()
+            .getResponseBody();
+        assertEquals(Arrays.asList(new AuthorFacet("Reactive Facet", 1)), authorFacets("Reactive Facet"));
+
+        webTestClient.delete().uri("/api/v1/books/{id}", created.getId())
+            .exchange()
+            .expectStatus().isNoContent();
+
+        assertEquals(Arrays.asList(new AuthorFacet("Reactive Facet", 0)), authorFacets("Reactive Facet"));
+    }
+
+    @Test
+    void givenBookCreated_whenRequestHistogram_thenBookIsCounted() {
+        BookCreateDto dto = new BookCreateDto("Title", "Description", Arrays.asList("author"), LocalDateTime.of(1901, 3, 1, 10, 0));
+        webTestClient.post().uri("/api/v1/books/")
+            .bodyValue(dto)
+            .exchange()
+            .expectStatus().isCreated();
+
+        List<HistogramCount> histogram = webTestClient.get().uri(uri -> uri.path("/api/v1/books/histogram")
+                .queryParam("granularity", "month")
+                .queryParam("from", "1901-01-01T00:00:00")
+                .queryParam("to", "1902-01-01T00:00:00")
+                .build())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(HistogramCount.class)
+            .returnResult()
+            .getResponseBody();
+        assertEquals(Arrays.asList(new HistogramCount(LocalDateTime.of(1901, 3, 1, 0, 0), 1)), histogram);
+    }
+
+    @Test
+    void whenRequestImportCsvCatalog_thenCreateBooksAndReportFailedRows() {
+        String csv = "title,authors,publishedAt\n"
+            + "Imported 1,Import Author,2020-01-01\n"
+            + "Imported 2,Import Author,\n"
+            + "\"Imported, 3\",Import Author;Other Author,2020-01-03T12:00\n";
+
+        CatalogImportReport report = webTestClient.post().uri("/api/v1/books/import")
+            .contentType(MediaType.parseMediaType("text/csv"))
+            .bodyValue(csv)
+            .exchange()
+            .expectStatus().isEqualTo(207)
+            .expectBody(CatalogImportReport.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertEquals(3, report.checkpoint());
+        assertEquals(2, report.created());
+        assertEquals(List.of(new CatalogImportError(1, "Book must have a publishedAt date!")), report.errors());
+        assertEquals(Arrays.asList(new AuthorFacet("Import Author", 2)), authorFacets("Import Author"));
+    }
+
+    @Test
+    void givenThatBooksExist_whenRequestExportWithPublishedAtRange_thenReturnCompressedMatchingBooks() throws IOException {
+        bookRepository.saveAll(Arrays.asList(
+            new Book("Exported", "Description", Arrays.asList("author"), LocalDateTime.of(1950, 6, 1, 0, 0)),
+            new Book("Not exported", "Description", Arrays.asList("author"), LocalDateTime.of(1960, 6, 1, 0, 0))));
+
+        byte[] body = webTestClient.get().uri(uri -> uri.path("/api/v1/books/export")
+                .queryParam("publishedFrom", "1950-01-01T00:00:00")
+                .queryParam("publishedTo", "1951-01-01T00:00:00")
+                .build())
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentType(BookMediaTypes.APPLICATION_GZIP)
+            .expectBody()
+            .returnResult()
+            .getResponseBody();
+
+        List<String> lines;
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            lines = new String(gzip.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+        assertEquals(1, lines.size());
+        assertEquals("Exported", objectMapper.readValue(lines.get(0), Book.class).getTitle());
+    }
+
+    @Test
+    void whenRequestExportWithInvertedPublishedAtRange_thenReturnBadRequest() {
+        webTestClient.get().uri(uri -> uri.path("/api/v1/books/export")
+                .queryParam("publishedFrom", "1951-01-01T00:00:00")
+                .queryParam("publishedTo", "1950-01-01T00:00:00")
+                .build())
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    private List<AuthorFacet> authorFacets(String author) {
+        return webTestClient.get().uri(uri -> uri.path("/api/v1/books/facets/authors").queryParam("author", author).build())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(AuthorFacet.class)
+            .returnResult()
+            .getResponseBody();
+    }
+}
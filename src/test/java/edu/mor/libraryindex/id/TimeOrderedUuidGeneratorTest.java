@@ -0,0 +1,46 @@
+package edu.mor.libraryindex.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedUuidGeneratorTest {
+    private final TimeOrderedUuidGenerator generator = new TimeOrderedUuidGenerator();
+
+    @Test
+    void nextIdShouldBeVersion7Uuid() {
+        UUID uuid = UUID.fromString(generator.nextId());
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    void nextIdShouldEncodeTimestampInLeadingBits() {
+        long epochMillis = 1_700_000_000_123L;
+
+        UUID uuid = TimeOrderedUuidGenerator.next(epochMillis);
+
+        assertEquals(epochMillis, uuid.getMostSignificantBits() >>> 16);
+    }
+
+    @Test
+    void idsOfLaterMillisecondsShouldSortAfterEarlierOnes() {
+        String earlier = TimeOrderedUuidGenerator.next(1_700_000_000_000L).toString();
+        String later = TimeOrderedUuidGenerator.next(1_700_000_000_001L).toString();
+
+        assertTrue(earlier.compareTo(later) < 0);
+    }
+
+    @Test
+    void nextIdShouldNotRepeat() {
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(ids.add(generator.nextId()));
+        }
+    }
+}
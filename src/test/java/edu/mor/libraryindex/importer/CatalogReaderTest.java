@@ -0,0 +1,139 @@
+package edu.mor.libraryindex.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import edu.mor.libraryindex.dto.BookCreateDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogReaderTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void csvReaderShouldReadQuotedFieldsAndSplitAuthors() throws IOException {
+        // given
+        String csv = "\uFEFFpublishedAt,title,authors,description\r\n"
+            + "2020-01-02T10:00,\"Title, with comma\",Author A; Author B,\"Line one\nLine \"\"two\"\"\"\r\n"
+            + "\n"
+            + "2021-03-04,Plain,,\n";
+
+        // when
+        List<CatalogRow> rows = readAll(CatalogFormat.CSV, csv);
+
+        // then
+        assertEquals(Arrays.asList(
+            CatalogRow.read(0, new BookCreateDto("Title, with comma", "Line one\nLine \"two\"", Arrays.asList("Author A", "Author B"),
+                LocalDateTime.of(2020, 1, 2, 10, 0))),
+            CatalogRow.read(1, new BookCreateDto("Plain", null, List.of(), LocalDateTime.of(2021, 3, 4, 0, 0)))), rows);
+    }
+
+    @Test
+    void csvReaderShouldFailMalformedRowsAndGoOn() throws IOException {
+        // given
+        String csv = "title,publishedAt\nOne,2020-01-01\nTwo\nThree,yesterday\nFour,2020-01-01\n";
+
+        // when
+        List<CatalogRow> rows = readAll(CatalogFormat.CSV, csv);
+
+        // then
+        assertEquals(4, rows.size());
+        assertNull(rows.get(0).error());
+        assertEquals("Row has 1 columns but the header has 2!", rows.get(1).error());
+        assertEquals("publishedAt must be an ISO date or date-time!", rows.get(2).error());
+        assertEquals(3, rows.get(3).number());
+        assertEquals("Four", rows.get(3).book().title());
+    }
+
+    @Test
+    void csvReaderShouldRejectHeaderWithoutPublishedAt() {
+        assertThrows(IOException.class, () -> readAll(CatalogFormat.CSV, "title,authors\nOne,Author\n"));
+    }
+
+    @Test
+    void csvReaderShouldRejectQuoteThatIsNeverClosed() {
+        assertThrows(IOException.class, () -> readAll(CatalogFormat.CSV, "title,publishedAt\n\"One,2020-01-01\n"));
+    }
+
+    @Test
+    void ndjsonReaderShouldSkipBlankLinesAndFailMalformedOnes() throws IOException {
+        // given
+        String ndjson = "{\"title\":\"One\",\"authors\":[\"Author\"],\"publishedAt\":\"2020-01-01T00:00:00\"}\n"
+            + "\n"
+            + "{\"title\":\n"
+            + "{\"title\":\"Three\"}\n";
+
+        // when
+        List<CatalogRow> rows = readAll(CatalogFormat.NDJSON, ndjson);
+
+        // then
+        assertEquals(3, rows.size());
+        assertEquals(new BookCreateDto("One", null, List.of("Author"), LocalDateTime.of(2020, 1, 1, 0, 0)), rows.get(0).book());
+        assertTrue(rows.get(1).error().startsWith("Malformed JSON"));
+        assertEquals(2, rows.get(2).number());
+        assertNull(rows.get(2).book().publishedAt());
+    }
+
+    @Test
+    void csvReaderShouldSkipRowsSpanningLinesAndNumberRowsAfterThem() throws IOException {
+        // given
+        String csv = "title,publishedAt\n\"One\nstill one\",yesterday\n\nTwo\nThree,2020-01-03\n";
+
+        try (CatalogReader reader = open(CatalogFormat.CSV, csv)) {
+            // when
+            long skipped = reader.skip(2);
+            CatalogRow row = reader.next();
+
+            // then
+            assertEquals(2, skipped);
+            assertEquals(2, row.number());
+            assertEquals("Three", row.book().title());
+            assertEquals(0, reader.skip(5));
+        }
+    }
+
+    @Test
+    void ndjsonReaderShouldSkipBlankAndMalformedLinesWithoutParsing() throws IOException {
+        // given
+        String ndjson = "{\"title\":\n\r\n  \n[1]\r\n{\"title\":\"Three\"}";
+
+        try (CatalogReader reader = open(CatalogFormat.NDJSON, ndjson)) {
+            // when
+            long skipped = reader.skip(2);
+            CatalogRow row = reader.next();
+
+            // then
+            assertEquals(2, skipped);
+            assertEquals(2, row.number());
+            assertEquals("Three", row.book().title());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void ndjsonReaderShouldRejectLineLongerThanLimit() {
+        assertThrows(IOException.class, () -> readAll(CatalogFormat.NDJSON, "x".repeat(NdjsonCatalogReader.MAX_LINE_LENGTH + 1)));
+    }
+
+    private CatalogReader open(CatalogFormat format, String content) {
+        return CatalogReader.open(format, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), objectMapper);
+    }
+
+    private List<CatalogRow> readAll(CatalogFormat format, String content) throws IOException {
+        List<CatalogRow> rows = new ArrayList<>();
+        try (CatalogReader reader = open(format, content)) {
+            for (CatalogRow row = reader.next(); row != null; row = reader.next()) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,55 @@
+package edu.mor.libraryindex.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookTest {
+    private static final LocalDateTime PUBLISHED_AT = LocalDateTime.of(2020, 5, 17, 10, 30);
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2023, 1, 2, 3, 4, 5);
+
+    @Test
+    void booksWithEqualAuthorsInDifferentListTypesShouldBeEqualWithSameHash() {
+        // given
+        Book arrayBacked = new Book("1", "title", "desc", Arrays.asList("a", "b"), PUBLISHED_AT, CREATED_AT);
+        Book arrayList = new Book("1", "title", "desc", new ArrayList<>(Arrays.asList("a", "b")), PUBLISHED_AT, CREATED_AT);
+        Book linkedList = new Book("1", "title", "desc", new LinkedList<>(Arrays.asList("a", "b")), PUBLISHED_AT, CREATED_AT);
+
+        // then
+        assertEquals(arrayBacked, arrayList);
+        assertEquals(arrayBacked, linkedList);
+        assertEquals(arrayBacked.hashCode(), arrayList.hashCode());
+        assertEquals(arrayBacked.hashCode(), linkedList.hashCode());
+    }
+
+    @Test
+    void booksDifferingInAnyFieldShouldNotBeEqual() {
+        // given
+        Book book = new Book("1", "title", "desc", Arrays.asList("a", "b"), PUBLISHED_AT, CREATED_AT);
+
+        // then
+        assertNotEquals(book, new Book("2", "title", "desc", Arrays.asList("a", "b"), PUBLISHED_AT, CREATED_AT));
+        assertNotEquals(book, new Book("1", "other", "desc", Arrays.asList("a", "b"), PUBLISHED_AT, CREATED_AT));
+        assertNotEquals(book, new Book("1", "title", "other", Arrays.asList("a", "b"), PUBLISHED_AT, CREATED_AT));
+        assertNotEquals(book, new Book("1", "title", "desc", Arrays.asList("a"), PUBLISHED_AT, CREATED_AT));
+        assertNotEquals(book, new Book("1", "title", "desc", Arrays.asList("b", "a"), PUBLISHED_AT, CREATED_AT));
+        assertNotEquals(book, new Book("1", "title", "desc", null, PUBLISHED_AT, CREATED_AT));
+        assertNotEquals(book, new Book("1", "title", "desc", Arrays.asList("a", "b"), PUBLISHED_AT.plusDays(1), CREATED_AT));
+        assertNotEquals(book, new Book("1", "title", "desc", Arrays.asList("a", "b"), PUBLISHED_AT, CREATED_AT.plusSeconds(1)));
+    }
+
+    @Test
+    void bookWithNullFieldsShouldBeEqualToItsCopy() {
+        // given
+        Book book = new Book(null, null, null, null, null, null);
+
+        // then
+        assertEquals(book, new Book());
+        assertEquals(book.hashCode(), new Book().hashCode());
+    }
+}
@@ -0,0 +1,109 @@
+package edu.mor.libraryindex.monitoring;
+
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvocationMetricsTest {
+    interface Finder {
+        List<String> findAll();
+
+        String fail();
+
+        Flux<String> stream();
+    }
+
+    static class ListFinder implements Finder {
+        @Override
+        public List<String> findAll() {
+            return Arrays.asList("a", "b", "c");
+        }
+
+        @Override
+        public String fail() {
+            throw new IllegalStateException("boom");
+        }
+
+        @Override
+        public Flux<String> stream() {
+            return Flux.just("a", "b");
+        }
+    }
+
+    private SimpleMeterRegistry registry;
+    private Finder finder;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        ProxyFactory proxyFactory = new ProxyFactory(new ListFinder());
+        proxyFactory.addAdvice(new InvocationMetrics(registry, "test", "owner", null, new double[]{0.5, 0.99}));
+        finder = (Finder) proxyFactory.getProxy();
+    }
+
+    @Test
+    void invokeShouldRecordLatencyAndResultSize() {
+        // when
+        finder.findAll();
+        finder.findAll();
+
+        // then
+        assertEquals(2, registry.get("test.invocations").tags("owner", "ListFinder", "method", "findAll", "exception", "none").timer().count());
+        assertEquals(6, registry.get("test.results").tags("method", "findAll").summary().totalAmount());
+    }
+
+    @Test
+    void invokeShouldCountErrorsByExceptionType() {
+        // when
+        assertThrows(IllegalStateException.class, finder::fail);
+
+        // then
+        assertEquals(1, registry.get("test.errors").tags("method", "fail", "exception", "IllegalStateException").counter().count());
+        assertEquals(1, registry.get("test.invocations").tags("method", "fail", "exception", "IllegalStateException").timer().count());
+    }
+
+    @Test
+    void invokeShouldMeasureFluxUntilCompletion() {
+        // when
+        Flux<String> result = finder.stream();
+
+        // then
+        assertEquals(0, registry.get("test.invocations").tags("method", "stream").timer().count());
+        StepVerifier.create(result).expectNext("a", "b").verifyComplete();
+        assertEquals(1, registry.get("test.invocations").tags("method", "stream").timer().count());
+        assertEquals(2, registry.get("test.results").tags("method", "stream").summary().totalAmount());
+    }
+
+    @Test
+    void latencyHistogramShouldBeBoundedAndResultSizesShouldHaveNone() {
+        // given
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        ProxyFactory proxyFactory = new ProxyFactory(new ListFinder());
+        proxyFactory.addAdvice(new InvocationMetrics(registry, "test", "owner", null, new double[]{0.5, 0.99}));
+        Finder finder = (Finder) proxyFactory.getProxy();
+
+        // when
+        finder.findAll();
+
+        // then
+        CountAtBucket[] buckets = registry.get("test.invocations").tags("method", "findAll").timer().takeSnapshot().histogramCounts();
+        assertTrue(buckets.length > 0);
+        for (CountAtBucket bucket : buckets) {
+            assertTrue(bucket.bucket(TimeUnit.NANOSECONDS) >= InvocationMetrics.HISTOGRAM_MIN.toNanos());
+            assertTrue(bucket.bucket(TimeUnit.NANOSECONDS) <= InvocationMetrics.HISTOGRAM_MAX.toNanos());
+        }
+        assertEquals(0, registry.get("test.results").tags("method", "findAll").summary().takeSnapshot().histogramCounts().length);
+    }
+}
@@ -0,0 +1,63 @@
+package edu.mor.libraryindex.monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsConfigurationTest {
+    @Service
+    static class ExampleService {
+        public String find() {
+            return "found";
+        }
+
+        public int rebuild() {
+            return 0;
+        }
+
+        @EventListener(ApplicationReadyEvent.class)
+        public void onApplicationReady() {
+        }
+
+        @Scheduled(cron = "-")
+        public void exportDaily() {
+        }
+    }
+
+    static class NotAService {
+        public String find() {
+            return "found";
+        }
+    }
+
+    private final MetricsConfiguration.ServiceRequestPointcut pointcut = new MetricsConfiguration.ServiceRequestPointcut();
+
+    @Test
+    void pointcutShouldMatchRequestMethodsOfServices() throws NoSuchMethodException {
+        // when
+        boolean matches = matches(ExampleService.class, "find");
+
+        // then
+        assertTrue(matches);
+        assertFalse(pointcut.getClassFilter().matches(NotAService.class));
+    }
+
+    @Test
+    void pointcutShouldNotMatchRebuildsListenersAndScheduledJobs() throws NoSuchMethodException {
+        // then
+        assertFalse(matches(ExampleService.class, "rebuild"));
+        assertFalse(matches(ExampleService.class, "onApplicationReady"));
+        assertFalse(matches(ExampleService.class, "exportDaily"));
+    }
+
+    private boolean matches(Class<?> type, String name) throws NoSuchMethodException {
+        Method method = type.getMethod(name);
+        return pointcut.getClassFilter().matches(type) && pointcut.getMethodMatcher().matches(method, type);
+    }
+}
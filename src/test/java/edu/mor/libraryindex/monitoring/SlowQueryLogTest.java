@@ -0,0 +1,153 @@
+package edu.mor.libraryindex.monitoring;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowQueryLogTest {
+    private static final ConnectionDescription CONNECTION =
+        new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2023-04-01T10:00:00Z"), ZoneOffset.UTC);
+
+    private final SlowQueryLog slowQueryLog = new SlowQueryLog(Duration.ofMillis(100), 2, CLOCK);
+
+    @Test
+    void commandSlowerThanThresholdShouldBeRecordedWithRedactedShape() {
+        // given
+        BsonDocument command = BsonDocument.parse("{find: 'book', filter: {authors: 'Jane Doe', createdAt: {$gt: 5}},"
+            + " limit: 21, lsid: {id: 1}, $db: 'library'}");
+        BsonDocument response = BsonDocument.parse("{cursor: {id: 0, ns: 'library.book', firstBatch: [{}, {}, {}]}, ok: 1}");
+
+        // when
+        String previous = QueryOrigin.enter("BookRepository.findByAuthors");
+        try {
+            start(1, "find", command);
+        } finally {
+            QueryOrigin.restore(previous);
+        }
+        slowQueryLog.commandSucceeded(new CommandSucceededEvent(null, 1, CONNECTION, "find", response, millis(150)));
+
+        // then
+        List<SlowQuery> recent = slowQueryLog.recent();
+        assertEquals(1, recent.size());
+        SlowQuery query = recent.get(0);
+        assertEquals("library", query.database());
+        assertEquals("find", query.command());
+        assertEquals("BookRepository.findByAuthors", query.origin());
+        assertEquals(150, query.durationMillis());
+        assertEquals(3, query.documents());
+        assertFalse(query.failed());
+        assertEquals(CLOCK.instant(), query.finishedAt());
+        assertEquals(BsonDocument.parse("{find: 'book', filter: {authors: '?', createdAt: {$gt: '?'}}, limit: '?'}"),
+            BsonDocument.parse(query.shape()));
+        assertFalse(query.shape().contains("Jane Doe"));
+    }
+
+    @Test
+    void commandFasterThanThresholdShouldNotBeRecorded() {
+        // when
+        start(1, "find", BsonDocument.parse("{find: 'book', filter: {}}"));
+        slowQueryLog.commandSucceeded(new CommandSucceededEvent(null, 1, CONNECTION, "find", new BsonDocument(), millis(99)));
+
+        // then
+        assertTrue(slowQueryLog.recent().isEmpty());
+    }
+
+    @Test
+    void shapeShouldBeTakenWhenCommandStarts() {
+        // given
+        BsonDocument command = BsonDocument.parse("{find: 'book', filter: {title: 'A'}}");
+        start(1, "find", command);
+
+        // when
+        command.clear();
+        slowQueryLog.commandSucceeded(new CommandSucceededEvent(null, 1, CONNECTION, "find", new BsonDocument(), millis(150)));
+
+        // then
+        assertEquals(BsonDocument.parse("{find: 'book', filter: {title: '?'}}"), BsonDocument.parse(slowQueryLog.recent().get(0).shape()));
+    }
+
+    @Test
+    void arraysShouldBeCollapsedToShapeOfFirstElement() {
+        // when
+        BsonDocument shape = SlowQueryLog.redact(BsonDocument.parse(
+            "{insert: 'book', documents: [{_id: 'a', title: 'A'}, {_id: 'b', title: 'B'}], ordered: false}"));
+
+        // then
+        assertEquals(BsonDocument.parse("{insert: 'book', documents: [{_id: '?', title: '?'}], ordered: '?'}"), shape);
+    }
+
+    @Test
+    void writeResponseShouldCountAffectedDocuments() {
+        // then
+        assertEquals(2, SlowQueryLog.documentsIn(BsonDocument.parse("{n: 2, ok: 1}")));
+        assertEquals(1, SlowQueryLog.documentsIn(BsonDocument.parse("{cursor: {id: 7, nextBatch: [{}]}, ok: 1}")));
+        assertEquals(0, SlowQueryLog.documentsIn(BsonDocument.parse("{ok: 1}")));
+    }
+
+    @Test
+    void failedCommandShouldBeRecordedWithoutOrigin() {
+        // when
+        start(1, "delete", BsonDocument.parse("{delete: 'book', deletes: [{q: {_id: 'a'}, limit: 1}]}"));
+        slowQueryLog.commandFailed(new CommandFailedEvent(null, 1, CONNECTION, "delete", millis(200),
+            new IllegalStateException("boom")));
+
+        // then
+        SlowQuery query = slowQueryLog.recent().get(0);
+        assertTrue(query.failed());
+        assertEquals("-", query.origin());
+    }
+
+    @Test
+    void ringBufferShouldKeepNewestCommandsFirst() {
+        // when
+        for (int requestId = 1; requestId <= 3; requestId++) {
+            start(requestId, "count", BsonDocument.parse("{count: 'book', query: {}}"));
+            slowQueryLog.commandSucceeded(new CommandSucceededEvent(null, requestId, CONNECTION, "count",
+                BsonDocument.parse("{n: " + requestId + "}"), millis(100)));
+        }
+
+        // then
+        List<SlowQuery> recent = slowQueryLog.recent();
+        assertEquals(List.of(3L, 2L), recent.stream().map(SlowQuery::documents).toList());
+
+        // when
+        slowQueryLog.clear();
+
+        // then
+        assertTrue(slowQueryLog.recent().isEmpty());
+    }
+
+    @Test
+    void handshakeCommandsShouldBeIgnored() {
+        // when
+        start(1, "hello", BsonDocument.parse("{hello: 1}"));
+        slowQueryLog.commandSucceeded(new CommandSucceededEvent(null, 1, CONNECTION, "hello", new BsonDocument(), millis(500)));
+
+        // then
+        assertTrue(slowQueryLog.recent().isEmpty());
+    }
+
+    private void start(int requestId, String commandName, BsonDocument command) {
+        slowQueryLog.commandStarted(new CommandStartedEvent(null, requestId, CONNECTION, "library", commandName, command));
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -1,16 +1,22 @@
 package edu.mor.libraryindex.repository;
 
+import edu.mor.libraryindex.dto.BookSummary;
 import edu.mor.libraryindex.model.Book;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -20,6 +26,11 @@ class BookRepositoryTest {
     @Autowired
     private BookRepository bookRepository;
 
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAll();
+    }
+
     @AfterEach
     void tearDown() {
         bookRepository.deleteAll();
@@ -106,4 +117,67 @@ class BookRepositoryTest {
         Assertions.assertEquals(2, books.size());
         Assertions.assertTrue(books.stream().allMatch(book -> Arrays.asList("1", "2").contains(book.getId())));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void findAllAfterShouldResumeAfterLastBookOfPreviousPage() {
+        LocalDateTime createdAt = LocalDateTime.of(2022, 3, 1, 0, 0);
+        Book book1 = new Book("1", "Java for Beginners", "A beginner's guide to Java programming",
+            Arrays.asList("John Doe"), LocalDateTime.now(), createdAt);
+        Book book2 = new Book("2", "Java for Experts", "An expert's guide to Java programming",
+            Arrays.asList("John Doe", "Jane Smith"), LocalDateTime.now(), createdAt);
+        Book book3 = new Book("3", "Java for Architects", "An architect's guide to Java programming",
+            Arrays.asList("Jane Smith"), LocalDateTime.now(), createdAt.plusDays(1));
+        bookRepository.saveAll(Arrays.asList(book1, book2, book3));
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by("createdAt", "id"));
+
+        Slice<Book> firstPage = bookRepository.findAllBy(pageRequest, Book.class);
+        Assertions.assertEquals(Arrays.asList("1", "2"), firstPage.map(Book::getId).getContent());
+        Assertions.assertTrue(firstPage.hasNext());
+
+        Slice<Book> secondPage = bookRepository.findAllAfter(createdAt, "2", pageRequest, Book.class);
+        Assertions.assertEquals(Arrays.asList("3"), secondPage.map(Book::getId).getContent());
+        Assertions.assertFalse(secondPage.hasNext());
+    }
+
+    @Test
+    public void findByAuthorsAfterShouldOnlyReturnBooksOfAuthorAfterPosition() {
+        LocalDateTime createdAt = LocalDateTime.of(2022, 3, 1, 0, 0);
+        Book book1 = new Book("1", "Java for Beginners", "A beginner's guide to Java programming",
+            Arrays.asList("John Doe"), LocalDateTime.now(), createdAt);
+        Book book2 = new Book("2", "Java for Experts", "An expert's guide to Java programming",
+            Arrays.asList("John Doe", "Jane Smith"), LocalDateTime.now(), createdAt.plusDays(1));
+        Book book3 = new Book("3", "Java for Architects", "An architect's guide to Java programming",
+            Arrays.asList("Jane Smith"), LocalDateTime.now(), createdAt.plusDays(2));
+        bookRepository.saveAll(Arrays.asList(book1, book2, book3));
+
+        Slice<Book> page = bookRepository.findByAuthorsAfter("John Doe", createdAt, "1", PageRequest.of(0, 10, Sort.by("createdAt", "id")), Book.class);
+        Assertions.assertEquals(Arrays.asList("2"), page.map(Book::getId).getContent());
+    }
+
+    @Test
+    public void findAndRemoveByIdShouldReturnCountedFieldsOfDeletedBook() {
+        LocalDateTime createdAt = LocalDateTime.of(2023, 4, 1, 12, 30);
+        Book book = new Book("1", "Java for Beginners", "A beginner's guide to Java programming",
+            Arrays.asList("John Doe", "Jane Smith"), LocalDateTime.now(), createdAt);
+        bookRepository.save(book);
+
+        Optional<Book> removed = bookRepository.findAndRemoveById("1");
+        Assertions.assertEquals(Arrays.asList("John Doe", "Jane Smith"), removed.orElseThrow().getAuthors());
+        Assertions.assertEquals(createdAt, removed.get().getCreatedAt());
+        Assertions.assertNull(removed.get().getTitle());
+        Assertions.assertTrue(bookRepository.findAndRemoveById("1").isEmpty());
+        Assertions.assertFalse(bookRepository.existsById("1"));
+    }
+
+    @Test
+    public void findByAuthorsShouldProjectToSummaryWithoutDescription() {
+        LocalDateTime createdAt = LocalDateTime.of(2022, 3, 1, 0, 0);
+        Book book = new Book("1", "Java for Beginners", "A beginner's guide to Java programming",
+            Arrays.asList("John Doe"), LocalDateTime.of(2022, 1, 1, 0, 0), createdAt);
+        bookRepository.save(book);
+
+        Slice<BookSummary> page = bookRepository.findByAuthors("John Doe", PageRequest.of(0, 10, Sort.by("createdAt", "id")), BookSummary.class);
+        Assertions.assertEquals(Arrays.asList(new BookSummary("1", "Java for Beginners", Arrays.asList("John Doe"),
+            LocalDateTime.of(2022, 1, 1, 0, 0), createdAt, 0)), page.getContent());
+    }
+}
@@ -0,0 +1,178 @@
+package edu.mor.libraryindex.service;
+
+import com.mongodb.client.model.DeleteManyModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import edu.mor.libraryindex.model.AuthorFacet;
+import edu.mor.libraryindex.model.Book;
+import edu.mor.libraryindex.repository.AuthorFacetRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.CollectionCallback;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AuthorFacetServiceTest {
+    @Mock
+    private AuthorFacetRepository mockAuthorFacetRepository;
+
+    @Mock
+    private MongoOperations mockMongoOperations;
+
+    private AuthorFacetService authorFacetService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        authorFacetService = new AuthorFacetService(mockAuthorFacetRepository, mockMongoOperations, true);
+    }
+
+    @Test
+    void diffShouldOnlyContainAddedAndRemovedAuthors() {
+        // when
+        Map<String, Integer> deltas = AuthorFacetService.diff(Arrays.asList("author1", "author2"), Arrays.asList("author2", "author3"));
+
+        // then
+        assertEquals(Map.of("author1", -1, "author3", 1), deltas);
+    }
+
+    @Test
+    void diffShouldCountAuthorListedTwiceOnce() {
+        // when
+        Map<String, Integer> deltas = AuthorFacetService.diff(null, Arrays.asList("author1", "author1", null));
+
+        // then
+        assertEquals(Map.of("author1", 1), deltas);
+    }
+
+    @Test
+    void createdShouldSumAuthorsOverBooks() {
+        // given
+        List<Book> books = Arrays.asList(
+            new Book("title1", "desc", Arrays.asList("author1", "author2"), LocalDateTime.now()),
+            new Book("title2", "desc", Arrays.asList("author1"), LocalDateTime.now()));
+
+        // when
+        Map<String, Integer> deltas = AuthorFacetService.created(books);
+
+        // then
+        assertEquals(Map.of("author1", 2, "author2", 1), deltas);
+    }
+
+    @Test
+    void writesShouldRemoveDecrementedAuthorsAfterIncrements() {
+        // when
+        List<WriteModel<Document>> writes = AuthorFacetService.writes(AuthorFacetService.diff(Arrays.asList("author1"), Arrays.asList("author2")));
+
+        // then
+        assertEquals(3, writes.size());
+        assertInstanceOf(UpdateOneModel.class, writes.get(0));
+        assertInstanceOf(UpdateOneModel.class, writes.get(1));
+        assertTrue(((UpdateOneModel<Document>) writes.get(0)).getOptions().isUpsert());
+        assertInstanceOf(DeleteManyModel.class, writes.get(2));
+    }
+
+    @Test
+    void writesShouldNotRemoveAnythingWhenOnlyIncrementing() {
+        // when
+        List<WriteModel<Document>> writes = AuthorFacetService.writes(Map.of("author1", 1));
+
+        // then
+        assertEquals(1, writes.size());
+    }
+
+    @Test
+    void authorsChangedShouldNotWriteWhenAuthorsAreUnchanged() {
+        // when
+        authorFacetService.authorsChanged(Arrays.asList("author1", "author2"), Arrays.asList("author2", "author1"));
+
+        // then
+        verifyNoInteractions(mockMongoOperations);
+    }
+
+    @Test
+    void authorsChangedShouldWriteOnceForAllAuthors() {
+        // when
+        authorFacetService.authorsChanged(null, Arrays.asList("author1", "author2"));
+
+        // then
+        verify(mockMongoOperations, times(1)).execute(eq(AuthorFacet.class), ArgumentMatchers.<CollectionCallback<Object>>any());
+    }
+
+    @Test
+    void rebuildShouldDeduplicateAuthorsOfEachBookInOneGroupAndAllowDiskUse() {
+        // given
+        when(mockMongoOperations.aggregateStream(any(Aggregation.class), eq(Book.class), eq(AuthorFacet.class)))
+            .thenReturn(Stream.of(new AuthorFacet("author1", 2)));
+
+        // when
+        int authors = authorFacetService.rebuild();
+
+        // then
+        ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mockMongoOperations).aggregateStream(aggregation.capture(), eq(Book.class), eq(AuthorFacet.class));
+        List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(new Document("$setUnion", Arrays.asList("$authors", Collections.emptyList())),
+            pipeline.get(0).get("$project", Document.class).get("authors"));
+        assertEquals(1, pipeline.stream().filter(stage -> stage.containsKey("$group")).count());
+        assertTrue(aggregation.getValue().getOptions().isAllowDiskUse());
+        assertEquals(1, authors);
+        verify(mockMongoOperations, times(1)).execute(eq(AuthorFacet.class), ArgumentMatchers.<CollectionCallback<Object>>any());
+        verifyNoInteractions(mockAuthorFacetRepository);
+    }
+
+    @Test
+    void rebuildShouldWriteStreamedCountsInBatches() {
+        // given
+        when(mockMongoOperations.aggregateStream(any(Aggregation.class), eq(Book.class), eq(AuthorFacet.class)))
+            .thenReturn(IntStream.rangeClosed(0, AuthorFacetService.REBUILD_BATCH_SIZE).mapToObj(i -> new AuthorFacet("author" + i, 1)));
+
+        // when
+        int authors = authorFacetService.rebuild();
+
+        // then
+        assertEquals(AuthorFacetService.REBUILD_BATCH_SIZE + 1, authors);
+        verify(mockMongoOperations, times(2)).execute(eq(AuthorFacet.class), ArgumentMatchers.<CollectionCallback<Object>>any());
+    }
+
+    @Test
+    void findByAuthorsShouldKeepRequestedOrderAndReportMissingAuthorsAsZero() {
+        // given
+        when(mockAuthorFacetRepository.findByAuthorIn(Set.of("author1", "author2")))
+            .thenReturn(Collections.singletonList(new AuthorFacet("author2", 3)));
+
+        // when
+        List<AuthorFacet> facets = authorFacetService.findByAuthors(Arrays.asList("author2", "author1", "author2"));
+
+        // then
+        assertEquals(Arrays.asList(new AuthorFacet("author2", 3), new AuthorFacet("author1", 0)), facets);
+    }
+
+    @Test
+    void findTopShouldCapLimitAndSortByCount() {
+        // when
+        authorFacetService.findTop(1000);
+
+        // then
+        verify(mockAuthorFacetRepository).findAllBy(ArgumentMatchers.<Pageable>argThat(pageable ->
+            pageable.getPageSize() == AuthorFacetService.MAX_FACETS && pageable.getSort().getOrderFor("count").isDescending()));
+    }
+}
@@ -0,0 +1,115 @@
+package edu.mor.libraryindex.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import edu.mor.libraryindex.dto.BookBulkItemResult;
+import edu.mor.libraryindex.dto.BookCreateDto;
+import edu.mor.libraryindex.id.TimeOrderedUuidGenerator;
+import edu.mor.libraryindex.model.Book;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookBulkServiceTest {
+    @Mock
+    private MongoOperations mockMongoOperations;
+
+    @Mock
+    private BulkOperations mockBulkOperations;
+
+    @Mock
+    private BookSearchService mockBookSearchService;
+
+    @Mock
+    private AuthorFacetService mockAuthorFacetService;
+
+    @Mock
+    private DateHistogramService mockDateHistogramService;
+
+    private BookBulkService bookBulkService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(mockMongoOperations.bulkOps(BulkMode.UNORDERED, Book.class)).thenReturn(mockBulkOperations);
+        when(mockBulkOperations.insert(ArgumentMatchers.<List<?>>any())).thenReturn(mockBulkOperations);
+        bookBulkService = new BookBulkService(mockMongoOperations, mockBookSearchService, new TimeOrderedUuidGenerator(), mockAuthorFacetService, mockDateHistogramService, 2);
+    }
+
+    @Test
+    void createAllShouldInsertInBatchesOfConfiguredSize() {
+        // given
+        List<BookCreateDto> dtos = Arrays.asList(dto("title1"), dto("title2"), dto("title3"));
+
+        // when
+        List<BookBulkItemResult> results = bookBulkService.createAll(dtos);
+
+        // then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Book>> batches = ArgumentCaptor.forClass(List.class);
+        verify(mockBulkOperations, times(2)).insert(batches.capture());
+        verify(mockBulkOperations, times(2)).execute();
+        assertEquals(3, results.size());
+        assertTrue(results.stream().allMatch(result -> result.status() == BookBulkItemResult.Status.CREATED));
+        assertTrue(results.stream().allMatch(result -> result.id() != null));
+    }
+
+    @Test
+    void createAllShouldReportInvalidItemsWithoutInsertingThem() {
+        // given
+        List<BookCreateDto> dtos = Arrays.asList(dto("title1"), new BookCreateDto("title2", "desc", Arrays.asList("author"), null));
+
+        // when
+        List<BookBulkItemResult> results = bookBulkService.createAll(dtos);
+
+        // then
+        assertEquals(BookBulkItemResult.Status.CREATED, results.get(0).status());
+        assertEquals(BookBulkItemResult.Status.FAILED, results.get(1).status());
+        assertEquals(1, results.get(1).index());
+        verify(mockBulkOperations, times(1)).execute();
+    }
+
+    @Test
+    void createAllShouldReportRejectedDocumentsAtTheirRequestIndex() {
+        // given
+        BulkWriteError error = new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1);
+        MongoBulkWriteException cause = new MongoBulkWriteException(BulkWriteResult.unacknowledged(), Collections.singletonList(error), null,
+            new ServerAddress(), Collections.emptySet());
+        when(mockBulkOperations.execute()).thenThrow(new BulkOperationException("duplicate key", cause));
+        List<BookCreateDto> dtos = Arrays.asList(new BookCreateDto("title0", "desc", Arrays.asList("author"), null), dto("title1"), dto("title2"));
+
+        // when
+        List<BookBulkItemResult> results = bookBulkService.createAll(dtos);
+
+        // then
+        assertEquals(BookBulkItemResult.Status.FAILED, results.get(0).status());
+        assertEquals(BookBulkItemResult.Status.CREATED, results.get(1).status());
+        assertEquals(BookBulkItemResult.Status.FAILED, results.get(2).status());
+        assertEquals("duplicate key", results.get(2).error());
+        verify(mockBookSearchService).indexAll(argThat(books -> books.size() == 1));
+        verify(mockAuthorFacetService).booksCreated(argThat(books -> books.size() == 1));
+        verify(mockDateHistogramService).booksCreated(argThat(books -> books.size() == 1));
+    }
+
+    private static BookCreateDto dto(String title) {
+        return new BookCreateDto(title, "desc", Arrays.asList("author"), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,116 @@
+package edu.mor.libraryindex.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import edu.mor.libraryindex.dto.BookExportFile;
+import edu.mor.libraryindex.model.Book;
+import edu.mor.libraryindex.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Range.Bound;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookExportServiceTest {
+    private static final LocalDateTime DATE = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @Mock
+    private BookRepository mockBookRepository;
+
+    @TempDir
+    private Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private BookExportService bookExportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        bookExportService = new BookExportService(mockBookRepository, objectMapper, directory.toString(),
+            Clock.fixed(Instant.parse("2023-05-01T02:00:00Z"), ZoneOffset.UTC));
+        when(mockBookRepository.streamAllBy()).thenAnswer(invocation -> Stream.of(
+            new Book("1", "Title 1", "desc", Arrays.asList("author"), DATE, DATE),
+            new Book("2", "Title 2", "desc", Arrays.asList("author"), DATE, DATE)));
+    }
+
+    @Test
+    void exportShouldWriteOneCompressedLinePerBook() throws IOException {
+        // given
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // when
+        long count = bookExportService.export(output, null, null, null);
+
+        // then
+        assertEquals(2, count);
+        List<String> lines = gunzip(new ByteArrayInputStream(output.toByteArray())).lines().toList();
+        assertEquals(2, lines.size());
+        assertEquals("Title 2", objectMapper.readValue(lines.get(1), Book.class).getTitle());
+    }
+
+    @Test
+    void exportToFileShouldOnlyLeaveCompleteFile() throws IOException {
+        // when
+        BookExportFile file = bookExportService.exportToFile();
+
+        // then
+        Path expected = directory.resolve("books-20230501T020000" + BookExportService.FILE_SUFFIX);
+        assertEquals(expected.toString(), file.path());
+        assertEquals(2, file.books());
+        assertEquals(Files.size(expected), file.bytes());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of(expected), files.toList());
+        }
+        try (InputStream input = Files.newInputStream(expected)) {
+            assertEquals(2, gunzip(input).lines().count());
+        }
+    }
+
+    @Test
+    void booksShouldUseRepositoryStreamOfTheFiltersSet() {
+        // when
+        bookExportService.books(DATE, null, DATE.plusDays(1));
+        bookExportService.books(null, DATE, null);
+        bookExportService.books(DATE, null, null);
+
+        // then
+        verify(mockBookRepository).streamByCreatedAtBeforeAndPublishedAtBetween(DATE, Range.of(Bound.unbounded(), Bound.exclusive(DATE.plusDays(1))));
+        verify(mockBookRepository).streamByPublishedAtBetween(Range.of(Bound.exclusive(DATE), Bound.unbounded()));
+        verify(mockBookRepository).streamByCreatedAtBefore(DATE);
+    }
+
+    @Test
+    void booksShouldRejectEmptyPublishedAtRange() {
+        assertThrows(ResponseStatusException.class, () -> bookExportService.books(null, DATE, DATE));
+    }
+
+    private static String gunzip(InputStream input) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(input)) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
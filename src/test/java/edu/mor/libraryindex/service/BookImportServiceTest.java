@@ -0,0 +1,146 @@
+package edu.mor.libraryindex.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import edu.mor.libraryindex.dto.BookBulkItemResult;
+import edu.mor.libraryindex.dto.BookCreateDto;
+import edu.mor.libraryindex.dto.CatalogImportError;
+import edu.mor.libraryindex.dto.CatalogImportReport;
+import edu.mor.libraryindex.importer.CatalogFormat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class BookImportServiceTest {
+    @Mock
+    private BookBulkService mockBookBulkService;
+
+    private BookImportService bookImportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        bookImportService = new BookImportService(mockBookBulkService, new ObjectMapper().registerModule(new JavaTimeModule()),
+            2, 1, 2);
+        when(mockBookBulkService.createAll(anyList())).thenAnswer(invocation -> {
+            List<BookCreateDto> books = invocation.getArgument(0);
+            List<BookBulkItemResult> results = new ArrayList<>();
+            for (int i = 0; i < books.size(); i++) {
+                results.add(books.get(i).publishedAt() == null
+                    ? BookBulkItemResult.failed(i, BookBulkService.MISSING_PUBLISHED_AT)
+                    : BookBulkItemResult.created(i, "id" + i));
+            }
+            return results;
+        });
+    }
+
+    @Test
+    void importCatalogShouldWriteInBatchesAndReportEveryFailedRow() {
+        // given
+        InputStream csv = csv("title,publishedAt\nOne,2020-01-01\nTwo,\nThree,2020-01-03\nFour,never\nFive,2020-01-05\n");
+
+        // when
+        CatalogImportReport report = bookImportService.importCatalog(csv, CatalogFormat.CSV, 0);
+
+        // then
+        assertTrue(report.complete());
+        assertEquals(5, report.checkpoint());
+        assertEquals(3, report.created());
+        assertEquals(2, report.failed());
+        assertEquals(List.of(new CatalogImportError(1, BookBulkService.MISSING_PUBLISHED_AT),
+            new CatalogImportError(3, "publishedAt must be an ISO date or date-time!")), report.errors());
+        verify(mockBookBulkService, times(3)).createAll(anyList());
+    }
+
+    @Test
+    void importCatalogShouldResumeFromOffset() {
+        // given
+        InputStream csv = csv("title,publishedAt\nOne,2020-01-01\nTwo,2020-01-02\nThree,2020-01-03\n");
+
+        // when
+        CatalogImportReport report = bookImportService.importCatalog(csv, CatalogFormat.CSV, 2);
+
+        // then
+        assertEquals(3, report.checkpoint());
+        assertEquals(1, report.created());
+        verify(mockBookBulkService).createAll(argThat(books -> books.size() == 1 && "Three".equals(books.get(0).title())));
+    }
+
+    @Test
+    void importCatalogShouldNotReadMalformedRowsBeforeOffset() {
+        // given
+        InputStream csv = csv("title,publishedAt\nOne,yesterday\nTwo\nThree,2020-01-03\n");
+
+        // when
+        CatalogImportReport report = bookImportService.importCatalog(csv, CatalogFormat.CSV, 2);
+
+        // then
+        assertEquals(3, report.checkpoint());
+        assertEquals(1, report.created());
+        assertEquals(0, report.failed());
+    }
+
+    @Test
+    void importCatalogShouldCapReportedErrors() {
+        // when
+        CatalogImportReport report = bookImportService.importCatalog(csv("title,publishedAt\nOne,\nTwo,\nThree,\n"), CatalogFormat.CSV, 0);
+
+        // then
+        assertEquals(3, report.failed());
+        assertEquals(2, report.errors().size());
+    }
+
+    @Test
+    void importCatalogShouldStopAtCheckpointOfLastWrittenBatchWhenWriteFails() {
+        // given
+        when(mockBookBulkService.createAll(argThat(books -> books.size() == 2 && "Three".equals(books.get(0).title()))))
+            .thenThrow(new DataAccessResourceFailureException("Mongo is down"));
+        StringBuilder csv = new StringBuilder("title,publishedAt\nOne,2020-01-01\nTwo,2020-01-02\nThree,2020-01-03\nFour,2020-01-04\n");
+        for (int i = 0; i < 100; i++) {
+            csv.append("More,2020-01-05\n");
+        }
+
+        // when
+        CatalogImportReport report = bookImportService.importCatalog(csv(csv.toString()), CatalogFormat.CSV, 0);
+
+        // then
+        assertFalse(report.complete());
+        assertEquals("Mongo is down", report.abortedBy());
+        assertEquals(2, report.checkpoint());
+        assertEquals(2, report.created());
+    }
+
+    @Test
+    void importCatalogShouldAbortOnUnreadableFile() {
+        // when
+        CatalogImportReport report = bookImportService.importCatalog(csv("title\nOne\n"), CatalogFormat.CSV, 0);
+
+        // then
+        assertEquals("CSV header must name a publishedAt column!", report.abortedBy());
+        assertEquals(0, report.checkpoint());
+        verifyNoInteractions(mockBookBulkService);
+    }
+
+    @Test
+    void importCatalogShouldRejectNegativeOffset() {
+        assertThrows(ResponseStatusException.class, () -> bookImportService.importCatalog(csv(""), CatalogFormat.CSV, -1));
+    }
+
+    private static InputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
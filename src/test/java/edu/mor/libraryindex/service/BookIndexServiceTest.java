@@ -0,0 +1,141 @@
+package edu.mor.libraryindex.service;
+
+import edu.mor.libraryindex.model.AuthorFacet;
+import edu.mor.libraryindex.model.Book;
+import edu.mor.libraryindex.model.HistogramBucket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookIndexServiceTest {
+    @Mock
+    private MongoOperations mockMongoOperations;
+
+    @Mock
+    private IndexOperations mockIndexOperations;
+
+    @Mock
+    private IndexOperations mockFacetIndexOperations;
+
+    @Mock
+    private IndexOperations mockHistogramIndexOperations;
+
+    private final MongoMappingContext mappingContext = new MongoMappingContext();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(Collections.emptyList()).getSimpleTypeHolder());
+        when(mockMongoOperations.indexOps(Book.class)).thenReturn(mockIndexOperations);
+        when(mockMongoOperations.indexOps(AuthorFacet.class)).thenReturn(mockFacetIndexOperations);
+        when(mockMongoOperations.indexOps(HistogramBucket.class)).thenReturn(mockHistogramIndexOperations);
+    }
+
+    @Test
+    void ensureIndexesShouldCreateEveryIndexDeclaredOnBook() {
+        // given
+        BookIndexService bookIndexService = new BookIndexService(mockMongoOperations, mappingContext, false, Collections.emptyList());
+
+        // when
+        bookIndexService.ensureIndexes();
+
+        // then
+        verify(mockIndexOperations, times(4)).ensureIndex(any());
+    }
+
+    @Test
+    void ensureIndexesShouldCreateIndexesOfDerivedCollections() {
+        // given
+        BookIndexService bookIndexService = new BookIndexService(mockMongoOperations, mappingContext, false, Collections.emptyList());
+
+        // when
+        bookIndexService.ensureIndexes();
+
+        // then
+        verify(mockFacetIndexOperations).ensureIndex(argThat(index -> "count_id".equals(index.getIndexOptions().getString("name"))));
+        verify(mockHistogramIndexOperations).ensureIndex(argThat(index -> "field_granularity_start".equals(index.getIndexOptions().getString("name"))));
+    }
+
+    @Test
+    void findUnsupportedQueryMethodsShouldReportQueriesWithoutLeadingIndexField() {
+        // given
+        BookIndexService bookIndexService = new BookIndexService(mockMongoOperations, mappingContext, false, Collections.emptyList());
+        List<IndexInfo> indexes = Arrays.asList(index("title"), index("createdAt", "_id"), index("authors", "createdAt", "_id"));
+
+        // when
+        List<String> unsupported = bookIndexService.findUnsupportedQueryMethods(indexes);
+
+        // then
+        assertEquals(Arrays.asList(
+            "findByDescriptionContainingIgnoreCase[description]",
+            "findByPublishedAtBetweenAfter[publishedAt]",
+            "findByPublishedAtBetween[publishedAt]",
+            "findByPublishedAtBetween[publishedAt]",
+            "streamByPublishedAtBetween[publishedAt]"), unsupported);
+    }
+
+    @Test
+    void findUnsupportedQueryMethodsShouldReportKeysetQueriesWhoseOrderNoIndexServes() {
+        // given
+        BookIndexService bookIndexService = new BookIndexService(mockMongoOperations, mappingContext, false,
+            Collections.singletonList("findByDescriptionContainingIgnoreCase"));
+        List<IndexInfo> indexes = Arrays.asList(index("title"), index("createdAt", "_id"), index("authors"),
+            index("publishedAt", "_id", "createdAt"));
+
+        // when
+        List<String> unsupported = bookIndexService.findUnsupportedQueryMethods(indexes);
+
+        // then
+        assertEquals(Arrays.asList(
+            "findByAuthorsAfter[authors] ordered by [createdAt, _id]",
+            "findByPublishedAtBetweenAfter[publishedAt] ordered by [publishedAt, createdAt, _id]"), unsupported);
+    }
+
+    @Test
+    void findUnsupportedQueryMethodsShouldAcceptEveryQueryWhenBookIndexesExist() {
+        // given
+        BookIndexService bookIndexService = new BookIndexService(mockMongoOperations, mappingContext, false,
+            Collections.singletonList("findByDescriptionContainingIgnoreCase"));
+        List<IndexInfo> indexes = Arrays.asList(index("title"), index("createdAt", "_id"), index("authors", "createdAt", "_id"),
+            index("publishedAt", "createdAt", "_id"));
+
+        // when
+        List<String> unsupported = bookIndexService.findUnsupportedQueryMethods(indexes);
+
+        // then
+        assertTrue(unsupported.isEmpty());
+    }
+
+    @Test
+    void verifyIndexesShouldFailWhenConfiguredAndIndexIsMissing() {
+        // given
+        BookIndexService bookIndexService = new BookIndexService(mockMongoOperations, mappingContext, true, Collections.emptyList());
+        when(mockIndexOperations.getIndexInfo()).thenReturn(Collections.emptyList());
+
+        // when
+        IllegalStateException exception = assertThrows(IllegalStateException.class, bookIndexService::verifyIndexes);
+
+        // then
+        assertTrue(exception.getMessage().contains("findByTitle"));
+    }
+
+    private static IndexInfo index(String... keys) {
+        List<IndexField> fields = Arrays.stream(keys).map(key -> IndexField.create(key, Sort.Direction.ASC)).toList();
+        return new IndexInfo(fields, String.join("_", keys), false, false, null);
+    }
+}
@@ -0,0 +1,143 @@
+package edu.mor.libraryindex.service;
+
+import edu.mor.libraryindex.dto.BookSearchResult;
+import edu.mor.libraryindex.model.Book;
+import edu.mor.libraryindex.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookSearchServiceTest {
+    @Mock
+    private BookRepository mockBookRepository;
+
+    private BookSearchService bookSearchService;
+
+    private final Book beginners = book("1", "Java for Beginners", "A beginner's guide to Java programming");
+    private final Book experts = book("2", "Java for Experts", "An expert's guide to Java programming");
+    private final Book cooking = book("3", "Cooking with Kids", "Recipes the whole family programs together");
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        bookSearchService = new BookSearchService(mockBookRepository, true, false);
+        bookSearchService.indexAll(Arrays.asList(beginners, experts, cooking));
+    }
+
+    @Test
+    void tokenizeShouldLowercaseStemAndDropStopWords() {
+        assertEquals(Arrays.asList("guide", "java", "program"), bookSearchService.tokenize("The GUIDES to Java-Programming"));
+    }
+
+    @Test
+    void rankShouldPreferTitleMatches() {
+        List<String> ids = rankedIds("experts");
+
+        assertEquals(Arrays.asList("2"), ids);
+    }
+
+    @Test
+    void rankShouldScoreBooksMatchingMoreTermsHigher() {
+        List<String> ids = rankedIds("java program");
+
+        assertEquals(3, ids.size());
+        assertEquals("3", ids.get(2));
+    }
+
+    @Test
+    void rankShouldNotReturnRemovedBooks() {
+        bookSearchService.remove("2");
+
+        assertEquals(Arrays.asList("1"), rankedIds("java expert beginner"));
+    }
+
+    @Test
+    void indexShouldReplacePreviousTermsOfBook() {
+        bookSearchService.index(book("1", "Kotlin for Beginners", "A beginner's guide"));
+
+        assertFalse(rankedIds("java").contains("1"));
+        assertTrue(rankedIds("kotlin").contains("1"));
+    }
+
+    @Test
+    void searchShouldReturnBooksInRankOrder() {
+        when(mockBookRepository.findByIdIn(anyList())).thenReturn(Arrays.asList(beginners, experts));
+
+        List<BookSearchResult> results = bookSearchService.search("expert java", 10);
+
+        assertEquals(Arrays.asList(experts, beginners), results.stream().map(BookSearchResult::book).collect(Collectors.toList()));
+        assertTrue(results.get(0).score() > results.get(1).score());
+    }
+
+    @Test
+    void rebuildShouldIndexEveryBookOfCollection() {
+        when(mockBookRepository.streamAllBy()).thenReturn(Stream.of(cooking));
+
+        bookSearchService.rebuild();
+
+        assertEquals(Arrays.asList("3"), rankedIds("java cooking"));
+    }
+
+    @Test
+    void rebuildShouldNotOverwriteUpdateMadeWhileItsCopyIsIndexed() {
+        // given
+        BookSearchService service = spy(new BookSearchService(mockBookRepository, true, false));
+        when(mockBookRepository.streamAllBy()).thenReturn(Stream.of(beginners));
+        AtomicBoolean updated = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (updated.compareAndSet(false, true)) {
+                service.index(book("1", "Kotlin for Beginners", "A beginner's guide"));
+            }
+            return invocation.callRealMethod();
+        }).when(service).tokenize(beginners.getTitle());
+
+        // when
+        service.rebuild();
+
+        // then
+        assertTrue(updated.get());
+        assertTrue(service.rank("java", 10).isEmpty());
+        assertEquals("1", service.rank("kotlin", 10).get(0).getKey());
+    }
+
+    @Test
+    void rebuildShouldNotRestoreBookRemovedWhileItsCopyIsIndexed() {
+        // given
+        BookSearchService service = spy(new BookSearchService(mockBookRepository, true, false));
+        when(mockBookRepository.streamAllBy()).thenReturn(Stream.of(beginners));
+        AtomicBoolean removed = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (removed.compareAndSet(false, true)) {
+                service.remove("1");
+            }
+            return invocation.callRealMethod();
+        }).when(service).tokenize(beginners.getTitle());
+
+        // when
+        service.rebuild();
+
+        // then
+        assertTrue(removed.get());
+        assertTrue(service.rank("java beginner", 10).isEmpty());
+    }
+
+    private List<String> rankedIds(String query) {
+        return bookSearchService.rank(query, 10).stream().map(Map.Entry::getKey).collect(Collectors.toList());
+    }
+
+    private static Book book(String id, String title, String description) {
+        return new Book(id, title, description, Arrays.asList("John Doe"), LocalDateTime.now(), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,226 @@
+package edu.mor.libraryindex.service;
+
+import edu.mor.libraryindex.dto.BookCreateDto;
+import edu.mor.libraryindex.id.IdGeneratorConfiguration;
+import edu.mor.libraryindex.model.Book;
+import edu.mor.libraryindex.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig
+class BookServiceCachingTest {
+    @Configuration
+    @EnableCaching
+    @Import({BookService.class, IdGeneratorConfiguration.class})
+    static class CachingConfiguration {
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(BookService.BOOKS_CACHE);
+        }
+
+        /**
+         * Lets {@code @Value} read durations such as {@code 2ms} the way Spring Boot does.
+         */
+        @Bean
+        static ConversionService conversionService() {
+            return ApplicationConversionService.getSharedInstance();
+        }
+    }
+
+    @MockBean
+    private BookRepository mockBookRepository;
+
+    @MockBean
+    private MongoOperations mockMongoOperations;
+
+    @MockBean
+    private BookSearchService mockBookSearchService;
+
+    @MockBean
+    private AuthorFacetService mockAuthorFacetService;
+
+    @MockBean
+    private DateHistogramService mockDateHistogramService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(BookService.BOOKS_CACHE).clear();
+    }
+
+    @Test
+    void findByIdShouldOnlyQueryRepositoryOnce() {
+        // given
+        Book book = new Book("title", "desc", Arrays.asList("author"), LocalDateTime.now());
+        when(mockBookRepository.findById("1")).thenReturn(Optional.of(book));
+
+        // when
+        bookService.findById("1");
+        Book result = bookService.findById("1");
+
+        // then
+        assertEquals(book, result);
+        verify(mockBookRepository, times(1)).findById("1");
+    }
+
+    @Test
+    void createShouldPopulateCache() {
+        // given
+        Book book = new Book("title", "desc", Arrays.asList("author"), LocalDateTime.now());
+        when(mockBookRepository.save(ArgumentMatchers.any(Book.class))).thenReturn(book);
+
+        // when
+        bookService.create(new BookCreateDto("title", "desc", Arrays.asList("author"), LocalDateTime.now()));
+        Book result = bookService.findById(book.getId());
+
+        // then
+        assertEquals(book, result);
+        verify(mockBookRepository, never()).findById(book.getId());
+    }
+
+    @Test
+    void updateShouldReplaceCachedBook() {
+        // given
+        Book book = new Book("1", "title1", "desc1", Arrays.asList("author1"), LocalDateTime.now(), LocalDateTime.now());
+        when(mockBookRepository.findById("1")).thenReturn(Optional.of(book));
+        when(mockMongoOperations.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Book.class)))
+            .thenReturn(new Book("1", "title1", "desc1", Arrays.asList("author1"), book.getPublishedAt(), book.getCreatedAt()));
+        bookService.findById("1");
+
+        // when
+        bookService.update("1", new BookCreateDto("title2", "desc2", Arrays.asList("author2"), LocalDateTime.now()));
+        Book result = bookService.findById("1");
+
+        // then
+        assertEquals("title2", result.getTitle());
+    }
+
+    @Test
+    void deleteByIdShouldEvictCachedBook() {
+        // given
+        Book book = new Book("1", "title", "desc", Arrays.asList("author"), LocalDateTime.now(), LocalDateTime.now());
+        when(mockBookRepository.findById("1")).thenReturn(Optional.of(book));
+        when(mockBookRepository.findAndRemoveById("1")).thenReturn(Optional.of(book));
+        bookService.findById("1");
+
+        // when
+        bookService.deleteById("1");
+
+        // then
+        assertNull(cacheManager.getCache(BookService.BOOKS_CACHE).get("1"));
+    }
+
+    @Test
+    void updateReturningAfterLaterUpdateShouldNotReplaceItInCache() {
+        // given
+        Book first = new Book("1", "title1", "desc1", Arrays.asList("author1"), LocalDateTime.now(), LocalDateTime.now());
+        Book second = new Book("1", "title2", "desc2", Arrays.asList("author2"), first.getPublishedAt(), first.getCreatedAt());
+        second.setVersion(1);
+        when(mockMongoOperations.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Book.class)))
+            .thenReturn(second, first);
+
+        // when
+        bookService.update("1", new BookCreateDto("title3", "desc3", Arrays.asList("author3"), LocalDateTime.now()));
+        bookService.update("1", new BookCreateDto("title2", "desc2", Arrays.asList("author2"), LocalDateTime.now()));
+        Book result = bookService.findById("1");
+
+        // then
+        assertEquals("title3", result.getTitle());
+        assertEquals(2, bookService.findVersionById("1"));
+        verify(mockBookRepository, never()).findById("1");
+        verify(mockBookRepository, never()).findVersionById("1");
+    }
+
+    @Test
+    void loadOvertakenByUpdateShouldNotReplaceUpdatedBookInCache() throws Exception {
+        // given
+        Book stale = new Book("1", "title1", "desc1", Arrays.asList("author1"), LocalDateTime.now(), LocalDateTime.now());
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        when(mockBookRepository.findById("1")).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            assertTrue(releaseLoad.await(5, TimeUnit.SECONDS));
+            return Optional.of(stale);
+        });
+        when(mockMongoOperations.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Book.class)))
+            .thenReturn(new Book("1", "title1", "desc1", Arrays.asList("author1"), stale.getPublishedAt(), stale.getCreatedAt()));
+        ExecutorService callers = Executors.newSingleThreadExecutor();
+        try {
+            Future<Book> load = callers.submit(() -> bookService.findById("1"));
+            assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+            // when
+            bookService.update("1", new BookCreateDto("title2", "desc2", Arrays.asList("author2"), LocalDateTime.now()));
+            releaseLoad.countDown();
+
+            // then
+            assertEquals("title1", load.get(5, TimeUnit.SECONDS).getTitle());
+            assertEquals("title2", bookService.findById("1").getTitle());
+            verify(mockBookRepository, times(1)).findById("1");
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void loadOvertakenByDeleteShouldNotCacheDeletedBook() throws Exception {
+        // given
+        Book book = new Book("1", "title", "desc", Arrays.asList("author"), LocalDateTime.now(), LocalDateTime.now());
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        when(mockBookRepository.findById("1")).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            assertTrue(releaseLoad.await(5, TimeUnit.SECONDS));
+            return Optional.of(book);
+        });
+        when(mockBookRepository.findAndRemoveById("1")).thenReturn(Optional.of(book));
+        ExecutorService callers = Executors.newSingleThreadExecutor();
+        try {
+            Future<Book> load = callers.submit(() -> bookService.findById("1"));
+            assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+            // when
+            bookService.deleteById("1");
+            releaseLoad.countDown();
+            load.get(5, TimeUnit.SECONDS);
+
+            // then
+            assertNull(cacheManager.getCache(BookService.BOOKS_CACHE).get("1"));
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+}
@@ -1,21 +1,57 @@
 package edu.mor.libraryindex.service;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
 import edu.mor.libraryindex.dto.BookCreateDto;
+import edu.mor.libraryindex.dto.BookSummary;
+import edu.mor.libraryindex.dto.BookVersion;
+import edu.mor.libraryindex.dto.CursorPage;
+import edu.mor.libraryindex.dto.PageToken;
+import edu.mor.libraryindex.id.TimeOrderedUuidGenerator;
 import edu.mor.libraryindex.model.Book;
 import edu.mor.libraryindex.repository.BookRepository;
+import org.bson.BsonDocument;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -24,13 +60,28 @@ class BookServiceTest {
     @Mock
     private BookRepository mockBookRepository;
 
+    @Mock
+    private MongoOperations mockMongoOperations;
+
+    @Mock
+    private BookSearchService mockBookSearchService;
+
+    @Mock
+    private AuthorFacetService mockAuthorFacetService;
+
+    @Mock
+    private DateHistogramService mockDateHistogramService;
+
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(BookService.BOOKS_CACHE);
+
     private BookService bookService;
 
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        bookService = new BookService(mockBookRepository);
+        bookService = new BookService(mockBookRepository, mockMongoOperations, mockBookSearchService, new TimeOrderedUuidGenerator(),
+            cacheManager, mockAuthorFacetService, mockDateHistogramService, false, 100, Duration.ZERO);
     }
 
     @Test
@@ -51,6 +102,23 @@ class BookServiceTest {
         assertEquals("title2", result.get(1).getTitle());
     }
 
+    @Test
+    void streamAllShouldPassEveryBookToConsumerAndCloseCursor() {
+        // given
+        Book book1 = new Book("title1", "desc1", Arrays.asList("author1"), LocalDateTime.now());
+        Book book2 = new Book("title2", "desc2", Arrays.asList("author2"), LocalDateTime.now());
+        AtomicBoolean closed = new AtomicBoolean(false);
+        when(mockBookRepository.streamAllBy()).thenReturn(Stream.of(book1, book2).onClose(() -> closed.set(true)));
+
+        // when
+        List<Book> result = new ArrayList<>();
+        bookService.streamAll(result::add);
+
+        // then
+        assertEquals(Arrays.asList(book1, book2), result);
+        assertTrue(closed.get());
+    }
+
     @Test
     void findByIdShouldReturnBookWhenBookExists() {
         // given
@@ -79,6 +147,40 @@ class BookServiceTest {
         assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
     }
 
+    @Test
+    void concurrentFindByIdShouldShareOneQuery() throws Exception {
+        // given
+        Book book = new Book("title", "desc", Arrays.asList("author"), LocalDateTime.now());
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch releaseQuery = new CountDownLatch(1);
+        when(mockBookRepository.findById("1")).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            assertTrue(releaseQuery.await(5, TimeUnit.SECONDS));
+            return Optional.of(book);
+        });
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Book>> results = new ArrayList<>();
+            results.add(callers.submit(() -> bookService.findById("1")));
+            assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+
+            // when
+            for (int i = 0; i < 3; i++) {
+                results.add(callers.submit(() -> bookService.findById("1")));
+            }
+            Thread.sleep(200);
+            releaseQuery.countDown();
+
+            // then
+            for (Future<Book> result : results) {
+                assertSame(book, result.get(5, TimeUnit.SECONDS));
+            }
+            verify(mockBookRepository, times(1)).findById("1");
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
     @Test
     void createShouldReturnNewBook() {
         // given
@@ -90,19 +192,67 @@ class BookServiceTest {
         Book result = bookService.create(dto);
 
         // then
+        verify(mockBookSearchService).index(book);
+        verify(mockAuthorFacetService).authorsChanged(null, Arrays.asList("author"));
+        verify(mockDateHistogramService).booksCreated(List.of(book));
         assertNotNull(result);
         assertEquals("title", result.getTitle());
         assertEquals("desc", result.getDescription());
         assertEquals(Arrays.asList("author"), result.getAuthors());
     }
 
+    @Test
+    void insertCreatedShouldFailOnlyRejectedBooksAndMaintainDerivedDataOfTheOthers() {
+        // given
+        BulkOperations mockBulkOperations = mock(BulkOperations.class);
+        when(mockMongoOperations.bulkOps(BulkMode.UNORDERED, Book.class)).thenReturn(mockBulkOperations);
+        when(mockBulkOperations.insert(ArgumentMatchers.<List<?>>any())).thenReturn(mockBulkOperations);
+        BulkWriteError error = new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1);
+        when(mockBulkOperations.execute()).thenThrow(new BulkOperationException("duplicate key", new MongoBulkWriteException(
+            BulkWriteResult.unacknowledged(), Collections.singletonList(error), null, new ServerAddress(), Collections.emptySet())));
+        Book first = new Book("title1", "desc", Arrays.asList("author"), LocalDateTime.now());
+        Book second = new Book("title2", "desc", Arrays.asList("author"), LocalDateTime.now());
+
+        // when
+        Map<Integer, DataAccessException> failures = bookService.insertCreated(Arrays.asList(first, second));
+
+        // then
+        assertEquals(Set.of(1), failures.keySet());
+        assertInstanceOf(DuplicateKeyException.class, failures.get(1));
+        verify(mockBookSearchService).indexAll(List.of(first));
+        verify(mockAuthorFacetService).booksCreated(List.of(first));
+        verify(mockDateHistogramService).booksCreated(List.of(first));
+    }
+
+    @Test
+    void createShouldInsertThroughGroupCommitWhenEnabled() throws InterruptedException {
+        // given
+        BookService groupCommitService = new BookService(mockBookRepository, mockMongoOperations, mockBookSearchService,
+            new TimeOrderedUuidGenerator(), cacheManager, mockAuthorFacetService, mockDateHistogramService, true, 10, Duration.ZERO);
+        BulkOperations mockBulkOperations = mock(BulkOperations.class);
+        when(mockMongoOperations.bulkOps(BulkMode.UNORDERED, Book.class)).thenReturn(mockBulkOperations);
+        when(mockBulkOperations.insert(ArgumentMatchers.<List<?>>any())).thenReturn(mockBulkOperations);
+
+        // when
+        Book result = groupCommitService.create(new BookCreateDto("title", "desc", Arrays.asList("author"), LocalDateTime.now()));
+        groupCommitService.close();
+
+        // then
+        assertEquals("title", result.getTitle());
+        verify(mockBulkOperations).insert(List.of(result));
+        verify(mockBulkOperations).execute();
+        verify(mockBookRepository, never()).save(any(Book.class));
+        verify(mockBookSearchService).indexAll(List.of(result));
+    }
+
     @Test
     void updateShouldReturnUpdatedBookWhenBookExists() {
         // given
         BookCreateDto dto = new BookCreateDto("title2", "desc2", Arrays.asList("author2"), LocalDateTime.now());
-        Book existingBook = new Book("title1", "desc1", Arrays.asList("author1"), LocalDateTime.now());
-        when(mockBookRepository.findById("1")).thenReturn(Optional.of(existingBook));
-        when(mockBookRepository.save(ArgumentMatchers.any(Book.class))).thenReturn(existingBook);
+        LocalDateTime previousPublishedAt = LocalDateTime.of(2020, 1, 1, 0, 0);
+        Book existingBook = new Book("title1", "desc1", Arrays.asList("author1"), previousPublishedAt);
+        when(mockMongoOperations.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Book.class)))
+            .thenReturn(existingBook);
 
         // when
         Book result = bookService.update("1", dto);
@@ -112,13 +262,97 @@ class BookServiceTest {
         assertEquals("title2", result.getTitle());
         assertEquals("desc2", result.getDescription());
         assertEquals(Arrays.asList("author2"), result.getAuthors());
+        verify(mockBookRepository, never()).findById("1");
+        verify(mockBookRepository, never()).save(any(Book.class));
+        verify(mockBookSearchService).index(result);
+        verify(mockAuthorFacetService).authorsChanged(Arrays.asList("author1"), Arrays.asList("author2"));
+        verify(mockDateHistogramService).publishedAtChanged(previousPublishedAt, dto.publishedAt());
+    }
+
+    @Test
+    void updateShouldSetDtoFieldsInSingleFindAndModify() {
+        // given
+        BookCreateDto dto = new BookCreateDto("title2", "desc2", Arrays.asList("author2"), LocalDateTime.of(2022, 1, 1, 0, 0));
+        when(mockMongoOperations.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Book.class)))
+            .thenReturn(new Book());
+
+        // when
+        bookService.update("1", dto);
+
+        // then
+        verify(mockMongoOperations).findAndModify(
+            argThat((Query query) -> "1".equals(query.getQueryObject().get("id"))),
+            argThat((Update update) -> update.modifies("title") && update.modifies("description")
+                && update.modifies("authors") && update.modifies("publishedAt")),
+            any(FindAndModifyOptions.class),
+            eq(Book.class));
+    }
+
+    @Test
+    void updateShouldIncrementVersion() {
+        // given
+        BookCreateDto dto = new BookCreateDto("title2", "desc2", Arrays.asList("author2"), LocalDateTime.now());
+        Book existingBook = new Book("1", "title1", "desc1", Arrays.asList("author1"), LocalDateTime.now(), LocalDateTime.now(), 3);
+        when(mockMongoOperations.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Book.class)))
+            .thenReturn(existingBook);
+
+        // when
+        Book result = bookService.update("1", dto);
+
+        // then
+        assertEquals(4, result.getVersion());
+        verify(mockMongoOperations).findAndModify(
+            any(Query.class),
+            argThat((Update update) -> update.getUpdateObject().get("$inc", Document.class).get("version").equals(1)),
+            any(FindAndModifyOptions.class),
+            eq(Book.class));
+    }
+
+    @Test
+    void findVersionByIdShouldUseCachedBookWithoutQuery() {
+        // given
+        Book cached = new Book("1", "title", "desc", Arrays.asList("author"), LocalDateTime.now(), LocalDateTime.now(), 7);
+        cacheManager.getCache(BookService.BOOKS_CACHE).put("1", cached);
+
+        // when
+        long version = bookService.findVersionById("1");
+
+        // then
+        assertEquals(7, version);
+        verifyNoInteractions(mockBookRepository);
+    }
+
+    @Test
+    void findVersionByIdShouldReadProjectionWhenNotCached() {
+        // given
+        when(mockBookRepository.findVersionById("1")).thenReturn(Optional.of(new BookVersion("1", 2)));
+
+        // when
+        long version = bookService.findVersionById("1");
+
+        // then
+        assertEquals(2, version);
+        verify(mockBookRepository, never()).findById("1");
+    }
+
+    @Test
+    void findVersionByIdShouldThrowWhenBookDoesNotExist() {
+        // given
+        when(mockBookRepository.findVersionById("1")).thenReturn(Optional.empty());
+
+        // when
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> bookService.findVersionById("1"));
+
+        // then
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
     }
 
     @Test
     void updateShouldReturnNullWhenBookDoesNotExist() {
         // given
         BookCreateDto dto = new BookCreateDto("title", "desc", Arrays.asList("author"), LocalDateTime.now());
-        when(mockBookRepository.findById("1")).thenReturn(Optional.empty());
+        when(mockMongoOperations.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Book.class)))
+            .thenReturn(null);
 
         // when
         ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> bookService.update("1", dto));
@@ -130,27 +364,33 @@ class BookServiceTest {
     @Test
     void deleteById_shouldReturnId_whenBookExists() {
         // given
-        when(mockBookRepository.findById("1")).thenReturn(Optional.of(new Book()));
+        Book removed = new Book();
+        removed.setAuthors(Arrays.asList("author1"));
+        when(mockBookRepository.findAndRemoveById("1")).thenReturn(Optional.of(removed));
 
         // when
         String result = bookService.deleteById("1");
 
         // then
         assertEquals("1", result);
-        verify(mockBookRepository, times(1)).deleteById("1");
+        verify(mockBookRepository, times(1)).findAndRemoveById("1");
+        verify(mockBookRepository, never()).findById("1");
+        verify(mockBookSearchService).remove("1");
+        verify(mockAuthorFacetService).authorsChanged(Arrays.asList("author1"), null);
+        verify(mockDateHistogramService).bookDeleted(removed);
     }
 
     @Test
     void deleteByIdShouldThrowNotFoundWhenBookDoesNotExist() {
         // given
-        when(mockBookRepository.findById("1")).thenReturn(Optional.empty());
+        when(mockBookRepository.findAndRemoveById("1")).thenReturn(Optional.empty());
 
         // when
         ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> bookService.deleteById("1"));
 
         // then
         assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
-        verify(mockBookRepository, never()).deleteById("1");
+        verifyNoInteractions(mockAuthorFacetService);
     }
 
     @Test
@@ -308,4 +548,168 @@ class BookServiceTest {
         // then
         assertTrue(result.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getPageShouldReturnTokenOfLastBookWhenMoreBooksExist() {
+        // given
+        Book book1 = new Book("1", "title1", "desc1", Arrays.asList("author1"), LocalDateTime.now(), LocalDateTime.of(2022, 1, 1, 0, 0));
+        Book book2 = new Book("2", "title2", "desc2", Arrays.asList("author2"), LocalDateTime.now(), LocalDateTime.of(2022, 1, 2, 0, 0));
+        when(mockBookRepository.findAllBy(ArgumentMatchers.any(Pageable.class), ArgumentMatchers.eq(Book.class)))
+            .thenReturn(new SliceImpl<>(Arrays.asList(book1, book2), PageRequest.of(0, 2), true));
+
+        // when
+        CursorPage<Book> result = bookService.getPage(null, 2);
+
+        // then
+        assertEquals(Arrays.asList(book1, book2), result.items());
+        assertEquals(new PageToken(book2.getCreatedAt(), "2"), PageToken.decode(result.next()));
+    }
+
+    @Test
+    void getPageShouldReturnNoTokenOnLastPage() {
+        // given
+        Book book = new Book("1", "title1", "desc1", Arrays.asList("author1"), LocalDateTime.now(), LocalDateTime.now());
+        when(mockBookRepository.findAllBy(ArgumentMatchers.any(Pageable.class), ArgumentMatchers.eq(Book.class)))
+            .thenReturn(new SliceImpl<>(Arrays.asList(book), PageRequest.of(0, 2), false));
+
+        // when
+        CursorPage<Book> result = bookService.getPage(null, 2);
+
+        // then
+        assertEquals(1, result.items().size());
+        assertNull(result.next());
+    }
+
+    @Test
+    void getPageShouldResumeAfterToken() {
+        // given
+        LocalDateTime createdAt = LocalDateTime.of(2022, 1, 1, 0, 0);
+        String after = new PageToken(createdAt, "1").encode();
+        when(mockBookRepository.findAllAfter(ArgumentMatchers.eq(createdAt), ArgumentMatchers.eq("1"), ArgumentMatchers.any(Pageable.class), ArgumentMatchers.eq(Book.class)))
+            .thenReturn(new SliceImpl<>(Collections.emptyList(), PageRequest.of(0, 2), false));
+
+        // when
+        CursorPage<Book> result = bookService.getPage(after, 2);
+
+        // then
+        assertTrue(result.items().isEmpty());
+        verify(mockBookRepository, never()).findAllBy(ArgumentMatchers.any(Pageable.class), ArgumentMatchers.eq(Book.class));
+    }
+
+    @Test
+    void getPageShouldCapPageSize() {
+        // given
+        when(mockBookRepository.findAllBy(ArgumentMatchers.any(Pageable.class), ArgumentMatchers.eq(Book.class)))
+            .thenReturn(new SliceImpl<>(Collections.emptyList()));
+
+        // when
+        bookService.getPage(null, 10_000);
+
+        // then
+        verify(mockBookRepository).findAllBy(ArgumentMatchers.argThat(pageable -> pageable.getPageSize() == BookService.MAX_PAGE_SIZE), ArgumentMatchers.eq(Book.class));
+    }
+
+    @Test
+    void getPageShouldThrowBadRequestWhenTokenIsInvalid() {
+        // when
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> bookService.getPage("not-a-token", 20));
+
+        // then
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    void findByAuthorsPageShouldResumeAfterToken() {
+        // given
+        LocalDateTime createdAt = LocalDateTime.of(2022, 1, 1, 0, 0);
+        String after = new PageToken(createdAt, "1").encode();
+        List<Book> expectedBooks = Arrays.asList(new Book());
+        when(mockBookRepository.findByAuthorsAfter(ArgumentMatchers.eq("test author"), ArgumentMatchers.eq(createdAt), ArgumentMatchers.eq("1"), ArgumentMatchers.any(Pageable.class), ArgumentMatchers.eq(Book.class)))
+            .thenReturn(new SliceImpl<>(expectedBooks, PageRequest.of(0, 20), false));
+
+        // when
+        CursorPage<Book> result = bookService.findByAuthors("test author", after, 20);
+
+        // then
+        assertEquals(expectedBooks, result.items());
+    }
+
+    @Test
+    void findByPublishedBetweenPageShouldOrderByPublishedAtAndReturnTokenCarryingIt() {
+        // given
+        LocalDateTime startDate = LocalDateTime.of(2020, 1, 1, 0, 0);
+        LocalDateTime endDate = LocalDateTime.of(2023, 1, 1, 0, 0);
+        Book book = new Book("1", "title1", "desc1", Arrays.asList("author1"), LocalDateTime.of(2021, 6, 1, 0, 0), LocalDateTime.of(2022, 1, 1, 0, 0));
+        when(mockBookRepository.findByPublishedAtBetween(ArgumentMatchers.eq(startDate), ArgumentMatchers.eq(endDate), ArgumentMatchers.any(Pageable.class), ArgumentMatchers.eq(Book.class)))
+            .thenReturn(new SliceImpl<>(Arrays.asList(book), PageRequest.of(0, 1), true));
+
+        // when
+        CursorPage<Book> result = bookService.findByPublishedBetween(startDate, endDate, null, 1);
+
+        // then
+        assertEquals(new PageToken(book.getPublishedAt(), book.getCreatedAt(), "1"), PageToken.decode(result.next()));
+        verify(mockBookRepository).findByPublishedAtBetween(ArgumentMatchers.eq(startDate), ArgumentMatchers.eq(endDate),
+            ArgumentMatchers.argThat(pageable -> pageable.getSort().equals(Sort.by("publishedAt", "createdAt", "id"))), ArgumentMatchers.eq(Book.class));
+    }
+
+    @Test
+    void findByPublishedBetweenPageShouldResumeAfterToken() {
+        // given
+        LocalDateTime startDate = LocalDateTime.of(2020, 1, 1, 0, 0);
+        LocalDateTime endDate = LocalDateTime.of(2023, 1, 1, 0, 0);
+        LocalDateTime publishedAt = LocalDateTime.of(2021, 6, 1, 0, 0);
+        LocalDateTime createdAt = LocalDateTime.of(2022, 1, 1, 0, 0);
+        String after = new PageToken(publishedAt, createdAt, "1").encode();
+        when(mockBookRepository.findByPublishedAtBetweenAfter(ArgumentMatchers.eq(startDate), ArgumentMatchers.eq(endDate), ArgumentMatchers.eq(publishedAt),
+            ArgumentMatchers.eq(createdAt), ArgumentMatchers.eq("1"), ArgumentMatchers.any(Pageable.class), ArgumentMatchers.eq(Book.class)))
+            .thenReturn(new SliceImpl<>(Collections.emptyList(), PageRequest.of(0, 20), false));
+
+        // when
+        CursorPage<Book> result = bookService.findByPublishedBetween(startDate, endDate, after, 20);
+
+        // then
+        assertTrue(result.items().isEmpty());
+        assertNull(result.next());
+    }
+
+    @Test
+    void findByPublishedBetweenPageShouldThrowBadRequestWhenTokenLacksPublishedAt() {
+        // given
+        String after = new PageToken(LocalDateTime.of(2022, 1, 1, 0, 0), "1").encode();
+
+        // when
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> bookService.findByPublishedBetween(LocalDateTime.of(2020, 1, 1, 0, 0), LocalDateTime.of(2023, 1, 1, 0, 0), after, 20));
+
+        // then
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    void getSummaryPageShouldReturnTokenOfLastSummary() {
+        // given
+        BookSummary summary = new BookSummary("1", "title1", Arrays.asList("author1"), LocalDateTime.now(), LocalDateTime.of(2022, 1, 1, 0, 0), 0);
+        when(mockBookRepository.findAllBy(ArgumentMatchers.any(Pageable.class), ArgumentMatchers.eq(BookSummary.class)))
+            .thenReturn(new SliceImpl<>(Arrays.asList(summary), PageRequest.of(0, 1), true));
+
+        // when
+        CursorPage<BookSummary> result = bookService.getSummaryPage(null, 1);
+
+        // then
+        assertEquals(Arrays.asList(summary), result.items());
+        assertEquals(new PageToken(summary.createdAt(), "1"), PageToken.decode(result.next()));
+    }
+
+    @Test
+    void findSummariesByTitleShouldProjectToSummary() {
+        // given
+        List<BookSummary> expectedSummaries = Arrays.asList(new BookSummary("1", "test title", Arrays.asList("author"), LocalDateTime.now(), LocalDateTime.now(), 0));
+        when(mockBookRepository.findByTitle("test title", BookSummary.class)).thenReturn(expectedSummaries);
+
+        // when
+        List<BookSummary> result = bookService.findSummariesByTitle("test title");
+
+        // then
+        assertEquals(expectedSummaries, result);
+    }
+}
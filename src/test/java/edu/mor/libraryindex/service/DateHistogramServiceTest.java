@@ -0,0 +1,203 @@
+package edu.mor.libraryindex.service;
+
+import com.mongodb.client.model.DeleteManyModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import edu.mor.libraryindex.dto.HistogramBucketKey;
+import edu.mor.libraryindex.dto.HistogramBucketKey.Field;
+import edu.mor.libraryindex.dto.HistogramBucketKey.Granularity;
+import edu.mor.libraryindex.model.Book;
+import edu.mor.libraryindex.model.HistogramBucket;
+import edu.mor.libraryindex.repository.HistogramBucketRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.CollectionCallback;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DateHistogramServiceTest {
+    private static final LocalDateTime FROM = LocalDateTime.of(2020, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2021, 1, 1, 0, 0);
+
+    @Mock
+    private HistogramBucketRepository mockHistogramBucketRepository;
+
+    @Mock
+    private MongoOperations mockMongoOperations;
+
+    private DateHistogramService dateHistogramService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        when(mockMongoOperations.getConverter()).thenReturn(converter);
+        dateHistogramService = new DateHistogramService(mockHistogramBucketRepository, mockMongoOperations, true);
+    }
+
+    @Test
+    void bucketKeyShouldTruncateToStartOfPeriod() {
+        // given
+        LocalDateTime value = LocalDateTime.of(2021, 5, 17, 13, 45);
+
+        // when
+        HistogramBucketKey year = HistogramBucketKey.of(Field.PUBLISHED_AT, Granularity.YEAR, value);
+        HistogramBucketKey month = HistogramBucketKey.of(Field.PUBLISHED_AT, Granularity.MONTH, value);
+        HistogramBucketKey day = HistogramBucketKey.of(Field.CREATED_AT, Granularity.DAY, value);
+
+        // then
+        assertEquals(LocalDateTime.of(2021, 1, 1, 0, 0), year.start());
+        assertEquals(LocalDateTime.of(2021, 5, 1, 0, 0), month.start());
+        assertEquals("createdAt:day:2021-05-17", day.id());
+    }
+
+    @Test
+    void createdShouldCountEveryGranularityOfBothDates() {
+        // given
+        List<Book> books = Arrays.asList(
+            new Book("1", "title1", "desc", Arrays.asList("author"), LocalDateTime.of(2020, 3, 1, 0, 0), LocalDateTime.of(2023, 1, 1, 0, 0)),
+            new Book("2", "title2", "desc", Arrays.asList("author"), LocalDateTime.of(2020, 3, 2, 0, 0), null));
+
+        // when
+        Map<HistogramBucketKey, Integer> deltas = DateHistogramService.created(books);
+
+        // then
+        assertEquals(7, deltas.size());
+        assertEquals(2, deltas.get(HistogramBucketKey.of(Field.PUBLISHED_AT, Granularity.MONTH, FROM.withMonth(3))));
+        assertEquals(1, deltas.get(HistogramBucketKey.of(Field.PUBLISHED_AT, Granularity.DAY, LocalDateTime.of(2020, 3, 2, 0, 0))));
+        assertEquals(1, deltas.get(HistogramBucketKey.of(Field.CREATED_AT, Granularity.YEAR, LocalDateTime.of(2023, 1, 1, 0, 0))));
+    }
+
+    @Test
+    void movedShouldLeaveOutBucketsHoldingBothDates() {
+        // when
+        Map<HistogramBucketKey, Integer> deltas = DateHistogramService.moved(Field.PUBLISHED_AT,
+            LocalDateTime.of(2020, 3, 1, 0, 0), LocalDateTime.of(2020, 4, 1, 0, 0));
+
+        // then
+        assertEquals(4, deltas.size());
+        assertFalse(deltas.containsKey(HistogramBucketKey.of(Field.PUBLISHED_AT, Granularity.YEAR, FROM)));
+        assertEquals(-1, deltas.get(HistogramBucketKey.of(Field.PUBLISHED_AT, Granularity.MONTH, LocalDateTime.of(2020, 3, 1, 0, 0))));
+        assertEquals(1, deltas.get(HistogramBucketKey.of(Field.PUBLISHED_AT, Granularity.MONTH, LocalDateTime.of(2020, 4, 1, 0, 0))));
+    }
+
+    @Test
+    void writesShouldRemoveDecrementedBucketsAfterIncrements() {
+        // when
+        List<WriteModel<Document>> writes = DateHistogramService.writes(
+            DateHistogramService.moved(Field.PUBLISHED_AT, FROM, TO), mockMongoOperations.getConverter());
+
+        // then
+        assertEquals(7, writes.size());
+        assertTrue(((UpdateOneModel<Document>) writes.get(0)).getOptions().isUpsert());
+        assertInstanceOf(DeleteManyModel.class, writes.get(6));
+    }
+
+    @Test
+    void publishedAtChangedShouldNotWriteWhenDayIsUnchanged() {
+        // when
+        dateHistogramService.publishedAtChanged(FROM, FROM.plusHours(5));
+
+        // then
+        verify(mockMongoOperations, never()).execute(eq(HistogramBucket.class), ArgumentMatchers.<CollectionCallback<Object>>any());
+    }
+
+    @Test
+    void bookDeletedShouldWriteOnceForAllBuckets() {
+        // when
+        dateHistogramService.bookDeleted(new Book("1", "title", "desc", Arrays.asList("author"), FROM, TO));
+
+        // then
+        verify(mockMongoOperations, times(1)).execute(eq(HistogramBucket.class), ArgumentMatchers.<CollectionCallback<Object>>any());
+    }
+
+    @Test
+    void histogramShouldReadFromStartOfFirstBucket() {
+        // when
+        dateHistogramService.histogram("createdAt", "MONTH", FROM.plusDays(10), TO);
+
+        // then
+        verify(mockHistogramBucketRepository).findCounts("createdAt", "month", FROM, TO);
+    }
+
+    @Test
+    void histogramShouldRejectUnknownGranularity() {
+        // when
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> dateHistogramService.histogram("publishedAt", "week", FROM, TO));
+
+        // then
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verifyNoInteractions(mockHistogramBucketRepository);
+    }
+
+    @Test
+    void histogramShouldRejectEmptyRange() {
+        // when
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> dateHistogramService.histogram("publishedAt", "year", TO, FROM));
+
+        // then
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    void histogramShouldRejectRangeWithTooManyBuckets() {
+        // when
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> dateHistogramService.histogram("publishedAt", "day", FROM, FROM.plusDays(DateHistogramService.MAX_BUCKETS)));
+
+        // then
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    void rebuildShouldRollDailyCountsUpIntoMonthsAndYears() {
+        // given
+        when(mockMongoOperations.aggregateStream(any(Aggregation.class), eq(Book.class), eq(Document.class)))
+            .thenReturn(Stream.of(new Document("_id", "2020-03-01").append("count", 2), new Document("_id", "2020-03-02").append("count", 1)))
+            .thenReturn(Stream.empty());
+
+        // when
+        int buckets = dateHistogramService.rebuild();
+
+        // then
+        assertEquals(4, buckets);
+        verify(mockMongoOperations, times(Field.values().length)).aggregateStream(any(Aggregation.class), eq(Book.class), eq(Document.class));
+        verify(mockMongoOperations, times(1)).execute(eq(HistogramBucket.class), ArgumentMatchers.<CollectionCallback<Object>>any());
+        verifyNoInteractions(mockHistogramBucketRepository);
+    }
+
+    @Test
+    void dailyCountsShouldGroupOnServerAndAllowDiskUse() {
+        // when
+        Aggregation aggregation = DateHistogramService.dailyCounts(Field.CREATED_AT);
+
+        // then
+        List<Document> pipeline = aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals("%Y-%m-%d", pipeline.get(1).get("$project", Document.class).get("day", Document.class)
+            .get("$dateToString", Document.class).getString("format"));
+        assertEquals("$day", pipeline.get(2).get("$group", Document.class).get("_id"));
+        assertTrue(aggregation.getOptions().isAllowDiskUse());
+    }
+}
@@ -0,0 +1,233 @@
+package edu.mor.libraryindex.service;
+
+import edu.mor.libraryindex.dto.BookCreateDto;
+import edu.mor.libraryindex.dto.BookSummary;
+import edu.mor.libraryindex.dto.CursorPage;
+import edu.mor.libraryindex.dto.PageToken;
+import edu.mor.libraryindex.id.TimeOrderedUuidGenerator;
+import edu.mor.libraryindex.model.AuthorFacet;
+import edu.mor.libraryindex.model.Book;
+import edu.mor.libraryindex.model.HistogramBucket;
+import edu.mor.libraryindex.repository.ReactiveBookRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveCollectionCallback;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReactiveBookServiceTest {
+    @Mock
+    private ReactiveBookRepository mockBookRepository;
+
+    @Mock
+    private ReactiveMongoOperations mockMongoOperations;
+
+    @Mock
+    private BookSearchService mockBookSearchService;
+
+    @Mock
+    private AuthorFacetService mockAuthorFacetService;
+
+    @Mock
+    private DateHistogramService mockDateHistogramService;
+
+    private ReactiveBookService bookService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        bookService = new ReactiveBookService(mockBookRepository, mockMongoOperations, mockBookSearchService, new TimeOrderedUuidGenerator(),
+            mockAuthorFacetService, mockDateHistogramService, 1000);
+        when(mockMongoOperations.execute(ArgumentMatchers.<Class<?>>any(), ArgumentMatchers.<ReactiveCollectionCallback<Document>>any())).thenReturn(Flux.empty());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        when(mockMongoOperations.getConverter()).thenReturn(converter);
+    }
+
+    @Test
+    void findByIdShouldFailWithNotFoundIfBookDoesNotExist() {
+        // given
+        when(mockBookRepository.findById("1")).thenReturn(Mono.empty());
+
+        // when
+        Mono<Book> result = bookService.findById("1");
+
+        // then
+        StepVerifier.create(result)
+            .expectErrorSatisfies(e -> assertEquals(HttpStatus.NOT_FOUND, ((ResponseStatusException) e).getStatusCode()))
+            .verify();
+    }
+
+    @Test
+    void createShouldIndexSavedBook() {
+        // given
+        when(mockBookRepository.save(ArgumentMatchers.any(Book.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // when
+        Mono<Book> result = bookService.create(new BookCreateDto("title", "desc", Arrays.asList("author"), LocalDateTime.now()));
+
+        // then
+        StepVerifier.create(result)
+            .assertNext(book -> verify(mockBookSearchService).index(book))
+            .verifyComplete();
+    }
+
+    @Test
+    void updateShouldFailWithNotFoundIfBookDoesNotExist() {
+        // given
+        when(mockMongoOperations.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Book.class)))
+            .thenReturn(Mono.empty());
+
+        // when
+        Mono<Book> result = bookService.update("1", new BookCreateDto("title", "desc", Arrays.asList("author"), LocalDateTime.now()));
+
+        // then
+        StepVerifier.create(result).expectError(ResponseStatusException.class).verify();
+        verify(mockBookSearchService, never()).index(ArgumentMatchers.any());
+    }
+
+    @Test
+    void updateShouldWriteAuthorFacetDifference() {
+        // given
+        Book previous = new Book("1", "title", "desc", Arrays.asList("author1", "author2"), LocalDateTime.now(), LocalDateTime.now());
+        when(mockMongoOperations.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Book.class)))
+            .thenReturn(Mono.just(previous));
+
+        // when
+        Mono<Book> result = bookService.update("1", new BookCreateDto("title", "desc", Arrays.asList("author2", "author3"), LocalDateTime.now()));
+
+        // then
+        StepVerifier.create(result).expectNextCount(1).verifyComplete();
+        verify(mockMongoOperations).execute(eq(AuthorFacet.class), ArgumentMatchers.<ReactiveCollectionCallback<Document>>any());
+    }
+
+    @Test
+    void updateShouldNotWriteAuthorFacetsIfAuthorsAreUnchanged() {
+        // given
+        LocalDateTime publishedAt = LocalDateTime.of(2022, 1, 1, 0, 0);
+        Book previous = new Book("1", "title", "desc", Arrays.asList("author1"), publishedAt, LocalDateTime.now());
+        when(mockMongoOperations.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Book.class)))
+            .thenReturn(Mono.just(previous));
+
+        // when
+        Mono<Book> result = bookService.update("1", new BookCreateDto("new title", "desc", Arrays.asList("author1"), publishedAt));
+
+        // then
+        StepVerifier.create(result).expectNextCount(1).verifyComplete();
+        verify(mockMongoOperations, never()).execute(ArgumentMatchers.<Class<?>>any(), ArgumentMatchers.<ReactiveCollectionCallback<Document>>any());
+    }
+
+    @Test
+    void updateShouldOnlyWriteHistogramIfPublishedAtMoved() {
+        // given
+        Book previous = new Book("1", "title", "desc", Arrays.asList("author1"), LocalDateTime.of(2022, 1, 1, 0, 0), LocalDateTime.now());
+        when(mockMongoOperations.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Book.class)))
+            .thenReturn(Mono.just(previous));
+
+        // when
+        Mono<Book> result = bookService.update("1", new BookCreateDto("title", "desc", Arrays.asList("author1"), LocalDateTime.of(2022, 2, 1, 0, 0)));
+
+        // then
+        StepVerifier.create(result).expectNextCount(1).verifyComplete();
+        verify(mockMongoOperations).execute(eq(HistogramBucket.class), ArgumentMatchers.<ReactiveCollectionCallback<Document>>any());
+        verify(mockMongoOperations, never()).execute(eq(AuthorFacet.class), ArgumentMatchers.<ReactiveCollectionCallback<Document>>any());
+    }
+
+    @Test
+    void deleteByIdShouldRemoveBookFromSearchIndex() {
+        // given
+        Book removed = new Book("1", null, null, Arrays.asList("author"), LocalDateTime.now(), LocalDateTime.now());
+        when(mockBookRepository.findAndRemoveById("1")).thenReturn(Mono.just(removed));
+
+        // when
+        Mono<String> result = bookService.deleteById("1");
+
+        // then
+        StepVerifier.create(result).expectNext("1").verifyComplete();
+        verify(mockBookSearchService).remove("1");
+        verify(mockMongoOperations).execute(eq(AuthorFacet.class), ArgumentMatchers.<ReactiveCollectionCallback<Document>>any());
+        verify(mockMongoOperations).execute(eq(HistogramBucket.class), ArgumentMatchers.<ReactiveCollectionCallback<Document>>any());
+    }
+
+    @Test
+    void deleteByIdShouldFailWithNotFoundIfBookDoesNotExist() {
+        // given
+        when(mockBookRepository.findAndRemoveById("1")).thenReturn(Mono.empty());
+
+        // when
+        Mono<String> result = bookService.deleteById("1");
+
+        // then
+        StepVerifier.create(result).expectError(ResponseStatusException.class).verify();
+        verify(mockBookSearchService, never()).remove("1");
+    }
+
+    @Test
+    void getSummaryPageShouldUseLookaheadElementForNextToken() {
+        // given
+        LocalDateTime createdAt = LocalDateTime.of(2022, 1, 1, 0, 0);
+        BookSummary first = new BookSummary("1", "title1", Arrays.asList("author1"), LocalDateTime.now(), createdAt, 0);
+        BookSummary second = new BookSummary("2", "title2", Arrays.asList("author2"), LocalDateTime.now(), createdAt, 0);
+        when(mockBookRepository.findAllBy(ArgumentMatchers.argThat(pageable -> pageable.getPageSize() == 2), ArgumentMatchers.eq(BookSummary.class)))
+            .thenReturn(Flux.just(first, second));
+
+        // when
+        Mono<CursorPage<BookSummary>> result = bookService.getSummaryPage(null, 1);
+
+        // then
+        StepVerifier.create(result)
+            .assertNext(page -> {
+                assertEquals(Arrays.asList(first), page.items());
+                assertEquals(new PageToken(createdAt, "1"), PageToken.decode(page.next()));
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void getPageShouldNotReturnTokenOnLastPage() {
+        // given
+        Book book = new Book("1", "title1", "desc1", Arrays.asList("author1"), LocalDateTime.now(), LocalDateTime.now());
+        when(mockBookRepository.findAllBy(ArgumentMatchers.any(Pageable.class), ArgumentMatchers.eq(Book.class)))
+            .thenReturn(Flux.just(book));
+
+        // when
+        Mono<CursorPage<Book>> result = bookService.getPage(null, 1);
+
+        // then
+        StepVerifier.create(result)
+            .assertNext(page -> assertNull(page.next()))
+            .verifyComplete();
+    }
+
+    @Test
+    void getPageShouldFailWithBadRequestForInvalidToken() {
+        // when
+        Mono<CursorPage<Book>> result = bookService.getPage("not a token", 10);
+
+        // then
+        StepVerifier.create(result)
+            .expectErrorSatisfies(e -> assertEquals(HttpStatus.BAD_REQUEST, ((ResponseStatusException) e).getStatusCode()))
+            .verify();
+    }
+}
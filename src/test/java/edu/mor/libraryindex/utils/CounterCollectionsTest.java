@@ -0,0 +1,85 @@
+package edu.mor.libraryindex.utils;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.DeleteManyModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.mongodb.core.CollectionCallback;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CounterCollectionsTest {
+    @Test
+    @SuppressWarnings("unchecked")
+    void incrementsShouldUpsertEveryCounterAndDeleteOnlyDecrementedOnesLeftAtZero() {
+        // given
+        Map<String, Integer> deltas = new TreeMap<>(Map.of("a", 1, "b", -1));
+
+        // when
+        List<WriteModel<Document>> writes = CounterCollections.increments(deltas, key -> "id-" + key,
+            key -> Updates.setOnInsert("key", key));
+
+        // then
+        assertEquals(3, writes.size());
+        UpdateOneModel<Document> increment = (UpdateOneModel<Document>) writes.get(0);
+        assertTrue(increment.getOptions().isUpsert());
+        assertEquals(Filters.eq("_id", "id-a").toBsonDocument(), increment.getFilter().toBsonDocument());
+        assertEquals("a", increment.getUpdate().toBsonDocument().getDocument("$setOnInsert").getString("key").getValue());
+        assertEquals(Filters.and(Filters.in("_id", List.of("id-b")), Filters.lte("count", 0)).toBsonDocument(),
+            ((DeleteManyModel<Document>) writes.get(2)).getFilter().toBsonDocument());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuildShouldDeleteCountersItDidNotSetWithoutReadingThem() {
+        // given
+        MongoOperations mockMongoOperations = mock(MongoOperations.class);
+        MongoCollection<Document> mockCollection = mock(MongoCollection.class);
+        CounterCollections.Rebuild rebuild = CounterCollections.rebuild(mockMongoOperations, Object.class, 10);
+
+        // when
+        rebuild.set("a", 2, null);
+        int counters = rebuild.finish();
+
+        // then
+        assertEquals(1, counters);
+        ArgumentCaptor<CollectionCallback<Object>> callback = ArgumentCaptor.forClass(CollectionCallback.class);
+        verify(mockMongoOperations).execute(eq(Object.class), callback.capture());
+        callback.getValue().doInCollection(mockCollection);
+        ArgumentCaptor<List<WriteModel<Document>>> writes = ArgumentCaptor.forClass(List.class);
+        verify(mockCollection).bulkWrite(writes.capture());
+        verifyNoMoreInteractions(mockCollection);
+        BsonValue rebuildId = ((UpdateOneModel<Document>) writes.getValue().get(0)).getUpdate().toBsonDocument()
+            .getDocument("$set").get(CounterCollections.REBUILD_MARK);
+        assertNotNull(rebuildId);
+        assertEquals(Filters.ne(CounterCollections.REBUILD_MARK, rebuildId).toBsonDocument(),
+            ((DeleteManyModel<Document>) writes.getValue().get(1)).getFilter().toBsonDocument());
+    }
+
+    @Test
+    void rebuildShouldWriteFullBatchesBeforeItFinishes() {
+        // given
+        MongoOperations mockMongoOperations = mock(MongoOperations.class);
+        CounterCollections.Rebuild rebuild = CounterCollections.rebuild(mockMongoOperations, Object.class, 2);
+
+        // when
+        rebuild.set("a", 1, null);
+        rebuild.set("b", 1, null);
+
+        // then
+        verify(mockMongoOperations, times(1)).execute(eq(Object.class), ArgumentMatchers.<CollectionCallback<Object>>any());
+    }
+}
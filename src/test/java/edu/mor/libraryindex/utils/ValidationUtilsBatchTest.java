@@ -0,0 +1,56 @@
+package edu.mor.libraryindex.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValidationUtilsBatchTest {
+    @Test
+    void validateEmailsShouldReportFailureReasonOfEveryRejectedEmail() {
+        // given
+        List<String> emails = Arrays.asList("user@domain.com", "userdomain.com", null, "user@123.456.789.000",
+            "user@domain.comm", "user..name@domain.com", "user@domain-.com");
+        List<String> reported = new ArrayList<>();
+
+        // when
+        int failures = ValidationUtils.validateEmails(emails, (index, failure) -> reported.add(index + ":" + failure));
+
+        // then
+        assertEquals(6, failures);
+        assertEquals(Arrays.asList("1:MISSING_AT", "2:MISSING", "3:INVALID_IP_ADDRESS", "4:INVALID_TOP_LEVEL_DOMAIN",
+            "5:INVALID_LOCAL_PART", "6:INVALID_DOMAIN"), reported);
+    }
+
+    @Test
+    void validatePasswordsShouldReturnFailureAtIndexOfEveryPassword() {
+        // when
+        ValidationFailure[] failures = ValidationUtils.validatePasswords(new String[]{
+            "Password1!", "abc123!", "password1!", "PASSWORD1!", "Password!", "Password1"});
+
+        // then
+        assertArrayEquals(new ValidationFailure[]{null, ValidationFailure.TOO_SHORT, ValidationFailure.MISSING_UPPERCASE,
+            ValidationFailure.MISSING_LOWERCASE, ValidationFailure.MISSING_DIGIT, ValidationFailure.MISSING_SPECIAL_CHARACTER}, failures);
+    }
+
+    @Test
+    void checkEmailShouldRejectOverlongInputsWithoutScanningThem() {
+        // given
+        String email = "a".repeat(1_000_000) + "@domain.com";
+
+        // then
+        assertEquals(ValidationFailure.TOO_LONG, ValidationUtils.checkEmail(email));
+    }
+
+    @Test
+    void checkEmailShouldReportLabelAndLocalPartLengths() {
+        // then
+        assertEquals(ValidationFailure.LOCAL_PART_TOO_LONG, ValidationUtils.checkEmail("a".repeat(64) + "@domain.com"));
+        assertNull(ValidationUtils.checkEmail("a".repeat(63) + "@domain.com"));
+        assertEquals(ValidationFailure.DOMAIN_LABEL_TOO_LONG, ValidationUtils.checkEmail("user@" + "d".repeat(64) + ".com"));
+        assertNull(ValidationUtils.checkEmail("user@" + "d".repeat(63) + ".com"));
+    }
+}